@@ -60,6 +60,19 @@ export interface NavigationResponse {
   route: RoutePoint[];
 }
 
+// A map upload is processed in the background; poll the job until it has finished
+export interface MapUploadJob {
+  jobId: string;
+  floorId: string;
+  status: 'QUEUED' | 'PROCESSING' | 'SUCCEEDED' | 'FAILED';
+  message: string | null;
+  width: number | null;
+  height: number | null;
+  mapImageUrl: string | null;
+  submittedAt: string;
+  finishedAt: string | null;
+}
+
 // Building APIs
 export const buildingApi = {
   getAll: async (): Promise<Building[]> => {
@@ -175,7 +188,7 @@ export const floorApi = {
     return handleResponse(response);
   },
 
-  uploadMap: async (id: string, file: { uri: string; name: string; type: string }): Promise<Floor> => {
+  uploadMap: async (id: string, file: { uri: string; name: string; type: string }): Promise<MapUploadJob> => {
     const form = new FormData();
     form.append('file', file as any);
     const response = await fetch(`${API_URL}/api/floors/${id}/map`, {
@@ -185,6 +198,11 @@ export const floorApi = {
     return handleResponse(response);
   },
 
+  getMapJob: async (id: string, jobId: string): Promise<MapUploadJob> => {
+    const response = await fetch(`${API_URL}/api/floors/${id}/map/jobs/${jobId}`);
+    return handleResponse(response);
+  },
+
   delete: async (id: string): Promise<void> => {
     const response = await fetch(`${API_URL}/api/floors/${id}`, {
       method: 'DELETE',
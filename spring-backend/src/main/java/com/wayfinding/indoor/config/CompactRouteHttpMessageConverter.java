@@ -0,0 +1,124 @@
+package com.wayfinding.indoor.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.wayfinding.indoor.dto.NavigationPathResponse;
+import com.wayfinding.indoor.dto.NavigationResponse;
+import com.wayfinding.indoor.util.PolylineCodec;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes route responses with their points as one encoded polyline ({@link PolylineCodec})
+ * when the client asks for {@value #MEDIA_TYPE_VALUE}; plain JSON stays the default. The
+ * body is still a JSON object:
+ * <pre>
+ * {"precision":2,"points":3,"polyline":"..."}                       NavigationPathResponse
+ * {"success":true,"message":"...","totalDistance":42.0,
+ *  "precision":2,"points":3,"polyline":"..."}                       NavigationResponse
+ * </pre>
+ * RoutePoint types are implied (start, waypoints, destination); "types" is only written
+ * when a route deviates from that. Clients may pick the precision with a media type
+ * parameter, e.g. {@code application/vnd.wayfinding.polyline;precision=1}.
+ */
+public class CompactRouteHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    // Not a +json type on purpose: Jackson's converter claims application/*+json
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.wayfinding.polyline";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private final ObjectWriter writer;
+    private final int defaultPrecision;
+
+    public CompactRouteHttpMessageConverter(ObjectMapper objectMapper, int defaultPrecision) {
+        super(MEDIA_TYPE);
+        this.writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.defaultPrecision = defaultPrecision;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return NavigationPathResponse.class.isAssignableFrom(clazz) || NavigationResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Compact routes are write-only", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object body, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        int precision = precision(contentType);
+        Map<String, Object> compact = new LinkedHashMap<>();
+        if (body instanceof NavigationResponse response) {
+            compact.put("success", response.isSuccess());
+            compact.put("message", response.getMessage());
+            compact.put("totalDistance", response.getTotalDistance());
+            List<NavigationResponse.RoutePoint> route = response.getRoute() != null ? response.getRoute() : List.of();
+            double[] xs = new double[route.size()];
+            double[] ys = new double[route.size()];
+            List<String> types = new ArrayList<>(route.size());
+            boolean positional = true;
+            for (int i = 0; i < route.size(); i++) {
+                xs[i] = route.get(i).getX();
+                ys[i] = route.get(i).getY();
+                String type = route.get(i).getType();
+                types.add(type);
+                String implied = i == 0 ? "start" : i == route.size() - 1 ? "destination" : "waypoint";
+                positional &= implied.equals(type);
+            }
+            putPolyline(compact, xs, ys, precision);
+            if (!positional) {
+                compact.put("types", types);
+            }
+        } else {
+            List<NavigationPathResponse.PathPoint> path = ((NavigationPathResponse) body).getPath();
+            path = path != null ? path : List.of();
+            double[] xs = new double[path.size()];
+            double[] ys = new double[path.size()];
+            for (int i = 0; i < path.size(); i++) {
+                xs[i] = path.get(i).getX();
+                ys[i] = path.get(i).getY();
+            }
+            putPolyline(compact, xs, ys, precision);
+        }
+        writer.writeValue(outputMessage.getBody(), compact);
+    }
+
+    private int precision(MediaType contentType) {
+        String requested = contentType != null ? contentType.getParameter("precision") : null;
+        if (requested != null) {
+            try {
+                int precision = Integer.parseInt(requested);
+                if (precision >= 0 && precision <= PolylineCodec.MAX_PRECISION) {
+                    return precision;
+                }
+            } catch (NumberFormatException ignored) {
+                // fall back to the default
+            }
+        }
+        return defaultPrecision;
+    }
+
+    private static void putPolyline(Map<String, Object> compact, double[] xs, double[] ys, int precision) {
+        compact.put("precision", precision);
+        compact.put("points", xs.length);
+        compact.put("polyline", PolylineCodec.encode(xs, ys, precision));
+    }
+}
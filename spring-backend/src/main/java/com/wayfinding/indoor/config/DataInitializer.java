@@ -5,11 +5,15 @@ import com.wayfinding.indoor.repository.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
 import java.util.UUID;
 
 @Component
+// After the index check and map migration, before the warm-up reads the seeded data
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
 @RequiredArgsConstructor
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
@@ -0,0 +1,122 @@
+package com.wayfinding.indoor.config;
+
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.service.CollectionVersions;
+import com.wayfinding.indoor.service.MapDeliveryService;
+import com.wayfinding.indoor.service.MapImageStore;
+import com.wayfinding.indoor.service.RouteSmoother;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * Moves Base64 map images that older versions stored inline in floor documents
+ * ({@code floors.mapImage}) into the {@link MapImageStore} and removes the field, so
+ * floor reads never carry image bytes. Runs at startup, before the warm-up, and is a
+ * no-op once no floor has the field. Values that are already URLs become mapImageUrl
+ * when the floor has none; values that cannot be decoded are kept as a .b64 file.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+@Slf4j
+public class FloorMapImageMigration implements ApplicationRunner {
+
+    static final String LEGACY_FIELD = "mapImage";
+
+    private final MongoTemplate mongoTemplate;
+    private final MapImageStore mapImageStore;
+    private final MapDeliveryService mapDeliveryService;
+    private final RouteSmoother routeSmoother;
+    private final CollectionVersions collectionVersions;
+
+    @Value("${wayfinding.maps.migrate:true}")
+    private boolean enabled = true;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            migrate();
+        }
+    }
+
+    /**
+     * @return number of floor documents migrated
+     */
+    int migrate() {
+        Query legacy = new Query(Criteria.where(LEGACY_FIELD).exists(true));
+        legacy.fields().include("_id", "floorId", "buildingId", "mapImageUrl", LEGACY_FIELD);
+        // Documents can be megabytes each; keep the cursor batches small
+        legacy.cursorBatchSize(8);
+
+        int migrated = 0;
+        int failed = 0;
+        try (Stream<Document> floors = mongoTemplate.stream(legacy, Document.class,
+                mongoTemplate.getCollectionName(Floor.class))) {
+            for (Document floor : (Iterable<Document>) floors::iterator) {
+                try {
+                    migrate(floor);
+                    migrated++;
+                } catch (IOException | ResponseStatusException e) {
+                    failed++;
+                    log.error("Failed to migrate map image of floor {}: {}", floor.get("_id"), e.getMessage());
+                }
+            }
+        }
+        if (migrated > 0 || failed > 0) {
+            log.info("Moved {} inline floor map images to the map store, {} failed", migrated, failed);
+        }
+        return migrated;
+    }
+
+    private void migrate(Document floor) throws IOException {
+        Object id = floor.get("_id");
+        String buildingId = floor.getString("buildingId");
+        String floorId = floor.getString("floorId") != null ? floor.getString("floorId") : String.valueOf(id);
+        String mapImageUrl = floor.getString("mapImageUrl");
+        Object value = floor.get(LEGACY_FIELD);
+
+        Update update = new Update().unset(LEGACY_FIELD);
+        if (value instanceof String image && !image.isBlank()) {
+            if (MapImageStore.isUrl(image)) {
+                if (mapImageUrl == null || mapImageUrl.isEmpty()) {
+                    update.set("mapImageUrl", image.trim());
+                }
+            } else {
+                try {
+                    String url = mapImageStore.saveEncoded(buildingId, floorId, image);
+                    // Variants of an image stored earlier under the same URL would shadow it
+                    mapDeliveryService.removeVariants(mapImageStore.locate(url));
+                    update.set("mapImageUrl", url);
+                } catch (ResponseStatusException e) {
+                    // Not decodable: keep the raw value on disk rather than losing it
+                    log.warn("Map image of floor {} is not valid Base64, kept as {}", floorId,
+                            mapImageStore.saveRaw(buildingId, floorId, image));
+                }
+            }
+        }
+        if (update.modifies("mapImageUrl")) {
+            // Tiles of an earlier image do not show the migrated one
+            update.unset("mapTilesUrl").unset("mapTileSize").unset("mapTileMaxZoom");
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(id)), update, Floor.class);
+        collectionVersions.bump(mongoTemplate.getCollectionName(Floor.class));
+        if (update.modifies("mapImageUrl")) {
+            routeSmoother.invalidate(buildingId, floorId);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.wayfinding.indoor.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Compares the indexes declared on @Document models with those present in Mongo at
+ * startup. Missing indexes, and indexes whose unique or TTL option differs from the
+ * declaration, are reported and, unless disabled, created or rebuilt. Spring Data's
+ * auto-index-creation stays off, so index builds on large collections are visible here
+ * rather than happening implicitly.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class MongoIndexVerifier implements ApplicationRunner {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${wayfinding.indexes.verify:true}")
+    private boolean verify = true;
+
+    @Value("${wayfinding.indexes.create-missing:true}")
+    private boolean createMissing = true;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (verify) {
+            verifyIndexes();
+        }
+    }
+
+    /**
+     * @return descriptions of the indexes that were missing or mismatched when checked
+     */
+    List<String> verifyIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntityIndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+
+        List<String> missing = new ArrayList<>();
+        int declared = 0;
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(org.springframework.data.mongodb.core.mapping.Document.class)) {
+                continue;
+            }
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            Map<List<String>, IndexInfo> existing = new HashMap<>();
+            for (IndexInfo info : indexOps.getIndexInfo()) {
+                existing.put(keys(info), info);
+            }
+
+            for (IndexDefinition definition : resolver.resolveIndexFor(entity.getTypeInformation())) {
+                declared++;
+                Document options = definition.getIndexOptions();
+                boolean unique = options.getBoolean("unique", false);
+                Long ttl = ttlSeconds(options.get("expireAfterSeconds"));
+                String description = entity.getCollection() + " " + definition.getIndexKeys().toJson()
+                        + (unique ? " (unique)" : "") + (ttl != null ? " (ttl " + ttl + "s)" : "");
+
+                IndexInfo current = existing.get(keys(definition.getIndexKeys()));
+                if (current == null) {
+                    missing.add(description);
+                    if (!createMissing) {
+                        log.warn("Missing Mongo index {}", description);
+                        continue;
+                    }
+                    try {
+                        indexOps.ensureIndex(definition);
+                        log.warn("Created missing Mongo index {}", description);
+                    } catch (RuntimeException e) {
+                        log.error("Failed to create Mongo index {}: {}", description, e.getMessage());
+                    }
+                    continue;
+                }
+
+                Long currentTtl = current.getExpireAfter().map(Duration::getSeconds).orElse(null);
+                if (current.isUnique() == unique && Objects.equals(currentTtl, ttl)) {
+                    continue;
+                }
+                String mismatch = description + " mismatched by " + current.getName()
+                        + (current.isUnique() ? " (unique)" : "")
+                        + (currentTtl != null ? " (ttl " + currentTtl + "s)" : "");
+                missing.add(mismatch);
+                if (!createMissing) {
+                    log.warn("Mongo index {}", mismatch);
+                    continue;
+                }
+                if (current.isUnique() == unique && ttl != null) {
+                    changeTtl(entity.getCollection(), current.getName(), ttl, mismatch);
+                } else {
+                    rebuild(indexOps, current, definition, mismatch);
+                }
+            }
+        }
+        log.info("Verified {} declared Mongo indexes, {} missing or mismatched", declared, missing.size());
+        return missing;
+    }
+
+    private void changeTtl(String collection, String name, long ttl, String description) {
+        try {
+            mongoTemplate.executeCommand(new Document("collMod", collection)
+                    .append("index", new Document("name", name).append("expireAfterSeconds", ttl)));
+            log.warn("Changed the TTL of Mongo index {}", description);
+        } catch (RuntimeException e) {
+            log.error("Failed to change the TTL of Mongo index {}: {}", description, e.getMessage());
+        }
+    }
+
+    // Mongo cannot change the unique option in place; the old index is put back when the
+    // declared one cannot be built, e.g. because of duplicate keys
+    private void rebuild(IndexOperations indexOps, IndexInfo current, IndexDefinition definition,
+                         String description) {
+        try {
+            indexOps.dropIndex(current.getName());
+            indexOps.ensureIndex(definition);
+            log.warn("Rebuilt Mongo index {}", description);
+        } catch (RuntimeException e) {
+            log.error("Failed to rebuild Mongo index {}: {}", description, e.getMessage());
+            try {
+                indexOps.ensureIndex(previous(current));
+            } catch (RuntimeException restore) {
+                log.error("Failed to restore Mongo index {}: {}", current.getName(), restore.getMessage());
+            }
+        }
+    }
+
+    private static Index previous(IndexInfo info) {
+        Index index = new Index().named(info.getName());
+        for (IndexField field : info.getIndexFields()) {
+            index.on(field.getKey(), field.getDirection() == null ? Sort.Direction.ASC : field.getDirection());
+        }
+        if (info.isUnique()) {
+            index.unique();
+        }
+        info.getExpireAfter().ifPresent(index::expire);
+        return index;
+    }
+
+    private static Long ttlSeconds(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+
+    private static List<String> keys(Document indexKeys) {
+        List<String> keys = new ArrayList<>();
+        indexKeys.forEach((field, direction) -> keys.add(field + ":" + direction));
+        return keys;
+    }
+
+    private static List<String> keys(IndexInfo info) {
+        List<String> keys = new ArrayList<>();
+        for (IndexField field : info.getIndexFields()) {
+            Object direction = field.getDirection() == null ? "special"
+                    : field.getDirection() == Sort.Direction.ASC ? 1 : -1;
+            keys.add(field.getKey() + ":" + direction);
+        }
+        return keys;
+    }
+}
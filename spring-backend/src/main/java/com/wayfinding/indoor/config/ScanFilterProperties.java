@@ -0,0 +1,51 @@
+package com.wayfinding.indoor.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings for the scan preprocessing pipeline that runs before positioning.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "wayfinding.positioning.filter")
+public class ScanFilterProperties {
+
+    // Readings weaker than this are dropped (dBm)
+    private int minRssi = -75;
+
+    // Readings at or above this are treated as invalid (dBm)
+    private int maxRssi = 0;
+
+    // Per-building overrides of minRssi, keyed by building id
+    private Map<String, Integer> buildingMinRssi = new HashMap<>();
+
+    private Smoothing smoothing = new Smoothing();
+
+    @Data
+    public static class Smoothing {
+        // none, ema or median; only applied to scans that carry a deviceId
+        private String mode = "ema";
+        private double alpha = 0.4;
+        private int window = 5;
+        // Readings further than this from the smoothed value are treated as outliers (dB)
+        private int outlierDb = 15;
+        private Duration sessionTtl = Duration.ofMinutes(10);
+    }
+
+    public int minRssiFor(String buildingId) {
+        if (buildingId != null) {
+            Integer override = buildingMinRssi.get(buildingId);
+            if (override != null) {
+                return override;
+            }
+        }
+        return minRssi;
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.wayfinding.indoor.config;
+
+import com.wayfinding.indoor.model.Building;
+import com.wayfinding.indoor.model.Fingerprint;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.repository.BuildingRepository;
+import com.wayfinding.indoor.service.FingerprintService;
+import com.wayfinding.indoor.service.FloorGraphCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads routing graphs and fingerprint radio maps of the configured buildings (all when
+ * none are configured) before the application reports ready. Only in-process caches are
+ * warmed; floors and beacons are read from Mongo per request, so there is nothing to load.
+ * Spring Boot only switches readiness to ACCEPTING_TRAFFIC after application runners
+ * complete, so /actuator/health/readiness stays down until the node is warm.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+@RequiredArgsConstructor
+@Slf4j
+public class StartupWarmup implements ApplicationRunner {
+
+    private final BuildingRepository buildingRepository;
+    private final FloorGraphCache graphCache;
+    private final FingerprintService fingerprintService;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${wayfinding.warmup.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${wayfinding.warmup.buildings:}")
+    private List<String> buildings = List.of();
+
+    @Value("${wayfinding.warmup.parallelism:4}")
+    private int parallelism = 4;
+
+    @Value("${wayfinding.warmup.timeout:2m}")
+    private Duration timeout = Duration.ofMinutes(2);
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            log.info("Startup warm-up disabled");
+            return;
+        }
+        long started = System.nanoTime();
+        List<String> buildingIds = buildings.isEmpty()
+                ? buildingRepository.findAll().stream().map(Building::getId).toList()
+                : buildings;
+
+        List<Runnable> tasks = new ArrayList<>();
+        AtomicInteger graphs = new AtomicInteger();
+        AtomicInteger radioMaps = new AtomicInteger();
+        for (Document floor : graphFloors(buildingIds)) {
+            String buildingId = floor.getString("buildingId");
+            String floorId = floor.getString("floorId");
+            tasks.add(() -> {
+                if (graphCache.get(buildingId, floorId).nodeCount() > 0) {
+                    graphs.incrementAndGet();
+                }
+            });
+        }
+        for (String floorId : fingerprintFloors(buildingIds)) {
+            tasks.add(() -> {
+                if (fingerprintService.warm(floorId) > 0) {
+                    radioMaps.incrementAndGet();
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, parallelism));
+        try {
+            List<Future<?>> futures = new ArrayList<>(tasks.size());
+            for (Runnable task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            long deadline = System.nanoTime() + timeout.toNanos();
+            for (Future<?> future : futures) {
+                try {
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (TimeoutException e) {
+                    log.warn("Startup warm-up timed out after {}, continuing with a partially warm cache", timeout);
+                    break;
+                } catch (ExecutionException e) {
+                    log.warn("Startup warm-up task failed: {}", e.getCause().getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info("Startup warm-up for {} buildings: {} graphs, {} radio maps in {} ms",
+                buildingIds.size(), graphs.get(), radioMaps.get(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Distinct (buildingId, floorId) pairs that have graph nodes
+     */
+    private List<Document> graphFloors(List<String> buildingIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("buildingId").in(buildingIds)),
+                Aggregation.group("buildingId", "floorId")
+        );
+        List<Document> floors = new ArrayList<>();
+        for (Document group : mongoTemplate.aggregate(aggregation, GraphNode.class, Document.class)) {
+            floors.add((Document) group.get("_id"));
+        }
+        return floors;
+    }
+
+    private List<String> fingerprintFloors(List<String> buildingIds) {
+        return mongoTemplate.findDistinct(
+                new Query(Criteria.where("buildingId").in(buildingIds)), "floorId", Fingerprint.class, String.class);
+    }
+}
@@ -1,15 +1,43 @@
 package com.wayfinding.indoor.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import java.util.List;
+
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
 
+    private final ObjectMapper objectMapper;
+
+    @Value("${wayfinding.navigation.polyline.precision:2}")
+    private int polylinePrecision = 2;
+
+    /**
+     * CBOR for clients that send or accept application/cbor (scan requests, positions,
+     * routes): the same DTOs and Jackson settings as JSON, binary on the wire. Registered
+     * as a bean it replaces Spring's default CBOR converter in place, after JSON, so JSON
+     * remains the default.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    /**
+     * Appended after the defaults, so wildcard and application/json Accept headers still get plain JSON
+     */
     @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        registry.addResourceHandler("/maps/**")
-                .addResourceLocations("file:./uploads/maps/");
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new CompactRouteHttpMessageConverter(objectMapper, polylinePrecision));
     }
 }
@@ -1,13 +1,17 @@
 package com.wayfinding.indoor.controller;
 
+import com.wayfinding.indoor.dto.CalibrationSampleRequest;
 import com.wayfinding.indoor.dto.CreateBeaconRequest;
 import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.service.BeaconCalibrationService;
 import com.wayfinding.indoor.service.BeaconService;
+import com.wayfinding.indoor.service.CollectionVersions;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -18,28 +22,35 @@ import java.util.List;
 public class BeaconController {
 
     private final BeaconService beaconService;
+    private final BeaconCalibrationService calibrationService;
+    private final CollectionVersions collectionVersions;
 
     @GetMapping
     public ResponseEntity<List<Beacon>> getAllBeacons(@RequestParam(required = false) String building_id,
-                                                       @RequestParam(required = false) String floor_id) {
+                                                       @RequestParam(required = false) String floor_id,
+                                                       WebRequest request) {
         log.info("GET /api/beacons - Fetching beacons{}{}", 
                  building_id != null ? " for building: " + building_id : "",
                  floor_id != null ? " and floor: " + floor_id : "");
         
-        if (floor_id != null && !floor_id.isEmpty()) {
-            return ResponseEntity.ok(beaconService.getBeaconsByFloorId(floor_id));
-        }
-        if (building_id != null && !building_id.isEmpty()) {
-            return ResponseEntity.ok(beaconService.getBeaconsByBuildingId(building_id));
-        }
-        return ResponseEntity.ok(beaconService.getAllBeacons());
+        return ConditionalGet.respond(request, collectionVersions.etag("beacons"), () -> {
+            if (floor_id != null && !floor_id.isEmpty()) {
+                return beaconService.getBeaconsByFloorId(floor_id);
+            }
+            if (building_id != null && !building_id.isEmpty()) {
+                return beaconService.getBeaconsByBuildingId(building_id);
+            }
+            return beaconService.getAllBeacons();
+        });
     }
 
     @GetMapping("/{buildingId}/{floorId}")
     public ResponseEntity<List<Beacon>> getBeaconsByBuildingAndFloor(@PathVariable String buildingId,
-                                                                      @PathVariable String floorId) {
+                                                                      @PathVariable String floorId,
+                                                                      WebRequest request) {
         log.info("GET /api/beacons/{}/{} - Fetching beacons for building and floor", buildingId, floorId);
-        return ResponseEntity.ok(beaconService.getBeaconsByBuildingAndFloor(buildingId, floorId));
+        return ConditionalGet.respond(request, collectionVersions.etag("beacons"),
+                () -> beaconService.getBeaconsByBuildingAndFloor(buildingId, floorId));
     }
 
     @GetMapping("/{id}")
@@ -93,6 +104,21 @@ public class BeaconController {
             .orElse(ResponseEntity.<Beacon>notFound().build());
     }
 
+    @PostMapping("/calibration")
+    public ResponseEntity<List<Beacon>> addCalibrationSample(@RequestBody CalibrationSampleRequest request) {
+        log.info("POST /api/beacons/calibration - Calibration scan on floor {} at ({}, {})",
+            request.getFloorId(), request.getX(), request.getY());
+        return ResponseEntity.ok(calibrationService.ingest(request));
+    }
+
+    @DeleteMapping("/{id}/calibration")
+    public ResponseEntity<Beacon> resetCalibration(@PathVariable String id) {
+        log.info("DELETE /api/beacons/{}/calibration - Resetting calibration", id);
+        return calibrationService.reset(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.<Beacon>notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBeacon(@PathVariable String id) {
         log.info("DELETE /api/beacons/{} - Deleting beacon", id);
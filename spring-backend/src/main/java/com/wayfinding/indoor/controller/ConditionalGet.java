@@ -0,0 +1,28 @@
+package com.wayfinding.indoor.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for lists stamped by {@link com.wayfinding.indoor.service.CollectionVersions}:
+ * a matching If-None-Match gets 304 without the data being read. Clients may keep the
+ * list but must revalidate before each use (no-cache).
+ */
+final class ConditionalGet {
+
+    static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private ConditionalGet() {
+    }
+
+    static <T> ResponseEntity<T> respond(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).body(body.get());
+    }
+}
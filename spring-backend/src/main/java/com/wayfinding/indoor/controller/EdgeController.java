@@ -1,10 +1,9 @@
 package com.wayfinding.indoor.controller;
 
+import com.wayfinding.indoor.dto.BulkImportResult;
 import com.wayfinding.indoor.dto.CreateEdgeRequest;
 import com.wayfinding.indoor.model.GraphEdge;
 import com.wayfinding.indoor.service.GraphEdgeService;
-import com.wayfinding.indoor.util.EdgeCsvImporter;
-import com.wayfinding.indoor.util.EdgeCsvImporter.EdgePair;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -13,8 +12,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/edges")
@@ -35,32 +34,22 @@ public class EdgeController {
 
     @PostMapping("/bulk")
     @Operation(summary = "Create edges in bulk")
-    public ResponseEntity<List<GraphEdge>> createEdges(@RequestBody List<CreateEdgeRequest> requests) {
-        List<GraphEdge> saved = edgeService.createEdges(requests);
-        log.info("POST /api/edges/bulk - Created {} edges", saved.size());
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    public ResponseEntity<BulkImportResult> createEdges(@RequestBody List<CreateEdgeRequest> requests) {
+        BulkImportResult result = edgeService.createEdges(requests);
+        log.info("POST /api/edges/bulk - Created {} edges", result.getInserted());
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
     }
 
     @PostMapping(value = "/import-csv", consumes = "text/csv")
     @Operation(summary = "Import edges from CSV (fromNodeId,toNodeId)")
-    public ResponseEntity<List<GraphEdge>> importCsv(
+    public ResponseEntity<BulkImportResult> importCsv(
             @RequestParam String buildingId,
             @RequestParam String floorId,
-            @RequestBody String csv
+            InputStream csv
     ) {
-        List<EdgePair> pairs = EdgeCsvImporter.parseCsv(csv);
-        List<CreateEdgeRequest> requests = pairs.stream().map(p -> {
-            CreateEdgeRequest req = new CreateEdgeRequest();
-            req.setFromNodeId(p.fromNodeId());
-            req.setToNodeId(p.toNodeId());
-            req.setBuildingId(buildingId);
-            req.setFloorId(floorId);
-            return req;
-        }).collect(Collectors.toList());
-
-        List<GraphEdge> saved = edgeService.createEdges(requests);
-        log.info("POST /api/edges/import-csv - Created {} edges", saved.size());
-        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+        BulkImportResult result = edgeService.importEdgesCsv(buildingId, floorId, csv);
+        log.info("POST /api/edges/import-csv - Created {} edges", result.getInserted());
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
     }
 
     @GetMapping
@@ -0,0 +1,47 @@
+package com.wayfinding.indoor.controller;
+
+import com.wayfinding.indoor.dto.CreateFingerprintRequest;
+import com.wayfinding.indoor.model.Fingerprint;
+import com.wayfinding.indoor.service.FingerprintService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/fingerprints")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Fingerprints", description = "RSSI fingerprint calibration for fingerprint positioning")
+public class FingerprintController {
+
+    private final FingerprintService fingerprintService;
+
+    @PostMapping
+    @Operation(summary = "Record a calibration scan at a known position")
+    public ResponseEntity<Fingerprint> recordSample(@RequestBody CreateFingerprintRequest request) {
+        Fingerprint saved = fingerprintService.recordSample(request);
+        log.info("POST /api/fingerprints - Updated cell ({},{}) on floor {}",
+                saved.getGridX(), saved.getGridY(), saved.getFloorId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
+    }
+
+    @GetMapping
+    @Operation(summary = "List fingerprints by floor")
+    public ResponseEntity<List<Fingerprint>> listFingerprints(@RequestParam(required = false) String floorId) {
+        return ResponseEntity.ok(fingerprintService.listFingerprints(floorId));
+    }
+
+    @DeleteMapping
+    @Operation(summary = "Delete all fingerprints of a floor")
+    public ResponseEntity<Void> deleteByFloor(@RequestParam String floorId) {
+        fingerprintService.deleteByFloor(floorId);
+        log.info("DELETE /api/fingerprints?floorId={} - Deleted fingerprints", floorId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,16 +1,20 @@
 package com.wayfinding.indoor.controller;
 
 import com.wayfinding.indoor.dto.CreateFloorRequest;
+import com.wayfinding.indoor.dto.MapUploadJob;
 import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.service.CollectionVersions;
 import com.wayfinding.indoor.service.FloorService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.List;
 
 @RestController
@@ -20,21 +24,24 @@ import java.util.List;
 public class FloorController {
 
     private final FloorService floorService;
+    private final CollectionVersions collectionVersions;
 
     @GetMapping
-    public ResponseEntity<List<Floor>> getAllFloors(@RequestParam(required = false) String building_id) {
+    public ResponseEntity<List<Floor>> getAllFloors(@RequestParam(required = false) String building_id,
+                                                    WebRequest request) {
         log.info("GET /api/floors - Fetching all floors{}", building_id != null ? " for building: " + building_id : "");
         
-        if (building_id != null && !building_id.isEmpty()) {
-            return ResponseEntity.ok(floorService.getFloorsByBuildingId(building_id));
-        }
-        return ResponseEntity.ok(floorService.getAllFloors());
+        return ConditionalGet.respond(request, collectionVersions.etag("floors"),
+                () -> building_id != null && !building_id.isEmpty()
+                        ? floorService.getFloorsByBuildingId(building_id)
+                        : floorService.getAllFloors());
     }
 
     @GetMapping("/building/{buildingId}")
-    public ResponseEntity<List<Floor>> getFloorsByBuildingId(@PathVariable String buildingId) {
+    public ResponseEntity<List<Floor>> getFloorsByBuildingId(@PathVariable String buildingId, WebRequest request) {
         log.info("GET /api/floors/building/{} - Fetching floors for building", buildingId);
-        return ResponseEntity.ok(floorService.getFloorsByBuildingId(buildingId));
+        return ConditionalGet.respond(request, collectionVersions.etag("floors"),
+                () -> floorService.getFloorsByBuildingId(buildingId));
     }
 
     @GetMapping("/{id}")
@@ -86,9 +93,12 @@ public class FloorController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    /**
+     * Accepts the map for background processing; poll the Location for the job status.
+     */
     @PostMapping("/{id}/map")
-    public ResponseEntity<Floor> uploadFloorMap(@PathVariable String id,
-                                                 @RequestParam("file") MultipartFile file) {
+    public ResponseEntity<MapUploadJob> uploadFloorMap(@PathVariable String id,
+                                                        @RequestParam("file") MultipartFile file) {
         log.info("POST /api/floors/{}/map - Uploading floor map", id);
 
         if (file == null || file.isEmpty()) {
@@ -97,7 +107,9 @@ public class FloorController {
 
         try {
             return floorService.uploadFloorMap(id, file)
-                    .map(ResponseEntity::ok)
+                    .map(job -> ResponseEntity.accepted()
+                            .location(URI.create("/api/floors/" + id + "/map/jobs/" + job.jobId()))
+                            .body(job))
                     .orElse(ResponseEntity.notFound().build());
         } catch (IOException e) {
             log.error("Error uploading floor map: {}", e.getMessage());
@@ -105,6 +117,14 @@ public class FloorController {
         }
     }
 
+    @GetMapping("/{id}/map/jobs/{jobId}")
+    public ResponseEntity<MapUploadJob> getMapUploadJob(@PathVariable String id, @PathVariable String jobId) {
+        log.info("GET /api/floors/{}/map/jobs/{} - Fetching map upload status", id, jobId);
+        return floorService.getMapUploadJob(id, jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteFloor(@PathVariable String id) {
         log.info("DELETE /api/floors/{} - Deleting floor", id);
@@ -0,0 +1,43 @@
+package com.wayfinding.indoor.controller;
+
+import com.wayfinding.indoor.dto.GraphGenerationResult;
+import com.wayfinding.indoor.service.GraphGenerationService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/graph")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Graph generation", description = "Navigation graphs derived from floor maps")
+public class GraphGenerationController {
+
+    private final GraphGenerationService generationService;
+
+    /**
+     * Replaces the floor's nodes and edges with a graph along its corridors. Send a
+     * multipart "mask" (white = walkable) to use it instead of the floor's map image.
+     */
+    @PostMapping("/generate")
+    @Operation(summary = "Generate a floor graph from its map or a walkable mask")
+    public ResponseEntity<GraphGenerationResult> generate(
+            @RequestParam String buildingId,
+            @RequestParam String floorId,
+            @RequestParam(required = false) Integer threshold,
+            @RequestParam(defaultValue = "false") boolean dryRun,
+            @RequestParam(required = false) MultipartFile mask
+    ) throws IOException {
+        log.info("POST /api/graph/generate - building={}, floor={}, mask={}, dryRun={}",
+                buildingId, floorId, mask != null, dryRun);
+        GraphGenerationResult result = generationService.generate(buildingId, floorId, mask, threshold, dryRun);
+        return ResponseEntity.status(dryRun ? HttpStatus.OK : HttpStatus.CREATED).body(result);
+    }
+}
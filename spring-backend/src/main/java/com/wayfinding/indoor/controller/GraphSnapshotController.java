@@ -0,0 +1,54 @@
+package com.wayfinding.indoor.controller;
+
+import com.wayfinding.indoor.dto.GraphSnapshotSummary;
+import com.wayfinding.indoor.service.GraphSnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/graph")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Graph snapshots", description = "Binary export/import of floor graphs")
+public class GraphSnapshotController {
+
+    private final GraphSnapshotService snapshotService;
+
+    @GetMapping(value = "/snapshot", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Export a floor graph as a binary snapshot")
+    public ResponseEntity<byte[]> exportSnapshot(
+            @RequestParam String buildingId,
+            @RequestParam String floorId
+    ) {
+        byte[] snapshot = snapshotService.exportSnapshot(buildingId, floorId);
+        log.info("GET /api/graph/snapshot - building={}, floor={}, {} bytes", buildingId, floorId, snapshot.length);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(floorId + ".wfg")
+                        .build()
+                        .toString())
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .body(snapshot);
+    }
+
+    @PostMapping(value = "/snapshot", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Replace a floor graph with a binary snapshot")
+    public ResponseEntity<GraphSnapshotSummary> importSnapshot(
+            @RequestParam(required = false) String buildingId,
+            @RequestParam(required = false) String floorId,
+            @RequestBody byte[] snapshot
+    ) {
+        GraphSnapshotSummary summary = snapshotService.importSnapshot(snapshot, buildingId, floorId);
+        log.info("POST /api/graph/snapshot - Imported {} nodes, {} edges into {}/{}",
+                summary.getNodes(), summary.getEdges(), summary.getBuildingId(), summary.getFloorId());
+        return ResponseEntity.status(HttpStatus.CREATED).body(summary);
+    }
+}
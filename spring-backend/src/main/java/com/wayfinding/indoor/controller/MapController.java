@@ -0,0 +1,170 @@
+package com.wayfinding.indoor.controller;
+
+import com.wayfinding.indoor.service.MapDeliveryService;
+import com.wayfinding.indoor.service.MapDeliveryService.MapFile;
+import com.wayfinding.indoor.service.MapTileService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@RestController
+@RequestMapping({"/api/maps", "/maps"})
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Maps", description = "Floor map delivery")
+public class MapController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    /**
+     * Map image URLs are stable across uploads, so caches must revalidate (cheap with the ETag)
+     */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    // Tomcat's sendfile hand-off: the connector streams the file after the servlet returns
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final MapTileService mapTileService;
+    private final MapDeliveryService mapDeliveryService;
+
+    /**
+     * Serves a stored floor map (Floor.mapImageUrl). Supports conditional GETs against a
+     * content-hash ETag, single byte ranges (If-Range aware; multi-range requests get the
+     * whole file), and AVIF/WebP variants chosen from the Accept header. The body is sent
+     * with sendfile when the connector supports it, otherwise via FileChannel.transferTo,
+     * so the image is never buffered on the heap.
+     */
+    @GetMapping("/{buildingId}/{file}")
+    @Operation(summary = "Get a floor map image")
+    public void getMapImage(@PathVariable String buildingId,
+                            @PathVariable String file,
+                            HttpServletRequest request,
+                            HttpServletResponse response) throws IOException {
+        log.debug("GET /maps/{}/{}", buildingId, file);
+        MapFile map = mapDeliveryService.resolve(buildingId, file, accepted(request));
+        if (map == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        response.setHeader(HttpHeaders.CACHE_CONTROL, REVALIDATE.getHeaderValue());
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(map.etag(), map.lastModified())) {
+            return;
+        }
+
+        long length = map.length();
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && length > 0 && (ifRange == null || ifRange.trim().equals(map.etag()))) {
+            try {
+                List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(length);
+                    end = ranges.get(0).getRangeEnd(length);
+                    response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+                }
+            } catch (IllegalArgumentException e) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+        response.setContentType(map.contentType().toString());
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || end < start) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, map.path().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(map.path())) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    /**
+     * Tile URLs are versioned by the map's content hash (see Floor.mapTilesUrl), so a tile
+     * never changes and can be cached for a year; the ETag lets proxies revalidate cheaply.
+     */
+    @GetMapping(value = "/{buildingId}/{floorId}/tiles/{version}/{z}/{x}/{y}.png", produces = MediaType.IMAGE_PNG_VALUE)
+    @Operation(summary = "Get one map tile of a floor's tile pyramid")
+    public ResponseEntity<Resource> getTile(@PathVariable String buildingId,
+                                            @PathVariable String floorId,
+                                            @PathVariable String version,
+                                            @PathVariable int z,
+                                            @PathVariable int x,
+                                            @PathVariable int y,
+                                            WebRequest request) {
+        log.debug("GET /api/maps/{}/{}/tiles/{}/{}/{}/{}.png", buildingId, floorId, version, z, x, y);
+        // Looked up first, so made-up or removed versions never get an immutable 304
+        Path tile = mapTileService.tile(buildingId, floorId, version, z, x, y);
+        if (tile == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = "\"" + version + "-" + z + "-" + x + "-" + y + "\"";
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(IMMUTABLE).build();
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(IMMUTABLE)
+                .contentType(MediaType.IMAGE_PNG)
+                .body(new FileSystemResource(tile));
+    }
+
+    private static List<MediaType> accepted(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return List.of();
+        }
+        try {
+            return MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return List.of();
+        }
+    }
+}
@@ -12,6 +12,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/api/navigation")
@@ -25,7 +26,7 @@ public class NavigationController {
 
     @GetMapping
     @Operation(summary = "Compute shortest path using navigation graph")
-    public ResponseEntity<NavigationPathResponse> getNavigation(
+    public Mono<ResponseEntity<NavigationPathResponse>> getNavigation(
             @RequestParam String buildingId,
             @RequestParam String floorId,
             @RequestParam double fromX,
@@ -35,9 +36,8 @@ public class NavigationController {
     ) {
         log.info("GET /api/navigation - building={}, floor={}, from=({},{}), to=({},{})",
                 buildingId, floorId, fromX, fromY, toX, toY);
-        return ResponseEntity.ok(
-                graphNavigationService.computePath(buildingId, floorId, fromX, fromY, toX, toY)
-        );
+        return graphNavigationService.computePathAsync(buildingId, floorId, fromX, fromY, toX, toY)
+                .map(ResponseEntity::ok);
     }
 
     @PostMapping("/recalculate")
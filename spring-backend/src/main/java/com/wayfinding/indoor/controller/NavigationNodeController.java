@@ -1,14 +1,17 @@
 package com.wayfinding.indoor.controller;
 
+import com.wayfinding.indoor.dto.BulkImportResult;
 import com.wayfinding.indoor.dto.CreateNavigationNodeRequest;
 import com.wayfinding.indoor.model.NavigationNode;
 import com.wayfinding.indoor.repository.NavigationNodeRepository;
+import com.wayfinding.indoor.service.NodeImportService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,6 +22,7 @@ import java.util.List;
 public class NavigationNodeController {
 
     private final NavigationNodeRepository nodeRepository;
+    private final NodeImportService nodeImportService;
 
     @GetMapping
     public ResponseEntity<List<NavigationNode>> getAllNodes(
@@ -86,6 +90,14 @@ public class NavigationNodeController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<BulkImportResult> importNodes(InputStream body) {
+        BulkImportResult result = nodeImportService.importNavigationNodes(body);
+        log.info("POST /api/navigation-nodes/bulk (ndjson) - Created {} nodes, rejected {}",
+                result.getInserted(), result.getRejected());
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<NavigationNode> updateNode(
             @PathVariable String id,
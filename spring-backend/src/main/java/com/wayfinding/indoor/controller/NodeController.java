@@ -1,8 +1,11 @@
 package com.wayfinding.indoor.controller;
 
+import com.wayfinding.indoor.dto.BulkImportResult;
 import com.wayfinding.indoor.dto.CreateNodeRequest;
 import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.service.CollectionVersions;
 import com.wayfinding.indoor.service.GraphNodeService;
+import com.wayfinding.indoor.service.NodeImportService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
@@ -10,7 +13,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,6 +26,8 @@ import java.util.List;
 public class NodeController {
 
     private final GraphNodeService nodeService;
+    private final NodeImportService nodeImportService;
+    private final CollectionVersions collectionVersions;
 
     @PostMapping
     @Operation(summary = "Create node")
@@ -38,13 +45,24 @@ public class NodeController {
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    @Operation(summary = "Stream nodes in bulk (one JSON node per line)")
+    public ResponseEntity<BulkImportResult> importNodes(InputStream body) {
+        BulkImportResult result = nodeImportService.importGraphNodes(body);
+        log.info("POST /api/nodes/bulk (ndjson) - Created {} nodes, rejected {}",
+                result.getInserted(), result.getRejected());
+        return ResponseEntity.status(HttpStatus.CREATED).body(result);
+    }
+
     @GetMapping
     @Operation(summary = "List nodes by building/floor")
     public ResponseEntity<List<GraphNode>> listNodes(
             @RequestParam(required = false) String buildingId,
-            @RequestParam(required = false) String floorId
+            @RequestParam(required = false) String floorId,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(nodeService.listNodes(buildingId, floorId));
+        return ConditionalGet.respond(request, collectionVersions.etag("nodes"),
+                () -> nodeService.listNodes(buildingId, floorId));
     }
 
     @DeleteMapping("/{nodeId}")
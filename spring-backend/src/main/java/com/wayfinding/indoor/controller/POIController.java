@@ -1,12 +1,16 @@
 package com.wayfinding.indoor.controller;
 
 import com.wayfinding.indoor.dto.CreatePOIRequest;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
 import com.wayfinding.indoor.model.POI;
 import com.wayfinding.indoor.repository.POIRepository;
+import com.wayfinding.indoor.service.ChangeLogService;
+import com.wayfinding.indoor.service.CollectionVersions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -16,11 +20,19 @@ import java.util.List;
 public class POIController {
 
     private final POIRepository poiRepository;
+    private final CollectionVersions collectionVersions;
+    private final ChangeLogService changeLog;
 
     @GetMapping
-    public List<POI> getAllPOIs(@RequestParam(required = false) String building_id,
-                                 @RequestParam(required = false) String floor_id,
-                                 @RequestParam(required = false) String category) {
+    public ResponseEntity<List<POI>> getAllPOIs(@RequestParam(required = false) String building_id,
+                                                @RequestParam(required = false) String floor_id,
+                                                @RequestParam(required = false) String category,
+                                                WebRequest request) {
+        return ConditionalGet.respond(request, collectionVersions.etag("pois"),
+                () -> findPOIs(building_id, floor_id, category));
+    }
+
+    private List<POI> findPOIs(String building_id, String floor_id, String category) {
         if (floor_id != null && !floor_id.isEmpty()) {
             if (category != null && !category.isEmpty()) {
                 return poiRepository.findByFloorIdAndCategory(floor_id, category);
@@ -52,6 +64,7 @@ public class POIController {
         );
         poi.setDescription(request.getDescription());
         POI saved = poiRepository.save(poi);
+        changeLog.upserted(saved.getBuildingId(), Kind.POI, saved.getFloorId(), saved.getId());
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
@@ -65,18 +78,22 @@ public class POIController {
                     if (request.getX() > 0) poi.setX(request.getX());
                     if (request.getY() > 0) poi.setY(request.getY());
                     if (request.getDescription() != null) poi.setDescription(request.getDescription());
-                    return ResponseEntity.ok(poiRepository.save(poi));
+                    POI saved = poiRepository.save(poi);
+                    changeLog.upserted(saved.getBuildingId(), Kind.POI, saved.getFloorId(), saved.getId());
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deletePOI(@PathVariable String id) {
-        if (poiRepository.existsById(id)) {
-            poiRepository.deleteById(id);
-            return ResponseEntity.noContent().build();
-        }
-        return ResponseEntity.notFound().build();
+        return poiRepository.findById(id)
+                .map(poi -> {
+                    poiRepository.deleteById(id);
+                    changeLog.deleted(poi.getBuildingId(), Kind.POI, poi.getFloorId(), id);
+                    return ResponseEntity.noContent().<Void>build();
+                })
+                .orElse(ResponseEntity.notFound().build());
     }
 
     @DeleteMapping
@@ -88,6 +105,7 @@ public class POIController {
         if (deleted == 0) {
             return ResponseEntity.notFound().build();
         }
+        changeLog.floorReset(buildingId, Kind.POI, floorId);
         return ResponseEntity.noContent().build();
     }
 }
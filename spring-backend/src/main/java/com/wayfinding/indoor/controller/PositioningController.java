@@ -1,5 +1,7 @@
 package com.wayfinding.indoor.controller;
 
+import com.wayfinding.indoor.dto.BatchPositionRequest;
+import com.wayfinding.indoor.dto.BatchPositionResponse;
 import com.wayfinding.indoor.dto.BeaconScanRequest;
 import com.wayfinding.indoor.dto.NavigationRequest;
 import com.wayfinding.indoor.dto.NavigationResponse;
@@ -8,6 +10,7 @@ import com.wayfinding.indoor.service.NavigationService;
 import com.wayfinding.indoor.service.PositioningService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.Map;
 
@@ -36,8 +39,17 @@ public class PositioningController {
      * POST /api/position
      */
     @PostMapping("/position")
-    public PositionResponse computePosition(@RequestBody BeaconScanRequest request) {
-        return positioningService.computePosition(request);
+    public Mono<PositionResponse> computePosition(@RequestBody BeaconScanRequest request) {
+        return positioningService.computePositionAsync(request);
+    }
+
+    /**
+     * Receive scans for many tags (e.g. from a fixed BLE gateway) and compute all positions.
+     * POST /api/position/batch
+     */
+    @PostMapping("/position/batch")
+    public BatchPositionResponse computePositions(@RequestBody BatchPositionRequest request) {
+        return new BatchPositionResponse(positioningService.computePositions(request.getScans()));
     }
 
     /**
@@ -45,7 +57,7 @@ public class PositioningController {
      * POST /api/navigate
      */
     @PostMapping("/navigate")
-    public NavigationResponse computeRoute(@RequestBody NavigationRequest request) {
-        return navigationService.computeRoute(request);
+    public Mono<NavigationResponse> computeRoute(@RequestBody NavigationRequest request) {
+        return navigationService.computeRouteAsync(request);
     }
 }
@@ -0,0 +1,30 @@
+package com.wayfinding.indoor.controller;
+
+import com.wayfinding.indoor.dto.SyncResponse;
+import com.wayfinding.indoor.service.SyncService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/sync")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Sync", description = "Incremental downloads of building data for offline clients")
+public class SyncController {
+
+    private final SyncService syncService;
+
+    @GetMapping("/{buildingId}")
+    @Operation(summary = "Changes to a building's floors, POIs, beacons and graph since a sequence (0 = everything)")
+    public ResponseEntity<SyncResponse> sync(@PathVariable String buildingId,
+                                             @RequestParam(defaultValue = "0") long since) {
+        SyncResponse response = syncService.changesSince(buildingId, since);
+        log.info("GET /api/sync/{}?since={} - {} to sequence {}", buildingId, since,
+                response.isFull() ? "full sync" : "delta", response.getSequence());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,18 @@
+package com.wayfinding.indoor.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO for receiving scans of many tags collected by a fixed BLE gateway.
+ * Keys are tag ids, values are the scans reported for each tag.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPositionRequest {
+    private Map<String, BeaconScanRequest> scans;
+}
@@ -0,0 +1,17 @@
+package com.wayfinding.indoor.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * DTO for computed positions keyed by tag id
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchPositionResponse {
+    private Map<String, PositionResponse> positions;
+}
@@ -14,6 +14,11 @@ import java.util.List;
 @AllArgsConstructor
 public class BeaconScanRequest {
     private List<ScannedBeacon> beacons;
+    private String deviceId; // Optional: enables per-device floor tracking
+
+    public BeaconScanRequest(List<ScannedBeacon> beacons) {
+        this.beacons = beacons;
+    }
 
     @Data
     @NoArgsConstructor
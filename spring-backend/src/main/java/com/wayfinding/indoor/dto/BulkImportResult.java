@@ -0,0 +1,47 @@
+package com.wayfinding.indoor.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Summary of a bulk import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Summary of a bulk import")
+public class BulkImportResult {
+
+    // Rejection messages kept in the summary; the counts cover the rest
+    public static final int MAX_ERRORS = 100;
+
+    @Schema(example = "5000")
+    private long received;
+
+    @Schema(example = "4998")
+    private long inserted;
+
+    @Schema(example = "2")
+    private long rejected;
+
+    private List<String> errors = new ArrayList<>();
+
+    public void addError(String message) {
+        addErrors(1, message);
+    }
+
+    /**
+     * Count several rejected items under one message
+     */
+    public void addErrors(long count, String message) {
+        rejected += count;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(message);
+        }
+    }
+}
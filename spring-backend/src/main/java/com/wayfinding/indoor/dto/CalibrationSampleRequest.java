@@ -0,0 +1,16 @@
+package com.wayfinding.indoor.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * DTO for a beacon scan taken at a known ground-truth position on a floor
+ */
+@Data
+public class CalibrationSampleRequest {
+    private String floorId;
+    private Double x;
+    private Double y;
+    private List<BeaconScanRequest.ScannedBeacon> beacons;
+}
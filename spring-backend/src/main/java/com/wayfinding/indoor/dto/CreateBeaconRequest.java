@@ -13,4 +13,5 @@ public class CreateBeaconRequest {
     private double y;
     private String label;
     private Double txPower;
+    private Double pathLossExponent;
 }
@@ -0,0 +1,24 @@
+package com.wayfinding.indoor.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Calibration scan recorded at a known position on a floor")
+public class CreateFingerprintRequest {
+    @Schema(example = "building-123")
+    private String buildingId;
+
+    @Schema(example = "floor-1")
+    private String floorId;
+
+    @Schema(example = "105")
+    private Double x;
+
+    @Schema(example = "85")
+    private Double y;
+
+    private List<BeaconScanRequest.ScannedBeacon> beacons;
+}
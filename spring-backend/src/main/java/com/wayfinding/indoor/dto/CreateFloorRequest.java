@@ -11,6 +11,7 @@ public class CreateFloorRequest {
     private int width;
     private int height;
     private double scale;
-    private String mapImage;
+    private String mapImage; // Base64 image or data: URI, stored as a file; the floor keeps only its URL
     private String mapImageUrl;
+    private String positioningMethod;
 }
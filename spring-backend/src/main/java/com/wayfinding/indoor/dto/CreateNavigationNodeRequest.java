@@ -6,6 +6,8 @@ import java.util.List;
 
 @Data
 public class CreateNavigationNodeRequest {
+    // Optional client-assigned id so bulk imports can reference nodes in connectedNodes
+    private String id;
     private String floorId;
     private Double x;
     private Double y;
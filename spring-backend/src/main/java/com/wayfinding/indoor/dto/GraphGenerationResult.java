@@ -0,0 +1,45 @@
+package com.wayfinding.indoor.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of generating a floor graph from its walkable area
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of generating a floor graph from its walkable area")
+public class GraphGenerationResult {
+    @Schema(example = "building-123")
+    private String buildingId;
+
+    @Schema(example = "floor-1")
+    private String floorId;
+
+    @Schema(example = "640")
+    private int nodes;
+
+    @Schema(example = "702")
+    private int edges;
+
+    @Schema(description = "Occupancy grid size in cells", example = "2048")
+    private int gridWidth;
+
+    @Schema(example = "1024")
+    private int gridHeight;
+
+    @Schema(description = "Cells classified as walkable", example = "412000")
+    private int walkableCells;
+
+    @Schema(description = "Cells on corridor centre lines after thinning", example = "18500")
+    private int skeletonCells;
+
+    @Schema(description = "False for a dry run: the graph was generated but not stored", example = "true")
+    private boolean saved;
+
+    @Schema(example = "1830")
+    private long millis;
+}
@@ -0,0 +1,30 @@
+package com.wayfinding.indoor.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of importing a floor graph snapshot
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Result of importing a floor graph snapshot")
+public class GraphSnapshotSummary {
+    @Schema(example = "building-123")
+    private String buildingId;
+
+    @Schema(example = "floor-1")
+    private String floorId;
+
+    @Schema(example = "1200")
+    private int nodes;
+
+    @Schema(example = "1350")
+    private int edges;
+
+    @Schema(example = "52480")
+    private long bytes;
+}
@@ -0,0 +1,49 @@
+package com.wayfinding.indoor.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of a floor map upload being processed in the background. Each state change
+ * produces a new instance, so a job read by a request thread is always consistent.
+ */
+@Schema(description = "Background processing state of a floor map upload")
+public record MapUploadJob(
+        @Schema(example = "5f0c6a2e-8d1b-4c47-9a57-3f1d2e8b9c10") String jobId,
+        @Schema(description = "MongoDB id of the floor", example = "65a1f0c2e4b0a1b2c3d4e5f6") String floorId,
+        Status status,
+        @Schema(description = "Why the upload failed, or what was adjusted", example = "Downscaled from 12000x6000")
+        String message,
+        @Schema(example = "8192") Integer width,
+        @Schema(example = "4096") Integer height,
+        @Schema(example = "/maps/building-123/floor-1.png") String mapImageUrl,
+        LocalDateTime submittedAt,
+        LocalDateTime finishedAt) {
+
+    public enum Status { QUEUED, PROCESSING, SUCCEEDED, FAILED }
+
+    public static MapUploadJob queued(String jobId, String floorId) {
+        return new MapUploadJob(jobId, floorId, Status.QUEUED, null, null, null, null, LocalDateTime.now(), null);
+    }
+
+    public MapUploadJob processing() {
+        return new MapUploadJob(jobId, floorId, Status.PROCESSING, null, null, null, null, submittedAt, null);
+    }
+
+    public MapUploadJob succeeded(int width, int height, String mapImageUrl, String message) {
+        return new MapUploadJob(jobId, floorId, Status.SUCCEEDED, message, width, height, mapImageUrl,
+                submittedAt, LocalDateTime.now());
+    }
+
+    public MapUploadJob failed(String message) {
+        return new MapUploadJob(jobId, floorId, Status.FAILED, message, null, null, null,
+                submittedAt, LocalDateTime.now());
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCEEDED || status == Status.FAILED;
+    }
+}
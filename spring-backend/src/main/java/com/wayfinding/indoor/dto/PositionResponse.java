@@ -23,5 +23,6 @@ public class PositionResponse {
     private String method; // mac
     private int beaconsUsed;
     private boolean valid;
+    private boolean floorChanged; // true only when a tracked device moved to another floor
     private String errorMessage;
 }
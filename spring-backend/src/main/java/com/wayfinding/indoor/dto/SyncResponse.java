@@ -0,0 +1,63 @@
+package com.wayfinding.indoor.dto;
+
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.model.Building;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.model.POI;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Changes to a building's data since a client's last sequence. Apply per collection:
+ * drop local documents on the reset floors, then remove the deleted ids, then store the
+ * upserted documents (which include the full contents of the reset floors). On a full
+ * sync, drop everything cached for the building first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Changes to a building's data since a sequence number")
+public class SyncResponse {
+
+    @Schema(example = "building-123")
+    private String buildingId;
+
+    @Schema(description = "Sequence the client sent", example = "1520")
+    private long since;
+
+    @Schema(description = "Sequence to send next time", example = "1544")
+    private long sequence;
+
+    @Schema(description = "Complete data of the building; replace the local cache")
+    private boolean full;
+
+    @Schema(description = "More changes are waiting; call again with sequence")
+    private boolean hasMore;
+
+    @Schema(description = "Building document, when it changed")
+    private Building building;
+
+    private boolean buildingDeleted;
+
+    private Changes<Floor> floors = new Changes<>();
+    private Changes<POI> pois = new Changes<>();
+    private Changes<Beacon> beacons = new Changes<>();
+    private Changes<GraphNode> nodes = new Changes<>();
+    private Changes<GraphEdge> edges = new Changes<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Changes<T> {
+        private List<String> resetFloors = new ArrayList<>();
+        private List<T> upserted = new ArrayList<>();
+        private List<String> deleted = new ArrayList<>();
+    }
+}
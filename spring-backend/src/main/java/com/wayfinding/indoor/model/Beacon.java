@@ -33,6 +33,8 @@ public class Beacon {
     // Optional metadata
     private String label;
     private double txPower; // Transmission power for RSSI calibration
+    private double pathLossExponent; // Path-loss exponent n (0 means default 2.0)
+    private BeaconCalibration calibration; // Running fit from ground-truth scans
     
     private LocalDateTime createdAt;
 
@@ -45,6 +47,7 @@ public class Beacon {
         this.x = x;
         this.y = y;
         this.txPower = -59; // Default txPower at 1m
+        this.pathLossExponent = 2.0; // Free-space default
         this.createdAt = LocalDateTime.now();
     }
 }
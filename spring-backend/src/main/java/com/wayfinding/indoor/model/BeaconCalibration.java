@@ -0,0 +1,53 @@
+package com.wayfinding.indoor.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Running sums of a least-squares fit of the log-distance path-loss model
+ * rssi = txPower - 10 * n * log10(d), embedded in a {@link Beacon}.
+ * With x = -10 * log10(d) the model is linear in (txPower, n), so each new sample
+ * only updates the sums and the fit never needs to revisit earlier samples.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BeaconCalibration {
+    private long count;
+    private double sumX;
+    private double sumY;
+    private double sumXX;
+    private double sumXY;
+    private LocalDateTime updatedAt;
+
+    /**
+     * Regression feature for a distance in meters.
+     */
+    public static double feature(double distanceMeters) {
+        return -10.0 * Math.log10(distanceMeters);
+    }
+
+    /**
+     * Fitted path-loss exponent, or null when the samples do not span enough distances.
+     */
+    public Double fitExponent() {
+        if (count < 2) {
+            return null;
+        }
+        double denom = count * sumXX - sumX * sumX;
+        if (denom < 1e-6 * count * count) {
+            return null;
+        }
+        return (count * sumXY - sumX * sumY) / denom;
+    }
+
+    /**
+     * Fitted RSSI at 1 m for the given exponent.
+     */
+    public double fitTxPower(double exponent) {
+        return (sumY - exponent * sumX) / count;
+    }
+}
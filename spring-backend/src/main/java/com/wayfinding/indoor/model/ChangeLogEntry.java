@@ -0,0 +1,41 @@
+package com.wayfinding.indoor.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * One write to a building's synced data, numbered by the building's sequence. Single
+ * documents are logged by id; bulk and floor-wide writes log a RESET of the floor instead.
+ * Entries expire after 30 days; clients further behind get a full sync.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "change_log")
+@CompoundIndex(name = "change_building_seq", def = "{'buildingId': 1, 'seq': 1}", unique = true)
+public class ChangeLogEntry {
+
+    public enum Kind { BUILDING, FLOOR, POI, BEACON, NODE, EDGE }
+
+    public enum Op { UPSERT, DELETE, RESET }
+
+    @Id
+    private String id;
+
+    private String buildingId;
+    private long seq;
+    private Kind kind;
+    private Op op;
+    private String floorId;
+    private String documentId; // null for RESET
+
+    @Indexed(expireAfter = "30d")
+    private LocalDateTime changedAt;
+}
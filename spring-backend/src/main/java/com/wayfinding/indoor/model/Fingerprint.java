@@ -0,0 +1,68 @@
+package com.wayfinding.indoor.model;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * RSSI fingerprint of one floor grid cell, averaged over all calibration samples
+ * recorded inside that cell.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "fingerprints")
+@CompoundIndex(name = "fingerprint_floor_cell", def = "{'floorId': 1, 'gridX': 1, 'gridY': 1}", unique = true)
+public class Fingerprint {
+    @Id
+    private String id;
+
+    private String buildingId;
+    private String floorId;
+
+    // Grid cell indices and the cell center on the floor map
+    private int gridX;
+    private int gridY;
+    private double x;
+    private double y;
+
+    // RSSI sum and sample count per beacon, keyed by "UUID:major:minor"; sums rather than
+    // means so concurrent samples can be merged with $inc
+    private Map<String, Double> rssiSum = new HashMap<>();
+    private Map<String, Integer> samples = new HashMap<>();
+
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public Fingerprint(String buildingId, String floorId, int gridX, int gridY, double x, double y) {
+        this.buildingId = buildingId;
+        this.floorId = floorId;
+        this.gridX = gridX;
+        this.gridY = gridY;
+        this.x = x;
+        this.y = y;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Mean RSSI per beacon over the samples recorded in this cell
+     */
+    public Map<String, Double> getRssi() {
+        Map<String, Double> means = new HashMap<>();
+        rssiSum.forEach((key, sum) -> {
+            int n = samples.getOrDefault(key, 0);
+            if (n > 0) {
+                means.put(key, sum / n);
+            }
+        });
+        return means;
+    }
+}
@@ -28,8 +28,11 @@ public class Floor {
     private int width;  // Map width in pixels/units
     private int height; // Map height in pixels/units
     private double scale; // Scale factor (pixels per meter)
-    private String mapImage; // Base64 encoded map image
-    private String mapImageUrl; // URL to static map: /maps/{buildingId}/{floorId}.png
+    private String mapImageUrl; // URL to static map: /maps/{buildingId}/{floorId}.png (image bytes live in MapImageStore)
+    private String mapTilesUrl; // Tile URL template with {z}/{x}/{y}, set once the tile pyramid is generated
+    private int mapTileSize;    // Tile edge in pixels
+    private int mapTileMaxZoom; // Zoom level with the full-resolution tiles (0 = whole map in one tile)
+    private String positioningMethod; // auto (default), trilateration, weighted, nearest, fingerprint
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -4,12 +4,14 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "edges")
+@CompoundIndex(name = "edge_floor", def = "{'buildingId': 1, 'floorId': 1}")
 public class GraphEdge {
     @Id
     private String id;
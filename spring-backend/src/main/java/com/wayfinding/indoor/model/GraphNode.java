@@ -4,12 +4,15 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "nodes")
+// Serves floor graph loads (prefix) and nodeId lookups, and keeps nodeIds unique per floor
+@CompoundIndex(name = "node_floor_nodeId", def = "{'buildingId': 1, 'floorId': 1, 'nodeId': 1}", unique = true)
 public class GraphNode {
     @Id
     private String id;
@@ -4,6 +4,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.util.List;
@@ -16,6 +17,7 @@ public class NavigationNode {
     @Id
     private String id;
     
+    @Indexed(name = "navigation_node_floor")
     private String floorId;
     private double x;
     private double y;
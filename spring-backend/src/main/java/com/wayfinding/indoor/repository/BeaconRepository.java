@@ -4,6 +4,7 @@ import com.wayfinding.indoor.model.Beacon;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,4 +14,5 @@ public interface BeaconRepository extends MongoRepository<Beacon, String> {
     List<Beacon> findByBuildingId(String buildingId);
     List<Beacon> findByBuildingIdAndFloorId(String buildingId, String floorId);
     Optional<Beacon> findByUuidAndMajorAndMinor(String uuid, Integer major, Integer minor);
+    List<Beacon> findByUuidIn(Collection<String> uuids);
 }
@@ -0,0 +1,14 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ChangeLogRepository extends MongoRepository<ChangeLogEntry, String> {
+    List<ChangeLogEntry> findByBuildingIdAndSeqGreaterThanOrderBySeqAsc(String buildingId, long seq, Pageable page);
+    boolean existsByBuildingIdAndSeqLessThanEqual(String buildingId, long seq);
+}
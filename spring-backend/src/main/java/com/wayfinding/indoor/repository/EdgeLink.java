@@ -0,0 +1,6 @@
+package com.wayfinding.indoor.repository;
+
+/**
+ * Routing view of a graph edge: only the fields the compiled graph needs
+ */
+public record EdgeLink(String fromNodeId, String toNodeId, double weight) {}
@@ -0,0 +1,13 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.Fingerprint;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface FingerprintRepository extends MongoRepository<Fingerprint, String> {
+    List<Fingerprint> findByFloorId(String floorId);
+    long deleteByFloorId(String floorId);
+}
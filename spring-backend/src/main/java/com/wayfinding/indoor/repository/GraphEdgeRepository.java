@@ -2,11 +2,19 @@ package com.wayfinding.indoor.repository;
 
 import com.wayfinding.indoor.model.GraphEdge;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface GraphEdgeRepository extends MongoRepository<GraphEdge, String> {
     List<GraphEdge> findByBuildingIdAndFloorId(String buildingId, String floorId);
+    List<GraphEdge> findByBuildingId(String buildingId);
+    long deleteByBuildingIdAndFloorId(String buildingId, String floorId);
+
+    // Cursor over the routing fields of a floor's edges; close the stream after use
+    @Query(value = "{ 'buildingId': ?0, 'floorId': ?1 }", fields = "{ '_id': 0, 'fromNodeId': 1, 'toNodeId': 1, 'weight': 1 }")
+    Stream<EdgeLink> streamLinksByBuildingIdAndFloorId(String buildingId, String floorId);
 }
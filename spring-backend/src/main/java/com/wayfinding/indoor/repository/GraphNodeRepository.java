@@ -2,15 +2,24 @@ package com.wayfinding.indoor.repository;
 
 import com.wayfinding.indoor.model.GraphNode;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface GraphNodeRepository extends MongoRepository<GraphNode, String> {
     List<GraphNode> findByBuildingIdAndFloorId(String buildingId, String floorId);
+    List<GraphNode> findByBuildingId(String buildingId);
+    List<GraphNode> findByNodeId(String nodeId);
     Optional<GraphNode> findByNodeIdAndBuildingIdAndFloorId(String nodeId, String buildingId, String floorId);
     long deleteByNodeId(String nodeId);
+
     long deleteByBuildingIdAndFloorId(String buildingId, String floorId);
+
+    // Cursor over the routing fields of a floor's nodes; close the stream after use
+    @Query(value = "{ 'buildingId': ?0, 'floorId': ?1 }", fields = "{ '_id': 0, 'nodeId': 1, 'x': 1, 'y': 1 }")
+    Stream<NodePoint> streamPointsByBuildingIdAndFloorId(String buildingId, String floorId);
 }
@@ -0,0 +1,6 @@
+package com.wayfinding.indoor.repository;
+
+/**
+ * Routing view of a graph node: only the fields the compiled graph needs
+ */
+public record NodePoint(String nodeId, double x, double y) {}
@@ -11,5 +11,6 @@ public interface POIRepository extends MongoRepository<POI, String> {
     List<POI> findByFloorId(String floorId);
     List<POI> findByBuildingId(String buildingId);
     List<POI> findByFloorIdAndCategory(String floorId, String category);
+    List<POI> findByBuildingIdAndFloorId(String buildingId, String floorId);
     long deleteByBuildingIdAndFloorId(String buildingId, String floorId);
 }
@@ -0,0 +1,13 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.Beacon;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+import java.util.Collection;
+
+@Repository
+public interface ReactiveBeaconRepository extends ReactiveMongoRepository<Beacon, String> {
+    Flux<Beacon> findByUuidIn(Collection<String> uuids);
+}
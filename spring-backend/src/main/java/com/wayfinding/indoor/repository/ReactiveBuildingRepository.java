@@ -0,0 +1,9 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.Building;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveBuildingRepository extends ReactiveMongoRepository<Building, String> {
+}
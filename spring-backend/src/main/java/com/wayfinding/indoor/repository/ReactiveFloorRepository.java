@@ -0,0 +1,9 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.Floor;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveFloorRepository extends ReactiveMongoRepository<Floor, String> {
+}
@@ -0,0 +1,13 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.GraphEdge;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveGraphEdgeRepository extends ReactiveMongoRepository<GraphEdge, String> {
+    @Query(value = "{ 'buildingId': ?0, 'floorId': ?1 }", fields = "{ '_id': 0, 'fromNodeId': 1, 'toNodeId': 1, 'weight': 1 }")
+    Flux<EdgeLink> streamLinksByBuildingIdAndFloorId(String buildingId, String floorId);
+}
@@ -0,0 +1,13 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.GraphNode;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveGraphNodeRepository extends ReactiveMongoRepository<GraphNode, String> {
+    @Query(value = "{ 'buildingId': ?0, 'floorId': ?1 }", fields = "{ '_id': 0, 'nodeId': 1, 'x': 1, 'y': 1 }")
+    Flux<NodePoint> streamPointsByBuildingIdAndFloorId(String buildingId, String floorId);
+}
@@ -0,0 +1,11 @@
+package com.wayfinding.indoor.repository;
+
+import com.wayfinding.indoor.model.NavigationNode;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveNavigationNodeRepository extends ReactiveMongoRepository<NavigationNode, String> {
+    Flux<NavigationNode> findByFloorId(String floorId);
+}
@@ -0,0 +1,163 @@
+package com.wayfinding.indoor.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.dto.CalibrationSampleRequest;
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.model.BeaconCalibration;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.BeaconRepository;
+import com.wayfinding.indoor.repository.FloorRepository;
+import com.wayfinding.indoor.util.BeaconKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BeaconCalibrationService {
+
+    private final BeaconRepository beaconRepository;
+    private final FloorRepository floorRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CollectionVersions collectionVersions;
+    private final ChangeLogService changeLog;
+
+    @Value("${wayfinding.calibration.min-samples:5}")
+    private int minSamples = 5;
+
+    @Value("${wayfinding.calibration.min-exponent:1.5}")
+    private double minExponent = 1.5;
+
+    @Value("${wayfinding.calibration.max-exponent:5.0}")
+    private double maxExponent = 5.0;
+
+    // Distances closer than this are in the antenna near field and skew the fit
+    private static final double MIN_DISTANCE_METERS = 0.5;
+
+    /**
+     * Ingest a scan taken at a known position. Each matched beacon on the same floor
+     * gets one (distance, rssi) sample added atomically to its running fit; txPower and
+     * pathLossExponent are refreshed once enough samples at varied distances exist.
+     */
+    public List<Beacon> ingest(CalibrationSampleRequest request) {
+        if (request.getFloorId() == null || request.getFloorId().trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "floorId is required");
+        }
+        if (request.getX() == null || request.getY() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "x and y are required");
+        }
+        if (request.getBeacons() == null || request.getBeacons().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "beacons are required");
+        }
+
+        Floor floor = floorRepository.findById(request.getFloorId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "floor not found"));
+        double scale = floor.getScale() > 0 ? floor.getScale() : 1.0;
+
+        Set<String> uuids = BeaconKeys.uuidVariants(request.getBeacons());
+        Map<String, Beacon> registry = uuids.isEmpty()
+                ? Map.of()
+                : BeaconKeys.index(beaconRepository.findByUuidIn(uuids));
+
+        List<Beacon> updated = new ArrayList<>();
+        for (BeaconScanRequest.ScannedBeacon scanned : request.getBeacons()) {
+            Beacon beacon = registry.get(BeaconKeys.of(scanned));
+            if (beacon == null || !floor.getId().equals(beacon.getFloorId())) {
+                continue;
+            }
+
+            double dx = beacon.getX() - request.getX();
+            double dy = beacon.getY() - request.getY();
+            double meters = Math.max(Math.sqrt(dx * dx + dy * dy) / scale, MIN_DISTANCE_METERS);
+            addSample(beacon.getId(), meters, scanned.getRssi()).ifPresent(updated::add);
+        }
+        log.info("Calibration sample on floor {} updated {} beacons", floor.getId(), updated.size());
+        return updated;
+    }
+
+    /**
+     * Clear the learned fit of a beacon and restore the default path-loss model.
+     */
+    public Optional<Beacon> reset(String beaconId) {
+        Beacon saved = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(beaconId)),
+                new Update().unset("calibration").set("txPower", -59).set("pathLossExponent", 2.0),
+                FindAndModifyOptions.options().returnNew(true),
+                Beacon.class
+        );
+        if (saved == null) {
+            return Optional.empty();
+        }
+        collectionVersions.bump(mongoTemplate.getCollectionName(Beacon.class));
+        changeLog.upserted(saved.getBuildingId(), Kind.BEACON, saved.getFloorId(), saved.getId());
+        return Optional.of(saved);
+    }
+
+    private Optional<Beacon> addSample(String beaconId, double distanceMeters, int rssi) {
+        double x = BeaconCalibration.feature(distanceMeters);
+        Update increment = new Update()
+                .inc("calibration.count", 1)
+                .inc("calibration.sumX", x)
+                .inc("calibration.sumY", rssi)
+                .inc("calibration.sumXX", x * x)
+                .inc("calibration.sumXY", x * rssi)
+                .set("calibration.updatedAt", LocalDateTime.now());
+        Beacon beacon = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(beaconId)),
+                increment,
+                FindAndModifyOptions.options().returnNew(true),
+                Beacon.class
+        );
+        // Template updates publish no save event
+        collectionVersions.bump(mongoTemplate.getCollectionName(Beacon.class));
+        if (beacon == null || beacon.getCalibration() == null) {
+            return Optional.empty();
+        }
+
+        BeaconCalibration calibration = beacon.getCalibration();
+        if (calibration.getCount() < minSamples) {
+            return Optional.of(beacon);
+        }
+
+        Double fitted = calibration.fitExponent();
+        double exponent = fitted != null
+                ? Math.max(minExponent, Math.min(maxExponent, fitted))
+                : (beacon.getPathLossExponent() > 0 ? beacon.getPathLossExponent() : 2.0);
+        double txPower = calibration.fitTxPower(exponent);
+
+        // Only while no other sample has landed since: a newer sample refits from its own
+        // sums, and a stale fit must not overwrite it (nor survive a reset)
+        UpdateResult refit = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(beaconId).and("calibration.count").is(calibration.getCount())),
+                new Update().set("txPower", txPower).set("pathLossExponent", exponent),
+                Beacon.class
+        );
+        if (refit.getMatchedCount() == 0) {
+            return Optional.of(beacon);
+        }
+        collectionVersions.bump(mongoTemplate.getCollectionName(Beacon.class));
+        // Only refits are synced; the running sums change with every sample
+        changeLog.upserted(beacon.getBuildingId(), Kind.BEACON, beacon.getFloorId(), beacon.getId());
+        beacon.setTxPower(txPower);
+        beacon.setPathLossExponent(exponent);
+        return Optional.of(beacon);
+    }
+}
@@ -2,9 +2,15 @@ package com.wayfinding.indoor.service;
 
 import com.wayfinding.indoor.dto.CreateBeaconRequest;
 import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
 import com.wayfinding.indoor.repository.BeaconRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -17,6 +23,9 @@ import java.util.Optional;
 public class BeaconService {
 
     private final BeaconRepository beaconRepository;
+    private final ChangeLogService changeLog;
+    private final MongoTemplate mongoTemplate;
+    private final CollectionVersions collectionVersions;
 
     /**
      * Get all beacons
@@ -106,8 +115,13 @@ public class BeaconService {
             beacon.setTxPower(request.getTxPower());
         }
 
+        if (request.getPathLossExponent() != null && request.getPathLossExponent() > 0) {
+            beacon.setPathLossExponent(request.getPathLossExponent());
+        }
+
         beacon.setCreatedAt(LocalDateTime.now());
         Beacon saved = beaconRepository.save(beacon);
+        changeLog.upserted(saved.getBuildingId(), Kind.BEACON, saved.getFloorId(), saved.getId());
         log.info("Beacon created successfully with ID: {}", saved.getId());
         return saved;
     }
@@ -118,33 +132,50 @@ public class BeaconService {
     public Optional<Beacon> updateBeacon(String id, CreateBeaconRequest request) {
         log.info("Updating beacon with ID: {}", id);
 
-        return beaconRepository.findById(id).map(beacon -> {
-            if (request.getUuid() != null && !request.getUuid().isEmpty()) {
-                beacon.setUuid(request.getUuid().toUpperCase());
-            }
-            if (request.getMajor() != null && request.getMajor() >= 0) {
-                beacon.setMajor(request.getMajor());
-            }
-            if (request.getMinor() != null && request.getMinor() >= 0) {
-                beacon.setMinor(request.getMinor());
-            }
-            if (request.getX() > 0) {
-                beacon.setX(request.getX());
-            }
-            if (request.getY() > 0) {
-                beacon.setY(request.getY());
-            }
-            if (request.getLabel() != null) {
-                beacon.setLabel(request.getLabel());
-            }
-            if (request.getTxPower() != null) {
-                beacon.setTxPower(request.getTxPower());
-            }
-
-            Beacon saved = beaconRepository.save(beacon);
-            log.info("Beacon updated successfully");
-            return saved;
-        });
+        // Only the requested fields are written, so a concurrent calibration refit survives
+        Update update = new Update();
+        if (request.getUuid() != null && !request.getUuid().isEmpty()) {
+            update.set("uuid", request.getUuid().toUpperCase());
+        }
+        if (request.getMajor() != null && request.getMajor() >= 0) {
+            update.set("major", request.getMajor());
+        }
+        if (request.getMinor() != null && request.getMinor() >= 0) {
+            update.set("minor", request.getMinor());
+        }
+        if (request.getX() > 0) {
+            update.set("x", request.getX());
+        }
+        if (request.getY() > 0) {
+            update.set("y", request.getY());
+        }
+        if (request.getLabel() != null) {
+            update.set("label", request.getLabel());
+        }
+        if (request.getTxPower() != null) {
+            update.set("txPower", request.getTxPower());
+        }
+        if (request.getPathLossExponent() != null && request.getPathLossExponent() > 0) {
+            update.set("pathLossExponent", request.getPathLossExponent());
+        }
+        if (update.getUpdateObject().isEmpty()) {
+            return beaconRepository.findById(id);
+        }
+
+        Beacon saved = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(id)),
+                update,
+                FindAndModifyOptions.options().returnNew(true),
+                Beacon.class
+        );
+        if (saved == null) {
+            return Optional.empty();
+        }
+        // Template updates publish no save event
+        collectionVersions.bump(mongoTemplate.getCollectionName(Beacon.class));
+        changeLog.upserted(saved.getBuildingId(), Kind.BEACON, saved.getFloorId(), saved.getId());
+        log.info("Beacon updated successfully");
+        return Optional.of(saved);
     }
 
     /**
@@ -153,8 +184,10 @@ public class BeaconService {
     public boolean deleteBeacon(String id) {
         log.info("Deleting beacon with ID: {}", id);
 
-        if (beaconRepository.existsById(id)) {
+        Optional<Beacon> beacon = beaconRepository.findById(id);
+        if (beacon.isPresent()) {
             beaconRepository.deleteById(id);
+            changeLog.deleted(beacon.get().getBuildingId(), Kind.BEACON, beacon.get().getFloorId(), id);
             log.info("Beacon deleted successfully");
             return true;
         }
@@ -2,6 +2,7 @@ package com.wayfinding.indoor.service;
 
 import com.wayfinding.indoor.dto.CreateBuildingRequest;
 import com.wayfinding.indoor.model.Building;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
 import com.wayfinding.indoor.repository.BuildingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -18,6 +19,7 @@ import java.util.UUID;
 public class BuildingService {
 
     private final BuildingRepository buildingRepository;
+    private final ChangeLogService changeLog;
 
     /**
      * Get all buildings
@@ -70,6 +72,7 @@ public class BuildingService {
         );
 
         Building saved = buildingRepository.save(building);
+        changeLog.upserted(saved.getId(), Kind.BUILDING, null, saved.getId());
         log.info("Building created successfully with ID: {}", saved.getId());
         return saved;
     }
@@ -96,6 +99,7 @@ public class BuildingService {
             building.setUpdatedAt(LocalDateTime.now());
 
             Building saved = buildingRepository.save(building);
+            changeLog.upserted(saved.getId(), Kind.BUILDING, null, saved.getId());
             log.info("Building updated successfully");
             return saved;
         });
@@ -107,8 +111,10 @@ public class BuildingService {
     public boolean deleteBuilding(String id) {
         log.info("Deleting building with ID: {}", id);
 
-        if (buildingRepository.existsById(id)) {
+        Optional<Building> building = buildingRepository.findById(id);
+        if (building.isPresent()) {
             buildingRepository.deleteById(id);
+            changeLog.deleted(id, Kind.BUILDING, null, id);
             log.info("Building deleted successfully");
             return true;
         }
@@ -0,0 +1,71 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.ChangeLogEntry;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.ChangeLogEntry.Op;
+import com.wayfinding.indoor.repository.ChangeLogRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stamps writes to a building's synced data (see SyncService) with the building's next
+ * sequence number. Services call it after the write succeeded: single documents by id,
+ * bulk and floor-wide writes as a reset of the floor. The counter lives in Mongo, so
+ * sequences survive restarts and are shared by all instances.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChangeLogService {
+
+    static final String SEQUENCES = "sync_sequences";
+
+    private final MongoTemplate mongoTemplate;
+    private final ChangeLogRepository changeLogRepository;
+
+    public void upserted(String buildingId, Kind kind, String floorId, String documentId) {
+        record(buildingId, kind, Op.UPSERT, floorId, documentId);
+    }
+
+    public void deleted(String buildingId, Kind kind, String floorId, String documentId) {
+        record(buildingId, kind, Op.DELETE, floorId, documentId);
+    }
+
+    /**
+     * Everything of this kind on the floor may have changed
+     */
+    public void floorReset(String buildingId, Kind kind, String floorId) {
+        record(buildingId, kind, Op.RESET, floorId, null);
+    }
+
+    /**
+     * Last sequence handed out for the building, 0 before its first change
+     */
+    public long currentSequence(String buildingId) {
+        Document counter = mongoTemplate.findById(buildingId, Document.class, SEQUENCES);
+        return counter != null ? counter.get("seq", Number.class).longValue() : 0;
+    }
+
+    private void record(String buildingId, Kind kind, Op op, String floorId, String documentId) {
+        if (buildingId == null || buildingId.isEmpty()) {
+            return;
+        }
+        Document counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(buildingId)),
+                new Update().inc("seq", 1L),
+                FindAndModifyOptions.options().upsert(true).returnNew(true),
+                Document.class,
+                SEQUENCES
+        );
+        long seq = counter.get("seq", Number.class).longValue();
+        changeLogRepository.insert(new ChangeLogEntry(null, buildingId, seq, kind, op, floorId, documentId,
+                LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,107 @@
+package com.wayfinding.indoor.service;
+
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Version stamp per Mongo collection, for ETags on reference-data lists. Every save,
+ * insert (bulk inserts included) and delete published by the templates bumps the stamp of
+ * its collection; template updates that publish no event (findAndModify, updateFirst) must
+ * call {@link #bump} themselves.
+ * <p>
+ * The stamps are counters in Mongo ({@code $inc} on one document per collection, like the
+ * sync sequences of ChangeLogService), so all instances hand out the same ETags and a
+ * write on one instance invalidates them everywhere. The increment runs in the write path
+ * and its failures propagate, so a write that returned has moved the stamp. Writes of many
+ * documents run inside {@link #batch} to cost one increment rather than one per document.
+ */
+@Component
+@RequiredArgsConstructor
+public class CollectionVersions extends AbstractMongoEventListener<Object> {
+
+    static final String VERSIONS = "collection_versions";
+
+    // Collections whose lists are served with ETags; writes elsewhere are not counted
+    static final Set<String> STAMPED = Set.of("floors", "pois", "beacons", "nodes");
+
+    private final MongoTemplate mongoTemplate;
+
+    // Collections touched inside the batch running on this thread
+    private final ThreadLocal<Set<String>> batched = new ThreadLocal<>();
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Object> event) {
+        bump(event.getCollectionName());
+    }
+
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Object> event) {
+        bump(event.getCollectionName());
+    }
+
+    public void bump(String collection) {
+        if (!STAMPED.contains(collection)) {
+            return;
+        }
+        Set<String> batch = batched.get();
+        if (batch != null) {
+            batch.add(collection);
+            return;
+        }
+        increment(collection);
+    }
+
+    /**
+     * Run a write of many documents, bumping every collection it touched once when it is
+     * done (also when it fails partway) instead of once per document.
+     */
+    public <T> T batch(Supplier<T> write) {
+        if (batched.get() != null) {
+            return write.get();
+        }
+        Set<String> touched = new LinkedHashSet<>();
+        batched.set(touched);
+        try {
+            return write.get();
+        } finally {
+            batched.remove();
+            touched.forEach(this::increment);
+        }
+    }
+
+    /**
+     * Weak ETag over the given collections. Take it before reading the data: a write in
+     * between then only costs the client one more full response, and a write that has
+     * returned has always moved the tag. Weak because the same list is served as JSON,
+     * CBOR, gzip or plain.
+     */
+    public String etag(String... collections) {
+        Map<String, Long> versions = new HashMap<>();
+        mongoTemplate.find(Query.query(Criteria.where("_id").in((Object[]) collections)), Document.class, VERSIONS)
+                .forEach(stamp -> versions.put(stamp.getString("_id"), stamp.get("version", Number.class).longValue()));
+        StringBuilder etag = new StringBuilder("W/\"v");
+        for (String collection : collections) {
+            etag.append('-').append(versions.getOrDefault(collection, 0L));
+        }
+        return etag.append('"').toString();
+    }
+
+    private void increment(String collection) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(collection)),
+                new Update().inc("version", 1L), VERSIONS);
+    }
+}
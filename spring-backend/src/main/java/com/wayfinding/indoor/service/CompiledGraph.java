@@ -0,0 +1,409 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable routing graph of one floor in compressed sparse row form. Nodes are numbered
+ * 0..n-1 (ids interned in {@link #nodeId(int)}) and the neighbors of node i are
+ * targets[offsets[i] .. offsets[i+1]). Edges are stored in both directions since indoor
+ * edges are walkable both ways. Coordinates keep the stored doubles, so routes report the
+ * points as entered; only the edge weights are packed floats.
+ * <p>
+ * The numeric arrays are buffers, so a graph can live on the heap or be a view over a
+ * snapshot (see {@link GraphSnapshotCodec}) without copying. Reads use absolute buffer
+ * access, so a graph is safe to share between threads.
+ */
+public final class CompiledGraph {
+
+    private final String buildingId;
+    private final String floorId;
+    private final String[] nodeIds;
+    private final Map<String, Integer> index;
+    private final DoubleBuffer xs;
+    private final DoubleBuffer ys;
+    private final IntBuffer offsets;
+    private final IntBuffer targets;
+    private final FloatBuffer weights;
+
+    CompiledGraph(String buildingId, String floorId, String[] nodeIds,
+                  DoubleBuffer xs, DoubleBuffer ys, IntBuffer offsets, IntBuffer targets, FloatBuffer weights) {
+        this.buildingId = buildingId;
+        this.floorId = floorId;
+        this.nodeIds = nodeIds;
+        this.xs = xs;
+        this.ys = ys;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+        this.index = new HashMap<>(nodeIds.length * 2);
+        for (int i = 0; i < nodeIds.length; i++) {
+            index.put(nodeIds[i], i);
+        }
+    }
+
+    private CompiledGraph(CompiledGraph source, String buildingId, String floorId) {
+        this.buildingId = buildingId;
+        this.floorId = floorId;
+        this.nodeIds = source.nodeIds;
+        this.index = source.index;
+        this.xs = source.xs;
+        this.ys = source.ys;
+        this.offsets = source.offsets;
+        this.targets = source.targets;
+        this.weights = source.weights;
+    }
+
+    public static Builder builder(String buildingId, String floorId) {
+        return new Builder(buildingId, floorId);
+    }
+
+    public static CompiledGraph compile(String buildingId, String floorId,
+                                        Iterable<GraphNode> nodes, Iterable<GraphEdge> edges) {
+        Builder builder = builder(buildingId, floorId);
+        for (GraphNode node : nodes) {
+            builder.addNode(node.getNodeId(), node.getX(), node.getY());
+        }
+        for (GraphEdge edge : edges) {
+            builder.addEdge(edge.getFromNodeId(), edge.getToNodeId(), edge.getWeight());
+        }
+        return builder.build();
+    }
+
+    public static CompiledGraph empty(String buildingId, String floorId) {
+        return builder(buildingId, floorId).build();
+    }
+
+    /**
+     * The same graph under another building/floor, sharing all arrays
+     */
+    public CompiledGraph relocate(String buildingId, String floorId) {
+        return new CompiledGraph(this, buildingId, floorId);
+    }
+
+    public String getBuildingId() {
+        return buildingId;
+    }
+
+    public String getFloorId() {
+        return floorId;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    /**
+     * Number of directed adjacency entries (twice the number of undirected edges)
+     */
+    public int edgeCount() {
+        return targets.limit();
+    }
+
+    public String nodeId(int node) {
+        return nodeIds[node];
+    }
+
+    public double x(int node) {
+        return xs.get(node);
+    }
+
+    public double y(int node) {
+        return ys.get(node);
+    }
+
+    public int firstEdge(int node) {
+        return offsets.get(node);
+    }
+
+    public int endEdge(int node) {
+        return offsets.get(node + 1);
+    }
+
+    public int target(int edge) {
+        return targets.get(edge);
+    }
+
+    public float weight(int edge) {
+        return weights.get(edge);
+    }
+
+    /**
+     * Same nodes, coordinates and edges in the same order, wherever the arrays live
+     */
+    public boolean sameAs(CompiledGraph other) {
+        return Arrays.equals(nodeIds, other.nodeIds)
+                && xs.equals(other.xs) && ys.equals(other.ys)
+                && offsets.equals(other.offsets) && targets.equals(other.targets)
+                && weights.equals(other.weights);
+    }
+
+    /**
+     * Node index of a nodeId, or -1
+     */
+    public int indexOf(String nodeId) {
+        Integer i = index.get(nodeId);
+        return i != null ? i : -1;
+    }
+
+    /**
+     * Node closest to the given point, or -1 for an empty graph
+     */
+    public int nearestNode(double x, double y) {
+        int nearest = -1;
+        double minDist = Double.MAX_VALUE;
+        for (int i = 0; i < nodeIds.length; i++) {
+            double dx = xs.get(i) - x;
+            double dy = ys.get(i) - y;
+            double dist = dx * dx + dy * dy;
+            if (dist < minDist) {
+                minDist = dist;
+                nearest = i;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Dijkstra between two node indices. Returns the node indices along the shortest
+     * path including both ends, or an empty array when end is unreachable.
+     */
+    public int[] shortestPath(int start, int end) {
+        int n = nodeIds.length;
+        if (start < 0 || end < 0 || start >= n || end >= n) {
+            return new int[0];
+        }
+        if (start == end) {
+            return new int[]{start};
+        }
+
+        double[] dist = new double[n];
+        int[] prev = new int[n];
+        Arrays.fill(dist, Double.MAX_VALUE);
+        Arrays.fill(prev, -1);
+        NodeHeap heap = new NodeHeap(Math.max(16, n));
+        dist[start] = 0;
+        heap.push(start, 0);
+
+        while (!heap.isEmpty()) {
+            double d = heap.peekDistance();
+            int u = heap.pop();
+            if (d > dist[u]) {
+                continue;
+            }
+            if (u == end) {
+                break;
+            }
+            int edgeEnd = offsets.get(u + 1);
+            for (int e = offsets.get(u); e < edgeEnd; e++) {
+                int v = targets.get(e);
+                double alt = d + weights.get(e);
+                if (alt < dist[v]) {
+                    dist[v] = alt;
+                    prev[v] = u;
+                    heap.push(v, alt);
+                }
+            }
+        }
+
+        if (prev[end] < 0) {
+            return new int[0];
+        }
+        int length = 1;
+        for (int v = end; prev[v] >= 0; v = prev[v]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int v = end, i = length - 1; i >= 0; v = prev[v], i--) {
+            path[i] = v;
+        }
+        return path;
+    }
+
+    /**
+     * Binary min-heap of (distance, node) pairs with lazy deletion
+     */
+    private static final class NodeHeap {
+        private int[] nodes;
+        private double[] dists;
+        private int size;
+
+        NodeHeap(int capacity) {
+            nodes = new int[capacity];
+            dists = new double[capacity];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        double peekDistance() {
+            return dists[0];
+        }
+
+        void push(int node, double dist) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                dists = Arrays.copyOf(dists, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (dists[parent] <= dist) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                dists[i] = dists[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            dists[i] = dist;
+        }
+
+        int pop() {
+            int top = nodes[0];
+            size--;
+            int node = nodes[size];
+            double dist = dists[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && dists[child + 1] < dists[child]) {
+                    child++;
+                }
+                if (dists[child] >= dist) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                dists[i] = dists[child];
+                i = child;
+            }
+            nodes[i] = node;
+            dists[i] = dist;
+            return top;
+        }
+    }
+
+    /**
+     * Collects nodes and edges in any order and lays them out in CSR form. Edges whose
+     * endpoints are unknown, and self loops, are dropped and counted in
+     * {@link #droppedEdges()}. A repeated nodeId keeps its first index and takes the
+     * latest coordinates.
+     * <p>
+     * Nodes and edges are kept in separate state, so one thread may add nodes while another
+     * adds edges; {@link #build()} must happen after both have finished.
+     */
+    public static final class Builder {
+        private final String buildingId;
+        private final String floorId;
+        private final List<String> nodeIds = new ArrayList<>();
+        private final Map<String, Integer> index = new HashMap<>();
+        private double[] xs = new double[64];
+        private double[] ys = new double[64];
+        private final List<String> edgeFrom = new ArrayList<>();
+        private final List<String> edgeTo = new ArrayList<>();
+        private float[] edgeWeights = new float[64];
+        private int droppedEdges;
+
+        private Builder(String buildingId, String floorId) {
+            this.buildingId = buildingId;
+            this.floorId = floorId;
+        }
+
+        public Builder addNode(String nodeId, double x, double y) {
+            Integer existing = index.get(nodeId);
+            int i;
+            if (existing != null) {
+                i = existing;
+            } else {
+                i = nodeIds.size();
+                nodeIds.add(nodeId);
+                index.put(nodeId, i);
+                if (i == xs.length) {
+                    xs = Arrays.copyOf(xs, i * 2);
+                    ys = Arrays.copyOf(ys, i * 2);
+                }
+            }
+            xs[i] = x;
+            ys[i] = y;
+            return this;
+        }
+
+        public Builder addEdge(String fromNodeId, String toNodeId, double weight) {
+            int e = edgeFrom.size();
+            if (e == edgeWeights.length) {
+                edgeWeights = Arrays.copyOf(edgeWeights, e * 2);
+            }
+            edgeFrom.add(fromNodeId);
+            edgeTo.add(toNodeId);
+            edgeWeights[e] = (float) weight;
+            return this;
+        }
+
+        /**
+         * Edges left out by the last {@link #build()}
+         */
+        public int droppedEdges() {
+            return droppedEdges;
+        }
+
+        public CompiledGraph build() {
+            int n = nodeIds.size();
+            int m = edgeFrom.size();
+            droppedEdges = 0;
+            int[] from = new int[m];
+            int[] to = new int[m];
+            int[] offsets = new int[n + 1];
+            for (int e = 0; e < m; e++) {
+                Integer u = index.get(edgeFrom.get(e));
+                Integer v = index.get(edgeTo.get(e));
+                if (u == null || v == null || u.equals(v)) {
+                    from[e] = -1;
+                    droppedEdges++;
+                    continue;
+                }
+                from[e] = u;
+                to[e] = v;
+                offsets[u + 1]++;
+                offsets[v + 1]++;
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+
+            int[] targets = new int[offsets[n]];
+            float[] weights = new float[offsets[n]];
+            int[] cursor = Arrays.copyOf(offsets, n);
+            for (int e = 0; e < m; e++) {
+                int u = from[e];
+                if (u < 0) {
+                    continue;
+                }
+                int v = to[e];
+                targets[cursor[u]] = v;
+                weights[cursor[u]++] = edgeWeights[e];
+                targets[cursor[v]] = u;
+                weights[cursor[v]++] = edgeWeights[e];
+            }
+
+            return new CompiledGraph(buildingId, floorId, nodeIds.toArray(new String[0]),
+                    DoubleBuffer.wrap(Arrays.copyOf(xs, n)),
+                    DoubleBuffer.wrap(Arrays.copyOf(ys, n)),
+                    IntBuffer.wrap(offsets),
+                    IntBuffer.wrap(targets),
+                    FloatBuffer.wrap(weights));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.wayfinding.indoor.service;
+
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Collapses repeated readings of the same beacon in one scan into a single reading
+ * with their mean RSSI.
+ */
+@Component
+@Order(10)
+public class DedupeScanFilter implements ScanFilter {
+
+    @Override
+    public void apply(ScanBuffer buffer, String deviceId) {
+        for (int i = 0; i < buffer.size(); i++) {
+            String key = buffer.key(i);
+            int sum = buffer.rssi(i);
+            int count = 1;
+            for (int j = buffer.size() - 1; j > i; j--) {
+                if (key.equals(buffer.key(j))) {
+                    sum += buffer.rssi(j);
+                    count++;
+                    buffer.remove(j);
+                }
+            }
+            if (count > 1) {
+                buffer.setRssi(i, Math.round((float) sum / count));
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.Fingerprint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, immutable radio map compiled from the fingerprints of one floor.
+ * Cell features are stored row-major in a single float array (cells x beacons) and
+ * an inverted index maps each beacon to the cells where it is among the strongest
+ * signals, so k-nearest-neighbor queries only scan cells that share a strong beacon
+ * with the observed scan.
+ */
+public final class FingerprintRadioMap {
+
+    static final float MISSING_RSSI = -100f;
+    private static final int INDEX_TOP_BEACONS = 3;
+
+    private final Map<String, Integer> beaconIndex;
+    private final int dims;
+    private final float[] features;
+    private final double[] xs;
+    private final double[] ys;
+    private final int[][] postings;
+
+    private FingerprintRadioMap(Map<String, Integer> beaconIndex, float[] features,
+                                double[] xs, double[] ys, int[][] postings) {
+        this.beaconIndex = beaconIndex;
+        this.dims = beaconIndex.size();
+        this.features = features;
+        this.xs = xs;
+        this.ys = ys;
+        this.postings = postings;
+    }
+
+    public static FingerprintRadioMap compile(List<Fingerprint> fingerprints) {
+        Map<String, Integer> beaconIndex = new HashMap<>();
+        for (Fingerprint fp : fingerprints) {
+            if (fp.getRssi() == null) continue;
+            for (String key : fp.getRssi().keySet()) {
+                beaconIndex.putIfAbsent(key, beaconIndex.size());
+            }
+        }
+
+        int cells = fingerprints.size();
+        int dims = beaconIndex.size();
+        float[] features = new float[cells * dims];
+        Arrays.fill(features, MISSING_RSSI);
+        double[] xs = new double[cells];
+        double[] ys = new double[cells];
+
+        List<List<Integer>> postingLists = new ArrayList<>(dims);
+        for (int d = 0; d < dims; d++) {
+            postingLists.add(new ArrayList<>());
+        }
+
+        for (int c = 0; c < cells; c++) {
+            Fingerprint fp = fingerprints.get(c);
+            xs[c] = fp.getX();
+            ys[c] = fp.getY();
+            if (fp.getRssi() == null) continue;
+            for (Map.Entry<String, Double> entry : fp.getRssi().entrySet()) {
+                features[c * dims + beaconIndex.get(entry.getKey())] = entry.getValue().floatValue();
+            }
+            for (int d : strongestDims(features, c * dims, dims, INDEX_TOP_BEACONS)) {
+                postingLists.get(d).add(c);
+            }
+        }
+
+        int[][] postings = new int[dims][];
+        for (int d = 0; d < dims; d++) {
+            postings[d] = postingLists.get(d).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new FingerprintRadioMap(beaconIndex, features, xs, ys, postings);
+    }
+
+    public boolean isEmpty() {
+        return xs.length == 0 || dims == 0;
+    }
+
+    public int size() {
+        return xs.length;
+    }
+
+    /**
+     * Estimate a position from observed RSSI values keyed by "UUID:major:minor".
+     * The k nearest cells in signal space are averaged with inverse-distance weights.
+     * Returns null when no observed beacon is part of this radio map.
+     */
+    public double[] locate(Map<String, Integer> observed, int k) {
+        if (isEmpty() || observed == null || observed.isEmpty() || k <= 0) {
+            return null;
+        }
+
+        float[] query = new float[dims];
+        Arrays.fill(query, MISSING_RSSI);
+        int known = 0;
+        for (Map.Entry<String, Integer> entry : observed.entrySet()) {
+            Integer d = beaconIndex.get(entry.getKey());
+            if (d != null) {
+                query[d] = entry.getValue();
+                known++;
+            }
+        }
+        if (known == 0) {
+            return null;
+        }
+
+        int cells = xs.length;
+        boolean[] candidate = new boolean[cells];
+        int candidates = 0;
+        for (int d : strongestDims(query, 0, dims, INDEX_TOP_BEACONS)) {
+            for (int c : postings[d]) {
+                if (!candidate[c]) {
+                    candidate[c] = true;
+                    candidates++;
+                }
+            }
+        }
+        boolean fullScan = candidates < Math.min(k, cells);
+
+        int kk = Math.min(k, cells);
+        int[] bestCells = new int[kk];
+        double[] bestDist = new double[kk];
+        Arrays.fill(bestDist, Double.MAX_VALUE);
+
+        for (int c = 0; c < cells; c++) {
+            if (!fullScan && !candidate[c]) continue;
+            int base = c * dims;
+            double dist = 0;
+            for (int d = 0; d < dims; d++) {
+                double diff = features[base + d] - query[d];
+                dist += diff * diff;
+            }
+            if (dist >= bestDist[kk - 1]) continue;
+            int i = kk - 1;
+            while (i > 0 && bestDist[i - 1] > dist) {
+                bestDist[i] = bestDist[i - 1];
+                bestCells[i] = bestCells[i - 1];
+                i--;
+            }
+            bestDist[i] = dist;
+            bestCells[i] = c;
+        }
+
+        double totalWeight = 0;
+        double x = 0;
+        double y = 0;
+        for (int i = 0; i < kk; i++) {
+            if (bestDist[i] == Double.MAX_VALUE) break;
+            double weight = 1.0 / (Math.sqrt(bestDist[i]) + 1e-6);
+            x += xs[bestCells[i]] * weight;
+            y += ys[bestCells[i]] * weight;
+            totalWeight += weight;
+        }
+        if (totalWeight == 0) {
+            return null;
+        }
+        return new double[]{x / totalWeight, y / totalWeight};
+    }
+
+    private static int[] strongestDims(float[] values, int offset, int dims, int limit) {
+        int[] top = new int[Math.min(limit, dims)];
+        int count = 0;
+        for (int d = 0; d < dims; d++) {
+            float v = values[offset + d];
+            if (v <= MISSING_RSSI) continue;
+            int i = Math.min(count, top.length - 1);
+            if (count == top.length && values[offset + top[i]] >= v) continue;
+            while (i > 0 && values[offset + top[i - 1]] < v) {
+                top[i] = top[i - 1];
+                i--;
+            }
+            top[i] = d;
+            if (count < top.length) count++;
+        }
+        return Arrays.copyOf(top, count);
+    }
+}
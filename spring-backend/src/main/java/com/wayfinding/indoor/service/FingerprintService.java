@@ -0,0 +1,142 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.dto.CreateFingerprintRequest;
+import com.wayfinding.indoor.model.Fingerprint;
+import com.wayfinding.indoor.repository.FingerprintRepository;
+import com.wayfinding.indoor.util.BeaconKeys;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class FingerprintService {
+
+    private final FingerprintRepository fingerprintRepository;
+    private final MongoTemplate mongoTemplate;
+
+    // Compiled radio maps per floor, rebuilt lazily after calibration changes
+    private final Map<String, FingerprintRadioMap> radioMaps = new ConcurrentHashMap<>();
+
+    @Value("${wayfinding.fingerprint.cell-size:50}")
+    private double cellSize = 50;
+
+    @Value("${wayfinding.fingerprint.k:3}")
+    private int k = 3;
+
+    /**
+     * Record a calibration scan taken at a known position. The sample is added to the RSSI
+     * sums and counts of the grid cell containing the position.
+     */
+    public Fingerprint recordSample(CreateFingerprintRequest request) {
+        if (request.getFloorId() == null || request.getFloorId().trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "floorId is required");
+        }
+        if (request.getX() == null || request.getY() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "x and y are required");
+        }
+        if (request.getBeacons() == null || request.getBeacons().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "beacons are required");
+        }
+
+        int gridX = (int) Math.floor(request.getX() / cellSize);
+        int gridY = (int) Math.floor(request.getY() / cellSize);
+
+        // Merged per beacon first: a scan may report a beacon twice, and one update
+        // cannot $inc the same field twice
+        Map<String, double[]> merged = new HashMap<>();
+        for (BeaconScanRequest.ScannedBeacon scanned : request.getBeacons()) {
+            if (scanned.getUuid() == null || scanned.getMajor() == null || scanned.getMinor() == null) {
+                continue;
+            }
+            double[] sample = merged.computeIfAbsent(BeaconKeys.of(scanned), key -> new double[2]);
+            sample[0] += scanned.getRssi();
+            sample[1]++;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .setOnInsert("buildingId", request.getBuildingId())
+                .setOnInsert("x", (gridX + 0.5) * cellSize)
+                .setOnInsert("y", (gridY + 0.5) * cellSize)
+                .setOnInsert("createdAt", now)
+                .set("updatedAt", now);
+        merged.forEach((key, sample) -> update
+                .inc("rssiSum." + key, sample[0])
+                .inc("samples." + key, (int) sample[1]));
+        Query cell = Query.query(Criteria.where("floorId").is(request.getFloorId())
+                .and("gridX").is(gridX)
+                .and("gridY").is(gridY));
+
+        // Upserted atomically, so concurrent samples for one cell all count
+        Fingerprint saved;
+        try {
+            saved = upsert(cell, update);
+        } catch (DuplicateKeyException e) {
+            // Another sample created the cell first; now it exists and this one merges in
+            saved = upsert(cell, update);
+        }
+        radioMaps.remove(request.getFloorId());
+        return saved;
+    }
+
+    private Fingerprint upsert(Query cell, Update update) {
+        return mongoTemplate.findAndModify(cell, update,
+                FindAndModifyOptions.options().upsert(true).returnNew(true), Fingerprint.class);
+    }
+
+    public List<Fingerprint> listFingerprints(String floorId) {
+        if (floorId != null) {
+            return fingerprintRepository.findByFloorId(floorId);
+        }
+        return fingerprintRepository.findAll();
+    }
+
+    public void deleteByFloor(String floorId) {
+        long deleted = fingerprintRepository.deleteByFloorId(floorId);
+        radioMaps.remove(floorId);
+        if (deleted == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No fingerprints found for floor");
+        }
+    }
+
+    /**
+     * Locate a scan on the given floor using the compiled radio map.
+     * Returns null when the floor has no fingerprints covering the observed beacons.
+     */
+    public double[] locate(String floorId, Map<String, Integer> observed) {
+        return radioMap(floorId).locate(observed, k);
+    }
+
+    /**
+     * Compile the floor's radio map ahead of the first scan; returns its cell count
+     */
+    public int warm(String floorId) {
+        return radioMap(floorId).size();
+    }
+
+    private FingerprintRadioMap radioMap(String floorId) {
+        return radioMaps.computeIfAbsent(floorId, id -> {
+            FingerprintRadioMap compiled = FingerprintRadioMap.compile(fingerprintRepository.findByFloorId(id));
+            log.info("Compiled radio map for floor {} with {} cells", id, compiled.size());
+            return compiled;
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.wayfinding.indoor.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-device floor classifier. Each scan contributes a probability per floor (normalized
+ * received power); a device's belief is an exponential moving average of those
+ * probabilities, and the reported floor only changes when another floor's belief beats
+ * the current one by a margin for several consecutive scans. This keeps positions from
+ * flipping between floors near atria and stairwells.
+ */
+@Service
+@Slf4j
+public class FloorDetectionService {
+
+    private final Map<String, DeviceFloorState> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong updates = new AtomicLong();
+
+    @Value("${wayfinding.positioning.floor.smoothing:0.3}")
+    private double smoothing = 0.3;
+
+    @Value("${wayfinding.positioning.floor.margin:0.2}")
+    private double margin = 0.2;
+
+    @Value("${wayfinding.positioning.floor.confirmations:2}")
+    private int confirmations = 2;
+
+    @Value("${wayfinding.positioning.floor.session-ttl:10m}")
+    private Duration sessionTtl = Duration.ofMinutes(10);
+
+    private static final int SWEEP_INTERVAL = 1024;
+
+    /**
+     * Update the device's floor belief with the received power per floor of one scan
+     * and return the floor the device is considered to be on.
+     */
+    public FloorDecision update(String deviceId, Map<String, Double> floorPower) {
+        Map<String, Double> probabilities = normalize(floorPower);
+        long now = System.currentTimeMillis();
+
+        FloorDecision[] decision = new FloorDecision[1];
+        sessions.compute(deviceId, (id, state) -> {
+            if (state == null || now - state.lastSeen > sessionTtl.toMillis()) {
+                state = new DeviceFloorState();
+            }
+            decision[0] = state.apply(probabilities);
+            state.lastSeen = now;
+            return state;
+        });
+
+        if (updates.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            evictIdleSessions(now);
+        }
+        return decision[0];
+    }
+
+    public void reset(String deviceId) {
+        sessions.remove(deviceId);
+    }
+
+    int sessionCount() {
+        return sessions.size();
+    }
+
+    private void evictIdleSessions(long now) {
+        long ttl = sessionTtl.toMillis();
+        sessions.entrySet().removeIf(e -> now - e.getValue().lastSeen > ttl);
+    }
+
+    private static Map<String, Double> normalize(Map<String, Double> floorPower) {
+        double total = 0;
+        for (double power : floorPower.values()) {
+            total += power;
+        }
+        Map<String, Double> probabilities = new HashMap<>();
+        for (Map.Entry<String, Double> entry : floorPower.entrySet()) {
+            probabilities.put(entry.getKey(), total > 0 ? entry.getValue() / total : 1.0 / floorPower.size());
+        }
+        return probabilities;
+    }
+
+    /**
+     * Floor chosen for a scan and whether it differs from the device's previous floor
+     */
+    public record FloorDecision(String floorId, boolean changed) {}
+
+    private class DeviceFloorState {
+        final Map<String, Double> belief = new HashMap<>();
+        String currentFloor;
+        String pendingFloor;
+        int pendingCount;
+        long lastSeen;
+
+        FloorDecision apply(Map<String, Double> probabilities) {
+            for (String floorId : belief.keySet()) {
+                belief.put(floorId, (1 - smoothing) * belief.get(floorId));
+            }
+            for (Map.Entry<String, Double> entry : probabilities.entrySet()) {
+                belief.merge(entry.getKey(), smoothing * entry.getValue(), Double::sum);
+            }
+            belief.values().removeIf(b -> b < 1e-4);
+
+            String best = null;
+            double bestBelief = -1;
+            for (Map.Entry<String, Double> entry : belief.entrySet()) {
+                if (probabilities.containsKey(entry.getKey()) && entry.getValue() > bestBelief) {
+                    bestBelief = entry.getValue();
+                    best = entry.getKey();
+                }
+            }
+
+            if (currentFloor == null) {
+                currentFloor = best;
+                return new FloorDecision(currentFloor, false);
+            }
+
+            // The current floor cannot be positioned on without any of its beacons in view
+            if (!probabilities.containsKey(currentFloor)) {
+                return switchTo(best);
+            }
+
+            if (best == null || best.equals(currentFloor)
+                    || bestBelief < belief.getOrDefault(currentFloor, 0.0) + margin) {
+                pendingFloor = null;
+                pendingCount = 0;
+                return new FloorDecision(currentFloor, false);
+            }
+
+            if (best.equals(pendingFloor)) {
+                pendingCount++;
+            } else {
+                pendingFloor = best;
+                pendingCount = 1;
+            }
+            if (pendingCount >= confirmations) {
+                return switchTo(best);
+            }
+            return new FloorDecision(currentFloor, false);
+        }
+
+        private FloorDecision switchTo(String floorId) {
+            boolean changed = floorId != null && !floorId.equals(currentFloor);
+            currentFloor = floorId;
+            pendingFloor = null;
+            pendingCount = 0;
+            return new FloorDecision(currentFloor, changed);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.repository.EdgeLink;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.NodePoint;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Compiled routing graphs per floor, loaded from Mongo on first use. Loading projects only
+ * the routing fields and streams them from a cursor straight into the graph builder, so no
+ * full documents are mapped or held in lists. Nodes and edges are read side by side when
+ * {@link QueryFanOut} is parallel; with the reactive driver on, route requests load their
+ * graphs through ReactiveGraphLoader and this load serves snapshot exports and warm-up
+ * only. Services that change a floor's nodes or edges invalidate it; the next request
+ * recompiles.
+ * <p>
+ * Loads happen outside any map lock (concurrent requests for the same floor wait on one
+ * shared load), so a virtual thread blocked on Mongo does not pin its carrier.
+ */
+@Component
+@Slf4j
+public class FloorGraphCache {
+
+    private final GraphNodeRepository nodeRepository;
+    private final GraphEdgeRepository edgeRepository;
+    private final QueryFanOut queryFanOut;
+
+    private final Map<String, CompiledGraph> graphs = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CompiledGraph>> loading = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public FloorGraphCache(GraphNodeRepository nodeRepository, GraphEdgeRepository edgeRepository,
+                           QueryFanOut queryFanOut) {
+        this.nodeRepository = nodeRepository;
+        this.edgeRepository = edgeRepository;
+        this.queryFanOut = queryFanOut;
+    }
+
+    FloorGraphCache(GraphNodeRepository nodeRepository, GraphEdgeRepository edgeRepository) {
+        this(nodeRepository, edgeRepository, new QueryFanOut(false));
+    }
+
+    /**
+     * Compiled graph of a floor; an empty graph when the floor has no nodes.
+     * Empty graphs are not cached.
+     */
+    public CompiledGraph get(String buildingId, String floorId) {
+        String key = key(buildingId, floorId);
+        CompiledGraph graph = graphs.get(key);
+        if (graph != null) {
+            return graph;
+        }
+
+        CompletableFuture<CompiledGraph> load = new CompletableFuture<>();
+        CompletableFuture<CompiledGraph> pending = loading.putIfAbsent(key, load);
+        if (pending != null) {
+            try {
+                return pending.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+        try {
+            long loadedAt = generation.get();
+            // Another load may have finished between the cache miss and claiming this one
+            CompiledGraph cached = graphs.get(key);
+            CompiledGraph loaded = cached != null ? cached : load(buildingId, floorId);
+            putIfUnchanged(loaded, loadedAt);
+            load.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+
+    /**
+     * Cached graph of a floor, or null without loading it
+     */
+    public CompiledGraph getIfPresent(String buildingId, String floorId) {
+        return graphs.get(key(buildingId, floorId));
+    }
+
+    /**
+     * Counter advanced by every invalidation; pass it to {@link #putIfUnchanged} so a
+     * graph loaded outside the cache is not installed over a newer invalidation.
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Install a graph compiled outside the cache (see {@link ReactiveGraphLoader}) unless
+     * anything was invalidated since {@code loadedAt} was read. Empty graphs are not cached.
+     */
+    public void putIfUnchanged(CompiledGraph graph, long loadedAt) {
+        if (graph.nodeCount() == 0) {
+            return;
+        }
+        boolean[] installed = new boolean[1];
+        graphs.compute(key(graph.getBuildingId(), graph.getFloorId()), (k, current) -> {
+            installed[0] = generation.get() == loadedAt;
+            return installed[0] ? graph : current;
+        });
+        if (installed[0]) {
+            listeners.forEach(l -> l.graphCompiled(graph));
+        }
+    }
+
+    /**
+     * Install an already compiled graph, e.g. from a snapshot. Loads that started before
+     * are not installed over it.
+     */
+    public void put(CompiledGraph graph) {
+        generation.incrementAndGet();
+        graphs.put(key(graph.getBuildingId(), graph.getFloorId()), graph);
+        listeners.forEach(l -> l.graphCompiled(graph));
+    }
+
+    /**
+     * Install a graph restored from a local store without notifying listeners
+     */
+    public void restore(CompiledGraph graph) {
+        graphs.putIfAbsent(key(graph.getBuildingId(), graph.getFloorId()), graph);
+    }
+
+    /**
+     * Reload a cached floor from Mongo and replace it if the stored nodes or edges differ,
+     * e.g. a graph restored from a local store that missed changes made elsewhere. Nothing
+     * happens if the floor was invalidated or replaced meanwhile.
+     *
+     * @return whether the cached graph was replaced or evicted
+     */
+    public boolean refresh(String buildingId, String floorId) {
+        String key = key(buildingId, floorId);
+        long loadedAt = generation.get();
+        CompiledGraph cached = graphs.get(key);
+        if (cached == null) {
+            return false;
+        }
+        CompiledGraph loaded = load(buildingId, floorId);
+        if (loaded.sameAs(cached)) {
+            return false;
+        }
+        if (loaded.nodeCount() > 0) {
+            putIfUnchanged(loaded, loadedAt);
+            return graphs.get(key) == loaded;
+        }
+        boolean[] evicted = new boolean[1];
+        graphs.computeIfPresent(key, (k, current) -> {
+            evicted[0] = generation.get() == loadedAt;
+            return evicted[0] ? null : current;
+        });
+        if (evicted[0]) {
+            generation.incrementAndGet();
+            listeners.forEach(l -> l.graphInvalidated(buildingId, floorId));
+        }
+        return evicted[0];
+    }
+
+    public void invalidate(String buildingId, String floorId) {
+        generation.incrementAndGet();
+        graphs.remove(key(buildingId, floorId));
+        listeners.forEach(l -> l.graphInvalidated(buildingId, floorId));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        graphs.clear();
+        listeners.forEach(Listener::allInvalidated);
+    }
+
+    public int size() {
+        return graphs.size();
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private CompiledGraph load(String buildingId, String floorId) {
+        long started = System.nanoTime();
+        CompiledGraph.Builder builder = CompiledGraph.builder(buildingId, floorId);
+        queryFanOut.both(() -> {
+            try (Stream<NodePoint> nodes = nodeRepository.streamPointsByBuildingIdAndFloorId(buildingId, floorId)) {
+                nodes.forEach(node -> builder.addNode(node.nodeId(), node.x(), node.y()));
+            }
+        }, () -> {
+            try (Stream<EdgeLink> edges = edgeRepository.streamLinksByBuildingIdAndFloorId(buildingId, floorId)) {
+                edges.forEach(edge -> builder.addEdge(edge.fromNodeId(), edge.toNodeId(), edge.weight()));
+            }
+        });
+        CompiledGraph graph = builder.build();
+        log.info("Compiled graph for {}/{}: {} nodes, {} edges in {} ms", buildingId, floorId,
+                graph.nodeCount(), graph.edgeCount() / 2, (System.nanoTime() - started) / 1_000_000);
+        if (builder.droppedEdges() > 0) {
+            log.warn("Dropped {} edges of {}/{} with unknown endpoints or self loops",
+                    builder.droppedEdges(), buildingId, floorId);
+        }
+        return graph;
+    }
+
+    /**
+     * Hook for components that mirror the cache, such as {@link GraphFileStore}
+     */
+    public interface Listener {
+        void graphCompiled(CompiledGraph graph);
+
+        void graphInvalidated(String buildingId, String floorId);
+
+        void allInvalidated();
+    }
+
+    private static String key(String buildingId, String floorId) {
+        return buildingId + "|" + floorId;
+    }
+}
@@ -1,20 +1,28 @@
 package com.wayfinding.indoor.service;
 
 import com.wayfinding.indoor.dto.CreateFloorRequest;
+import com.wayfinding.indoor.dto.MapUploadJob;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
 import com.wayfinding.indoor.model.Floor;
 import com.wayfinding.indoor.repository.FloorRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 @Service
@@ -22,7 +30,15 @@ import java.util.UUID;
 @Slf4j
 public class FloorService {
 
+    private static final Set<String> POSITIONING_METHODS =
+            Set.of("auto", "trilateration", "weighted", "nearest", "fingerprint");
+
     private final FloorRepository floorRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CollectionVersions collectionVersions;
+    private final MapUploadPipeline mapUploadPipeline;
+    private final ChangeLogService changeLog;
+    private final RouteSmoother routeSmoother;
 
     /**
      * Get all floors
@@ -89,20 +105,33 @@ public class FloorService {
                 scale
         );
 
-        // Set map image if provided
-        if (request.getMapImage() != null && !request.getMapImage().isEmpty()) {
-            floor.setMapImage(request.getMapImage());
-        }
-
-        // Set custom map image URL if provided, otherwise use default
+        // Set custom map image URL if provided, otherwise use the default; an inline image
+        // is queued for the map pipeline once the floor exists
+        String inlineMap = null;
+        boolean hasMapImage = request.getMapImage() != null && !request.getMapImage().isEmpty();
         if (request.getMapImageUrl() != null && !request.getMapImageUrl().isEmpty()) {
             floor.setMapImageUrl(request.getMapImageUrl());
+        } else if (hasMapImage && MapImageStore.isUrl(request.getMapImage())) {
+            floor.setMapImageUrl(request.getMapImage().trim());
         } else {
             floor.setMapImageUrl("/maps/" + request.getBuildingId() + "/" + floorId + ".png");
+            if (hasMapImage) {
+                // Rejects bad Base64 before the floor is created
+                MapImageStore.decode(request.getMapImage());
+                inlineMap = request.getMapImage();
+            }
+        }
+
+        if (request.getPositioningMethod() != null && !request.getPositioningMethod().isEmpty()) {
+            floor.setPositioningMethod(validatePositioningMethod(request.getPositioningMethod()));
         }
 
         Floor saved = floorRepository.save(floor);
+        changeLog.upserted(saved.getBuildingId(), Kind.FLOOR, saved.getFloorId(), saved.getId());
         log.info("Floor created successfully with ID: {}", saved.getId());
+        if (inlineMap != null) {
+            queueMapImage(saved, inlineMap);
+        }
         return saved;
     }
 
@@ -113,66 +142,117 @@ public class FloorService {
         log.info("Updating floor with ID: {}", id);
 
         return floorRepository.findById(id).map(floor -> {
+            // Only the fields in the request are written, so map and tile fields set by a
+            // map job that finished since the read are kept
+            Update update = new Update();
             if (request.getFloorNumber() > 0) {
-                floor.setFloorNumber(request.getFloorNumber());
+                update.set("floorNumber", request.getFloorNumber());
             }
             if (request.getName() != null) {
-                floor.setName(request.getName());
+                update.set("name", request.getName());
             }
             if (request.getWidth() > 0) {
-                floor.setWidth(request.getWidth());
+                update.set("width", request.getWidth());
             }
             if (request.getHeight() > 0) {
-                floor.setHeight(request.getHeight());
+                update.set("height", request.getHeight());
             }
             if (request.getScale() > 0) {
-                floor.setScale(request.getScale());
+                update.set("scale", request.getScale());
             }
-            if (request.getMapImage() != null) {
-                floor.setMapImage(request.getMapImage());
+            String mapImageUrl = floor.getMapImageUrl();
+            String inlineMap = null;
+            if (request.getMapImage() != null && !request.getMapImage().isEmpty()) {
+                if (MapImageStore.isUrl(request.getMapImage())) {
+                    mapImageUrl = request.getMapImage().trim();
+                } else {
+                    MapImageStore.decode(request.getMapImage());
+                    inlineMap = request.getMapImage();
+                }
             }
             if (request.getMapImageUrl() != null) {
-                floor.setMapImageUrl(request.getMapImageUrl());
+                mapImageUrl = request.getMapImageUrl();
+            }
+            boolean urlChanged = !Objects.equals(floor.getMapImageUrl(), mapImageUrl);
+            if (urlChanged) {
+                // The tiles belong to the old image; an inline map gets new ones from the pipeline
+                update.set("mapImageUrl", mapImageUrl)
+                        .unset("mapTilesUrl")
+                        .unset("mapTileSize")
+                        .unset("mapTileMaxZoom");
+            }
+            if (request.getPositioningMethod() != null) {
+                update.set("positioningMethod", validatePositioningMethod(request.getPositioningMethod()));
             }
-            floor.setUpdatedAt(LocalDateTime.now());
+            update.set("updatedAt", LocalDateTime.now());
 
-            Floor saved = floorRepository.save(floor);
+            Query byId = Query.query(Criteria.where("_id").is(id));
+            Floor saved = mongoTemplate.findAndModify(byId, update,
+                    FindAndModifyOptions.options().returnNew(true), Floor.class);
+            if (saved == null) {
+                return null;
+            }
+            // Template updates publish no save event
+            collectionVersions.bump(mongoTemplate.getCollectionName(Floor.class));
+            changeLog.upserted(saved.getBuildingId(), Kind.FLOOR, saved.getFloorId(), saved.getId());
+            // Walkable masks are derived from the map scaled to the floor size. A new inline
+            // image is stored under the same URL, so any map in the request counts.
+            boolean mapChanged = inlineMap != null || urlChanged;
+            if (mapChanged || floor.getWidth() != saved.getWidth() || floor.getHeight() != saved.getHeight()) {
+                routeSmoother.invalidate(saved.getBuildingId(), saved.getFloorId());
+            }
+            if (inlineMap != null) {
+                queueMapImage(saved, inlineMap);
+            }
             log.info("Floor updated successfully");
             return saved;
         });
     }
 
     /**
-     * Upload and set a floor map image.
+     * Queue an uploaded floor map for background processing (see MapUploadPipeline).
      */
-    public Optional<Floor> uploadFloorMap(String id, MultipartFile file) throws IOException {
+    public Optional<MapUploadJob> uploadFloorMap(String id, MultipartFile file) throws IOException {
         Optional<Floor> floorOpt = floorRepository.findById(id);
         if (floorOpt.isEmpty()) {
             return Optional.empty();
         }
+        return Optional.of(mapUploadPipeline.submit(floorOpt.get(), file));
+    }
 
-        Floor floor = floorOpt.get();
+    /**
+     * Status of a map upload of a floor
+     */
+    public Optional<MapUploadJob> getMapUploadJob(String id, String jobId) {
+        return mapUploadPipeline.getJob(jobId).filter(job -> job.floorId().equals(id));
+    }
 
-        String originalName = file.getOriginalFilename();
-        String ext = "png";
-        if (originalName != null && originalName.contains(".")) {
-            ext = originalName.substring(originalName.lastIndexOf('.') + 1).toLowerCase();
-        }
-        if (!ext.matches("png|jpg|jpeg|webp")) {
-            ext = "png";
+    /**
+     * Hand an inline (Base64) map image to the map pipeline, which stores it and replaces
+     * its tiles and variants; the floor's map fields change when the job is done.
+     */
+    private void queueMapImage(Floor floor, String mapImage) {
+        try {
+            MapUploadJob job = mapUploadPipeline.submitEncoded(floor, mapImage);
+            log.info("Inline map of floor {} queued as job {}", floor.getFloorId(), job.jobId());
+        } catch (IOException e) {
+            log.error("Failed to stage map image for floor {}: {}", floor.getFloorId(), e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Failed to store map image");
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "Floor saved, but the map processing queue is full; send the map again later");
+            }
+            throw e;
         }
+    }
 
-        Path baseDir = Paths.get(System.getProperty("user.dir"), "uploads", "maps", floor.getBuildingId());
-        String filename = floor.getFloorId() + "." + ext;
-        Path target = baseDir.resolve(filename);
-        Files.createDirectories(target.getParent());
-        file.transferTo(target.toFile());
-
-        floor.setMapImageUrl("/maps/" + floor.getBuildingId() + "/" + filename);
-        floor.setUpdatedAt(LocalDateTime.now());
-        Floor saved = floorRepository.save(floor);
-        log.info("Floor map uploaded: {}", saved.getMapImageUrl());
-        return Optional.of(saved);
+    private String validatePositioningMethod(String method) {
+        String normalized = method.trim().toLowerCase();
+        if (!POSITIONING_METHODS.contains(normalized)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported positioning method '" + method + "'");
+        }
+        return normalized;
     }
 
     /**
@@ -181,8 +261,11 @@ public class FloorService {
     public boolean deleteFloor(String id) {
         log.info("Deleting floor with ID: {}", id);
 
-        if (floorRepository.existsById(id)) {
+        Optional<Floor> floor = floorRepository.findById(id);
+        if (floor.isPresent()) {
             floorRepository.deleteById(id);
+            changeLog.deleted(floor.get().getBuildingId(), Kind.FLOOR, floor.get().getFloorId(), id);
+            routeSmoother.invalidate(floor.get().getBuildingId(), floor.get().getFloorId());
             log.info("Floor deleted successfully");
             return true;
         }
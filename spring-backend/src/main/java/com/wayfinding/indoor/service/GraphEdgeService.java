@@ -1,17 +1,30 @@
 package com.wayfinding.indoor.service;
 
+import com.wayfinding.indoor.dto.BulkImportResult;
 import com.wayfinding.indoor.dto.CreateEdgeRequest;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
 import com.wayfinding.indoor.model.GraphEdge;
 import com.wayfinding.indoor.model.GraphNode;
 import com.wayfinding.indoor.repository.GraphEdgeRepository;
 import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.util.EdgeCsvImporter;
+import com.wayfinding.indoor.util.EdgeCsvImporter.EdgePair;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -20,6 +33,12 @@ public class GraphEdgeService {
 
     private final GraphEdgeRepository edgeRepository;
     private final GraphNodeRepository nodeRepository;
+    private final MongoTemplate mongoTemplate;
+    private final FloorGraphCache graphCache;
+    private final ChangeLogService changeLog;
+
+    @Value("${wayfinding.import.batch-size:1000}")
+    private int batchSize = 1000;
 
     public GraphEdge createEdge(CreateEdgeRequest request) {
         if (request.getFromNodeId() == null || request.getFromNodeId().trim().isEmpty()) {
@@ -48,26 +67,184 @@ public class GraphEdgeService {
         )
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "toNodeId not found"));
 
-        double weight = distance(from.getX(), from.getY(), to.getX(), to.getY());
-
-        GraphEdge edge = new GraphEdge();
-        edge.setFromNodeId(request.getFromNodeId());
-        edge.setToNodeId(request.getToNodeId());
-        edge.setBuildingId(request.getBuildingId());
-        edge.setFloorId(request.getFloorId());
-        edge.setWeight(weight);
-        return edgeRepository.save(edge);
+        GraphEdge saved = edgeRepository.save(toEdge(from, to));
+        graphCache.invalidate(saved.getBuildingId(), saved.getFloorId());
+        changeLog.upserted(saved.getBuildingId(), Kind.EDGE, saved.getFloorId(), saved.getId());
+        return saved;
     }
 
-    public List<GraphEdge> createEdges(List<CreateEdgeRequest> requests) {
+    /**
+     * Create many edges at once. The nodes of each referenced floor are loaded with one
+     * query, every request is validated and weighted in memory, and the edges are written
+     * with a single unordered bulk insert. Nothing is written if any request is invalid.
+     */
+    public BulkImportResult createEdges(List<CreateEdgeRequest> requests) {
         if (requests == null || requests.isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "edges list is required");
         }
-        List<GraphEdge> edges = new java.util.ArrayList<>();
-        for (CreateEdgeRequest request : requests) {
-            edges.add(createEdge(request));
+
+        Map<String, List<CreateEdgeRequest>> byFloor = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateEdgeRequest request = requests.get(i);
+            String problem = missingField(request);
+            if (problem != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "edges[" + i + "]: " + problem);
+            }
+            byFloor.computeIfAbsent(floorKey(request.getBuildingId(), request.getFloorId()), k -> new ArrayList<>())
+                    .add(request);
+        }
+
+        List<GraphEdge> edges = new ArrayList<>(requests.size());
+        for (List<CreateEdgeRequest> floorRequests : byFloor.values()) {
+            CreateEdgeRequest first = floorRequests.get(0);
+            Map<String, GraphNode> nodes = loadFloorNodes(first.getBuildingId(), first.getFloorId());
+            for (CreateEdgeRequest request : floorRequests) {
+                GraphNode from = nodes.get(request.getFromNodeId());
+                if (from == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "fromNodeId not found: " + request.getFromNodeId());
+                }
+                GraphNode to = nodes.get(request.getToNodeId());
+                if (to == null) {
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                            "toNodeId not found: " + request.getToNodeId());
+                }
+                edges.add(toEdge(from, to));
+            }
+        }
+
+        int inserted = insertEdges(edges);
+        for (List<CreateEdgeRequest> floorRequests : byFloor.values()) {
+            graphCache.invalidate(floorRequests.get(0).getBuildingId(), floorRequests.get(0).getFloorId());
+            changeLog.floorReset(floorRequests.get(0).getBuildingId(), Kind.EDGE, floorRequests.get(0).getFloorId());
+        }
+        log.info("Bulk inserted {} edges across {} floors", inserted, byFloor.size());
+        BulkImportResult result = new BulkImportResult();
+        result.setReceived(requests.size());
+        result.setInserted(inserted);
+        return result;
+    }
+
+    /**
+     * Stream a "fromNodeId,toNodeId" CSV into edges of one floor. The floor's nodes are
+     * loaded once, rows are validated as they are read and edges are inserted in
+     * fixed-size batches, so memory use does not grow with the file. Rows referencing
+     * unknown nodes are rejected and reported while the rest are imported. A read failure
+     * stops the import and is reported with the rows imported up to it.
+     */
+    public BulkImportResult importEdgesCsv(String buildingId, String floorId, InputStream csv) {
+        if (buildingId == null || buildingId.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "buildingId is required");
+        }
+        if (floorId == null || floorId.trim().isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "floorId is required");
+        }
+
+        Map<String, GraphNode> nodes = loadFloorNodes(buildingId, floorId);
+        BulkImportResult result = new BulkImportResult();
+        List<GraphEdge> batch = new ArrayList<>(batchSize);
+        long received = 0;
+        long inserted = 0;
+
+        try {
+            EdgeCsvImporter importer = new EdgeCsvImporter(csv);
+            try (importer) {
+                EdgePair pair;
+                while ((pair = importer.next()) != null) {
+                    received++;
+                    GraphNode from = nodes.get(pair.fromNodeId());
+                    GraphNode to = nodes.get(pair.toNodeId());
+                    if (from == null || to == null) {
+                        result.addError("line " + importer.lineNumber() + ": "
+                                + (from == null ? "fromNodeId not found: " + pair.fromNodeId()
+                                                : "toNodeId not found: " + pair.toNodeId()));
+                        continue;
+                    }
+                    batch.add(toEdge(from, to));
+                    if (batch.size() >= batchSize) {
+                        inserted += insertEdges(batch);
+                        batch.clear();
+                    }
+                }
+            } catch (IOException e) {
+                // Earlier batches are committed already; the rows read so far are kept as well
+                received++;
+                result.addError("line " + (importer.lineNumber() + 1) + ": unreadable input, import stopped ("
+                        + e.getMessage() + ")");
+            }
+            inserted += insertEdges(batch);
+
+            long malformed = importer.skippedLines();
+            if (malformed > 0) {
+                received += malformed;
+                result.addErrors(malformed, malformed + " malformed lines skipped (expected fromNodeId,toNodeId)");
+            }
+        } finally {
+            graphCache.invalidate(buildingId, floorId);
+            if (inserted > 0) {
+                changeLog.floorReset(buildingId, Kind.EDGE, floorId);
+            }
+        }
+
+        result.setReceived(received);
+        result.setInserted(inserted);
+        log.info("CSV import into {}/{}: {} rows, {} inserted, {} rejected",
+                buildingId, floorId, received, inserted, result.getRejected());
+        return result;
+    }
+
+    /**
+     * All nodes of a floor keyed by nodeId
+     */
+    Map<String, GraphNode> loadFloorNodes(String buildingId, String floorId) {
+        Map<String, GraphNode> nodes = new HashMap<>();
+        for (GraphNode node : nodeRepository.findByBuildingIdAndFloorId(buildingId, floorId)) {
+            nodes.put(node.getNodeId(), node);
+        }
+        return nodes;
+    }
+
+    GraphEdge toEdge(GraphNode from, GraphNode to) {
+        GraphEdge edge = new GraphEdge();
+        edge.setFromNodeId(from.getNodeId());
+        edge.setToNodeId(to.getNodeId());
+        edge.setBuildingId(from.getBuildingId());
+        edge.setFloorId(from.getFloorId());
+        edge.setWeight(distance(from.getX(), from.getY(), to.getX(), to.getY()));
+        return edge;
+    }
+
+    int insertEdges(List<GraphEdge> edges) {
+        if (edges.isEmpty()) {
+            return 0;
         }
-        return edges;
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphEdge.class)
+                .insert(edges)
+                .execute()
+                .getInsertedCount();
+    }
+
+    private static String missingField(CreateEdgeRequest request) {
+        if (request == null) {
+            return "edge is required";
+        }
+        if (request.getFromNodeId() == null || request.getFromNodeId().trim().isEmpty()) {
+            return "fromNodeId is required";
+        }
+        if (request.getToNodeId() == null || request.getToNodeId().trim().isEmpty()) {
+            return "toNodeId is required";
+        }
+        if (request.getBuildingId() == null || request.getBuildingId().trim().isEmpty()) {
+            return "buildingId is required";
+        }
+        if (request.getFloorId() == null || request.getFloorId().trim().isEmpty()) {
+            return "floorId is required";
+        }
+        return null;
+    }
+
+    private static String floorKey(String buildingId, String floorId) {
+        return buildingId + "|" + floorId;
     }
 
     public List<GraphEdge> listEdges(String buildingId, String floorId) {
@@ -78,10 +255,11 @@ public class GraphEdgeService {
     }
 
     public void deleteById(String edgeId) {
-        if (!edgeRepository.existsById(edgeId)) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "edge not found");
-        }
+        GraphEdge edge = edgeRepository.findById(edgeId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "edge not found"));
         edgeRepository.deleteById(edgeId);
+        graphCache.invalidate(edge.getBuildingId(), edge.getFloorId());
+        changeLog.deleted(edge.getBuildingId(), Kind.EDGE, edge.getFloorId(), edgeId);
     }
 
     double distance(double x1, double y1, double x2, double y2) {
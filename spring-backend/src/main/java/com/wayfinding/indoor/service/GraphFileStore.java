@@ -0,0 +1,201 @@
+package com.wayfinding.indoor.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Local, file-backed copy of the compiled graphs in {@link FloorGraphCache}. Every compiled
+ * floor is written as a snapshot file and every invalidation deletes it, on a background
+ * thread in the order the cache reported them. At startup the files are memory-mapped and
+ * installed in the cache, so routing is warm immediately and the coordinate and edge
+ * arrays of those graphs live in the page cache, off-heap.
+ * <p>
+ * The files only see changes made through this instance, so each restored floor is then
+ * reloaded from Mongo in the background ({@link FloorGraphCache#refresh}) and replaced or
+ * evicted if it changed while the instance was down or on another instance. Point each
+ * instance at its own directory.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class GraphFileStore implements FloorGraphCache.Listener {
+
+    static final String EXTENSION = ".wfg";
+
+    private final FloorGraphCache graphCache;
+
+    @Value("${wayfinding.graph.store.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${wayfinding.graph.store.dir:./data/graphs}")
+    private String dir = "./data/graphs";
+
+    private Path root;
+    private ExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            log.info("Graph file store disabled");
+            return;
+        }
+        root = Paths.get(dir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            log.warn("Graph file store disabled, cannot create {}: {}", root, e.getMessage());
+            root = null;
+            return;
+        }
+
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("graph-store-"));
+        long started = System.nanoTime();
+        List<CompiledGraph> restored = new ArrayList<>();
+        long bytes = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + EXTENSION)) {
+            for (Path file : files) {
+                try {
+                    MappedByteBuffer buffer = map(file);
+                    CompiledGraph graph = GraphSnapshotCodec.decode(buffer);
+                    graphCache.restore(graph);
+                    restored.add(graph);
+                    bytes += buffer.capacity();
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("Discarding unreadable graph file {}: {}", file.getFileName(), e.getMessage());
+                    Files.deleteIfExists(file);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Failed to scan graph file store {}: {}", root, e.getMessage());
+        }
+        graphCache.addListener(this);
+        log.info("Mapped {} floor graphs ({} KB) from {} in {} ms",
+                restored.size(), bytes / 1024, root, (System.nanoTime() - started) / 1_000_000);
+        restored.forEach(graph -> queue(() -> verify(graph.getBuildingId(), graph.getFloorId())));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Wait until the file work queued so far is done
+     */
+    void flush() throws InterruptedException, ExecutionException {
+        executor.submit(() -> { }).get();
+    }
+
+    @Override
+    public void graphCompiled(CompiledGraph graph) {
+        queue(() -> write(graph));
+    }
+
+    @Override
+    public void graphInvalidated(String buildingId, String floorId) {
+        Path file = file(buildingId, floorId);
+        queue(() -> delete(file));
+    }
+
+    @Override
+    public void allInvalidated() {
+        queue(this::deleteAll);
+    }
+
+    private void queue(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Shutting down; the files are verified against Mongo on the next start
+            log.debug("Graph file store stopped, skipping file update");
+        }
+    }
+
+    private void verify(String buildingId, String floorId) {
+        try {
+            if (graphCache.refresh(buildingId, floorId)) {
+                log.info("Restored graph {}/{} was outdated and has been reloaded", buildingId, floorId);
+            }
+        } catch (RuntimeException e) {
+            // Keep serving the restored graph; the next invalidation replaces it
+            log.warn("Failed to verify restored graph {}/{}: {}", buildingId, floorId, e.getMessage());
+        }
+    }
+
+    private void write(CompiledGraph graph) {
+        Path file = file(graph.getBuildingId(), graph.getFloorId());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer snapshot = GraphSnapshotCodec.encode(graph);
+            while (snapshot.hasRemaining()) {
+                channel.write(snapshot);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            log.warn("Failed to store graph {}/{}: {}", graph.getBuildingId(), graph.getFloorId(), e.getMessage());
+            return;
+        }
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to store graph {}/{}: {}", graph.getBuildingId(), graph.getFloorId(), e.getMessage());
+        }
+    }
+
+    private void deleteAll() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, "*" + EXTENSION)) {
+            files.forEach(this::delete);
+        } catch (IOException e) {
+            log.warn("Failed to clear graph file store {}: {}", root, e.getMessage());
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Failed to delete graph file {}: {}", file.getFileName(), e.getMessage());
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    Path file(String buildingId, String floorId) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String name = encoder.encodeToString(buildingId.getBytes(StandardCharsets.UTF_8))
+                + "." + encoder.encodeToString(floorId.getBytes(StandardCharsets.UTF_8));
+        return root.resolve(name + EXTENSION);
+    }
+}
@@ -0,0 +1,117 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.GraphGenerationResult;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.FloorRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Generates a floor's navigation graph from its map ({@link WalkableGraphGenerator}) and
+ * stores it in place of the floor's current nodes and edges. The source is either an
+ * uploaded walkable mask (white = walkable) or the floor's stored map image, where light
+ * pixels count as walkable. Coordinates are scaled from image pixels to the floor's
+ * width/height units when those are set. Images over the map upload pixel limit are
+ * rejected from their header, before any pixels are decoded.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GraphGenerationService {
+
+    private final FloorRepository floorRepository;
+    private final MapImageStore mapImageStore;
+    private final GraphSnapshotService snapshotService;
+
+    @Value("${wayfinding.graph.generate.cell-size:4}")
+    private int cellSize = 4;
+
+    @Value("${wayfinding.graph.generate.luminance-threshold:200}")
+    private int luminanceThreshold = 200;
+
+    @Value("${wayfinding.graph.generate.simplify-tolerance:1.5}")
+    private double simplifyTolerance = 1.5;
+
+    @Value("${wayfinding.graph.generate.min-branch-cells:8}")
+    private int minBranchCells = 8;
+
+    @Value("${wayfinding.graph.generate.max-edge-cells:50}")
+    private int maxEdgeCells = 50;
+
+    @Value("${wayfinding.maps.upload.max-pixels:100000000}")
+    private long maxPixels = 100_000_000L;
+
+    /**
+     * @param mask      walkable mask to use instead of the floor map, may be null
+     * @param threshold luminance threshold overriding the configured one, may be null
+     * @param dryRun    generate and report without replacing the stored graph
+     */
+    public GraphGenerationResult generate(String buildingId, String floorId, MultipartFile mask,
+                                          Integer threshold, boolean dryRun) throws IOException {
+        Floor floor = floorRepository.findByFloorId(floorId)
+                .filter(f -> buildingId.equals(f.getBuildingId()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Floor not found: " + floorId));
+        BufferedImage image = mask != null && !mask.isEmpty() ? read(mask) : read(floor);
+        if (threshold != null && (threshold < 0 || threshold > 255)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "threshold must be between 0 and 255");
+        }
+
+        long started = System.nanoTime();
+        double unitsPerPixelX = floor.getWidth() > 0 ? (double) floor.getWidth() / image.getWidth() : 1;
+        double unitsPerPixelY = floor.getHeight() > 0 ? (double) floor.getHeight() / image.getHeight() : 1;
+        WalkableGraphGenerator.Result result = WalkableGraphGenerator.generate(buildingId, floorId, image,
+                unitsPerPixelX, unitsPerPixelY, new WalkableGraphGenerator.Options(cellSize,
+                        threshold != null ? threshold : luminanceThreshold, simplifyTolerance, minBranchCells,
+                        maxEdgeCells));
+        CompiledGraph graph = result.graph();
+        if (graph.nodeCount() == 0) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "No walkable area found; check the mask or the luminance threshold");
+        }
+        int edges = dryRun ? graph.edgeCount() / 2 : snapshotService.replaceGraph(graph);
+        long millis = (System.nanoTime() - started) / 1_000_000;
+
+        log.info("Generated graph for {}/{} from a {}x{} grid: {} nodes, {} edges in {} ms{}", buildingId, floorId,
+                result.gridWidth(), result.gridHeight(), graph.nodeCount(), edges, millis, dryRun ? " (dry run)" : "");
+        return new GraphGenerationResult(buildingId, floorId, graph.nodeCount(), edges, result.gridWidth(),
+                result.gridHeight(), result.walkableCells(), result.skeletonCells(), !dryRun, millis);
+    }
+
+    private BufferedImage read(MultipartFile mask) throws IOException {
+        try (InputStream in = mask.getInputStream();
+             ImageInputStream image = ImageIO.createImageInputStream(in)) {
+            BufferedImage decoded = MapImageStore.read(image, "Mask", maxPixels);
+            if (decoded == null) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported mask image format");
+            }
+            return decoded;
+        }
+    }
+
+    private BufferedImage read(Floor floor) throws IOException {
+        Path file = mapImageStore.locate(floor.getMapImageUrl());
+        BufferedImage decoded = null;
+        if (file != null && file.toFile().isFile()) {
+            try (ImageInputStream image = ImageIO.createImageInputStream(file.toFile())) {
+                decoded = MapImageStore.read(image, "Map", maxPixels);
+            }
+        }
+        if (decoded == null) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Floor has no readable map image; upload one or send a walkable mask");
+        }
+        return decoded;
+    }
+}
@@ -1,6 +1,7 @@
 package com.wayfinding.indoor.service;
 
 import com.wayfinding.indoor.dto.CreateNodeRequest;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
 import com.wayfinding.indoor.model.GraphNode;
 import com.wayfinding.indoor.repository.GraphNodeRepository;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,9 @@ import java.util.List;
 public class GraphNodeService {
 
     private final GraphNodeRepository nodeRepository;
+    private final FloorGraphCache graphCache;
+    private final ChangeLogService changeLog;
+    private final CollectionVersions collectionVersions;
 
     public GraphNode createNode(CreateNodeRequest request) {
         if (request.getNodeId() == null || request.getNodeId().trim().isEmpty()) {
@@ -46,7 +50,10 @@ public class GraphNodeService {
         node.setFloorId(request.getFloorId());
         node.setX(request.getX());
         node.setY(request.getY());
-        return nodeRepository.save(node);
+        GraphNode saved = nodeRepository.save(node);
+        graphCache.invalidate(saved.getBuildingId(), saved.getFloorId());
+        changeLog.upserted(saved.getBuildingId(), Kind.NODE, saved.getFloorId(), saved.getId());
+        return saved;
     }
 
     public List<GraphNode> createNodes(List<CreateNodeRequest> requests) {
@@ -68,7 +75,7 @@ public class GraphNodeService {
             }
         }
 
-        return nodeRepository.saveAll(
+        List<GraphNode> saved = collectionVersions.batch(() -> nodeRepository.saveAll(
                 requests.stream().map(req -> {
                     GraphNode node = new GraphNode();
                     node.setNodeId(req.getNodeId());
@@ -78,7 +85,13 @@ public class GraphNodeService {
                     node.setY(req.getY());
                     return node;
                 }).toList()
-        );
+        ));
+        saved.forEach(node -> graphCache.invalidate(node.getBuildingId(), node.getFloorId()));
+        saved.stream()
+                .map(node -> List.of(node.getBuildingId(), node.getFloorId()))
+                .distinct()
+                .forEach(floor -> changeLog.floorReset(floor.get(0), Kind.NODE, floor.get(1)));
+        return saved;
     }
 
     public List<GraphNode> listNodes(String buildingId, String floorId) {
@@ -89,10 +102,14 @@ public class GraphNodeService {
     }
 
     public void deleteByNodeId(String nodeId) {
+        List<GraphNode> nodes = nodeRepository.findByNodeId(nodeId);
         long deleted = nodeRepository.deleteByNodeId(nodeId);
         if (deleted == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "nodeId not found");
         }
+        nodes.forEach(node -> changeLog.deleted(node.getBuildingId(), Kind.NODE, node.getFloorId(), node.getId()));
+        // nodeId is not unique across floors, so any floor may have changed
+        graphCache.invalidateAll();
     }
 
     public void deleteByBuildingAndFloor(String buildingId, String floorId) {
@@ -100,5 +117,7 @@ public class GraphNodeService {
         if (deleted == 0) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No nodes found for building/floor");
         }
+        graphCache.invalidate(buildingId, floorId);
+        changeLog.floorReset(buildingId, Kind.NODE, floorId);
     }
 }
@@ -0,0 +1,190 @@
+package com.wayfinding.indoor.service;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Binary snapshot format for {@link CompiledGraph}, little-endian:
+ * <pre>
+ * int    magic "WFG1", int version, int nodeCount n, int edgeCount m
+ * string buildingId, string floorId, n x string nodeId   (int byte length + UTF-8)
+ * padding to an 8-byte boundary
+ * double[n] xs, double[n] ys, int[n+1] offsets, int[m] targets, float[m] weights
+ * </pre>
+ * The numeric sections are aligned, so decoding slices them straight out of the source
+ * buffer; a graph decoded from a memory-mapped file keeps its arrays off-heap. Every edge
+ * must be stored in both directions and self loops are rejected, so a snapshot holds
+ * exactly the edges that are written back to Mongo on import.
+ */
+public final class GraphSnapshotCodec {
+
+    public static final int MAGIC = 0x31474657; // "WFG1" read little-endian
+    public static final int VERSION = 2;
+
+    private GraphSnapshotCodec() {
+    }
+
+    public static ByteBuffer encode(CompiledGraph graph) {
+        int n = graph.nodeCount();
+        int m = graph.edgeCount();
+        byte[] building = utf8(graph.getBuildingId());
+        byte[] floor = utf8(graph.getFloorId());
+        byte[][] ids = new byte[n][];
+        long size = 16L + 4 + building.length + 4 + floor.length;
+        for (int i = 0; i < n; i++) {
+            ids[i] = utf8(graph.nodeId(i));
+            size += 4 + ids[i].length;
+        }
+        size = align(size);
+        size += 8L * n * 2 + 4L * (n + 1) + 4L * m * 2;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph too large for a snapshot");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(m);
+        putBytes(out, building);
+        putBytes(out, floor);
+        for (byte[] id : ids) {
+            putBytes(out, id);
+        }
+        out.position((int) align(out.position()));
+        for (int i = 0; i < n; i++) {
+            out.putDouble(graph.x(i));
+        }
+        for (int i = 0; i < n; i++) {
+            out.putDouble(graph.y(i));
+        }
+        for (int i = 0; i < n; i++) {
+            out.putInt(graph.firstEdge(i));
+        }
+        out.putInt(m);
+        for (int e = 0; e < m; e++) {
+            out.putInt(graph.target(e));
+        }
+        for (int e = 0; e < m; e++) {
+            out.putFloat(graph.weight(e));
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Decode a snapshot starting at the buffer's position. Node ids are copied to the
+     * heap; coordinates and edges remain views over the buffer.
+     *
+     * @throws IllegalArgumentException if the buffer is not a valid snapshot
+     */
+    public static CompiledGraph decode(ByteBuffer source) {
+        ByteBuffer in = source.slice().order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            if (in.remaining() < 16 || in.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a graph snapshot");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported graph snapshot version " + version);
+            }
+            int n = in.getInt();
+            int m = in.getInt();
+            // Every node needs at least a string length and two coordinates, every edge a target
+            if (n < 0 || m < 0 || (long) n * 20 + (long) m * 8 > in.remaining()) {
+                throw new IllegalArgumentException("Corrupt graph snapshot header");
+            }
+            String buildingId = getString(in);
+            String floorId = getString(in);
+            String[] nodeIds = new String[n];
+            for (int i = 0; i < n; i++) {
+                nodeIds[i] = getString(in);
+            }
+            in.position((int) align(in.position()));
+
+            DoubleBuffer xs = doubles(in, n);
+            DoubleBuffer ys = doubles(in, n);
+            IntBuffer offsets = ints(in, n + 1);
+            IntBuffer targets = ints(in, m);
+            FloatBuffer weights = floats(in, m);
+            validate(offsets, targets, n, m);
+            return new CompiledGraph(buildingId, floorId, nodeIds, xs, ys, offsets, targets, weights);
+        } catch (IndexOutOfBoundsException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated graph snapshot", e);
+        }
+    }
+
+    private static void validate(IntBuffer offsets, IntBuffer targets, int n, int m) {
+        if (offsets.get(0) != 0 || offsets.get(n) != m) {
+            throw new IllegalArgumentException("Corrupt graph snapshot offsets");
+        }
+        for (int i = 0; i < n; i++) {
+            if (offsets.get(i) > offsets.get(i + 1)) {
+                throw new IllegalArgumentException("Corrupt graph snapshot offsets");
+            }
+        }
+        // +1 per u->v and -1 per v->u of each node pair (u < v); all must cancel out
+        Map<Long, Integer> balance = new HashMap<>();
+        for (int u = 0; u < n; u++) {
+            for (int e = offsets.get(u); e < offsets.get(u + 1); e++) {
+                int v = targets.get(e);
+                if (v < 0 || v >= n) {
+                    throw new IllegalArgumentException("Corrupt graph snapshot edge targets");
+                }
+                if (v == u) {
+                    throw new IllegalArgumentException("Graph snapshot has a self loop at node " + u);
+                }
+                long pair = (long) Math.min(u, v) * n + Math.max(u, v);
+                balance.merge(pair, u < v ? 1 : -1, Integer::sum);
+            }
+        }
+        long oneWay = balance.values().stream().filter(count -> count != 0).count();
+        if (oneWay > 0) {
+            throw new IllegalArgumentException("Graph snapshot has " + oneWay + " edges stored in one direction only");
+        }
+    }
+
+    private static DoubleBuffer doubles(ByteBuffer in, int count) {
+        ByteBuffer section = in.slice(in.position(), 8 * count).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + 8 * count);
+        return section.asDoubleBuffer();
+    }
+
+    private static FloatBuffer floats(ByteBuffer in, int count) {
+        ByteBuffer section = in.slice(in.position(), 4 * count).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + 4 * count);
+        return section.asFloatBuffer();
+    }
+
+    private static IntBuffer ints(ByteBuffer in, int count) {
+        ByteBuffer section = in.slice(in.position(), 4 * count).order(ByteOrder.LITTLE_ENDIAN);
+        in.position(in.position() + 4 * count);
+        return section.asIntBuffer();
+    }
+
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+        out.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Corrupt graph snapshot string table");
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String value) {
+        return (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+}
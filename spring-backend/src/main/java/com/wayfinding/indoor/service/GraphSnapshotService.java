@@ -0,0 +1,133 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.GraphSnapshotSummary;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.Pair;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export and import of whole-floor graphs as binary snapshots ({@link GraphSnapshotCodec}).
+ * An imported snapshot replaces the floor's nodes and edges in Mongo and is installed as
+ * the floor's compiled graph without recompiling.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class GraphSnapshotService {
+
+    private final MongoTemplate mongoTemplate;
+    private final FloorGraphCache graphCache;
+    private final ChangeLogService changeLog;
+
+    public byte[] exportSnapshot(String buildingId, String floorId) {
+        CompiledGraph graph = graphCache.get(buildingId, floorId);
+        if (graph.nodeCount() == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No nodes found for building/floor");
+        }
+        ByteBuffer encoded = GraphSnapshotCodec.encode(graph);
+        log.info("Exported graph snapshot {}/{}: {} nodes, {} edges, {} bytes", buildingId, floorId,
+                graph.nodeCount(), graph.edgeCount() / 2, encoded.remaining());
+        return encoded.array();
+    }
+
+    /**
+     * Replace a floor's graph with a snapshot. buildingId/floorId override the ids stored
+     * in the snapshot, so a graph can be moved between environments.
+     */
+    public GraphSnapshotSummary importSnapshot(byte[] snapshot, String buildingId, String floorId) {
+        if (snapshot == null || snapshot.length == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "snapshot is required");
+        }
+        CompiledGraph graph;
+        try {
+            graph = GraphSnapshotCodec.decode(ByteBuffer.wrap(snapshot));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        String targetBuilding = buildingId != null && !buildingId.isBlank() ? buildingId : graph.getBuildingId();
+        String targetFloor = floorId != null && !floorId.isBlank() ? floorId : graph.getFloorId();
+        if (targetBuilding.isBlank() || targetFloor.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "buildingId and floorId are required");
+        }
+        graph = graph.relocate(targetBuilding, targetFloor);
+        int edges = replaceGraph(graph);
+
+        log.info("Imported graph snapshot into {}/{}: {} nodes, {} edges",
+                targetBuilding, targetFloor, graph.nodeCount(), edges);
+        return new GraphSnapshotSummary(targetBuilding, targetFloor, graph.nodeCount(), edges, snapshot.length);
+    }
+
+    /**
+     * Replace the nodes and edges of the graph's floor in Mongo and install the graph as
+     * the floor's compiled graph. The new graph is written before the old one is removed,
+     * so readers never find the floor empty: nodes are upserted by nodeId, then nodes
+     * missing from the graph and the previous edges are deleted.
+     *
+     * @return number of edges written
+     */
+    public int replaceGraph(CompiledGraph graph) {
+        String buildingId = graph.getBuildingId();
+        String floorId = graph.getFloorId();
+        List<Pair<Query, Update>> nodes = new ArrayList<>(graph.nodeCount());
+        List<String> nodeIds = new ArrayList<>(graph.nodeCount());
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            nodeIds.add(graph.nodeId(i));
+            nodes.add(Pair.of(
+                    Query.query(floor(buildingId, floorId).and("nodeId").is(graph.nodeId(i))),
+                    new Update().set("x", graph.x(i)).set("y", graph.y(i))));
+        }
+        // Each undirected edge is stored once per direction; write it once
+        List<GraphEdge> edges = new ArrayList<>(graph.edgeCount() / 2);
+        for (int u = 0; u < graph.nodeCount(); u++) {
+            for (int e = graph.firstEdge(u); e < graph.endEdge(u); e++) {
+                int v = graph.target(e);
+                if (u < v) {
+                    GraphEdge edge = new GraphEdge();
+                    edge.setFromNodeId(graph.nodeId(u));
+                    edge.setToNodeId(graph.nodeId(v));
+                    edge.setBuildingId(buildingId);
+                    edge.setFloorId(floorId);
+                    edge.setWeight(graph.weight(e));
+                    edges.add(edge);
+                }
+            }
+        }
+
+        graphCache.invalidate(buildingId, floorId);
+        List<Object> previousEdges = mongoTemplate.findDistinct(
+                Query.query(floor(buildingId, floorId)), "_id", GraphEdge.class, Object.class);
+        if (!nodes.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class).upsert(nodes).execute();
+        }
+        if (!edges.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphEdge.class).insert(edges).execute();
+        }
+        if (!previousEdges.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(previousEdges)), GraphEdge.class);
+        }
+        mongoTemplate.remove(Query.query(floor(buildingId, floorId).and("nodeId").nin(nodeIds)), GraphNode.class);
+        graphCache.put(graph);
+        changeLog.floorReset(buildingId, Kind.NODE, floorId);
+        changeLog.floorReset(buildingId, Kind.EDGE, floorId);
+        return edges.size();
+    }
+
+    private static Criteria floor(String buildingId, String floorId) {
+        return Criteria.where("buildingId").is(buildingId).and("floorId").is(floorId);
+    }
+}
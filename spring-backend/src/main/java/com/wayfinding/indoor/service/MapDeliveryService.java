@@ -0,0 +1,192 @@
+package com.wayfinding.indoor.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves floor map files for delivery: picks a precomputed AVIF or WebP variant when
+ * the client accepts it and one exists, and describes the file with a content-hash ETag.
+ * Hashes are cached per file and recomputed only when its size or mtime changes.
+ * <p>
+ * Variants ({file}.avif, {file}.webp next to the original) are encoded by the
+ * {@link MapUploadPipeline} with
+ * whatever ImageIO writer plugins are on the classpath; the JDK ships none for these
+ * formats, so without a plugin only the original is served. A variant is kept only when
+ * it is smaller than the original.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MapDeliveryService {
+
+    /**
+     * Variant formats in order of preference
+     */
+    private static final List<MediaType> VARIANTS = List.of(
+            MediaType.parseMediaType("image/avif"),
+            MediaType.parseMediaType("image/webp"));
+
+    private final MapImageStore mapImageStore;
+
+    @Value("${wayfinding.maps.variants.enabled:true}")
+    private boolean variantsEnabled = true;
+
+    private final Map<Path, MapFile> described = new ConcurrentHashMap<>();
+
+    /**
+     * File to send for /maps/{buildingId}/{file}, or null when there is none
+     *
+     * @param accepted media types from the request's Accept header
+     */
+    public MapFile resolve(String buildingId, String file, List<MediaType> accepted) throws IOException {
+        Path original;
+        try {
+            original = mapImageStore.locate("/maps/" + buildingId + "/" + file);
+        } catch (ResponseStatusException e) {
+            return null;
+        }
+        if (original == null || !Files.isRegularFile(original)) {
+            return null;
+        }
+        for (MediaType variant : VARIANTS) {
+            if (accepts(accepted, variant)) {
+                Path candidate = variantPath(original, variant);
+                if (Files.isRegularFile(candidate)) {
+                    return describe(candidate, variant, true);
+                }
+            }
+        }
+        MediaType type = MediaTypeFactory.getMediaType(original.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        return describe(original, type, false);
+    }
+
+    /**
+     * Remove the variants of a map image, so a replaced image is not shadowed by stale ones
+     */
+    public void removeVariants(Path image) throws IOException {
+        for (MediaType variant : VARIANTS) {
+            Files.deleteIfExists(variantPath(image, variant));
+        }
+    }
+
+    /**
+     * Encode the compressed variants of a map image, replacing any existing ones
+     *
+     * @return number of variants written
+     */
+    public int precomputeVariants(Path image) throws IOException {
+        removeVariants(image);
+        if (!variantsEnabled) {
+            return 0;
+        }
+        BufferedImage source = null;
+        int written = 0;
+        for (MediaType variant : VARIANTS) {
+            Path target = variantPath(image, variant);
+            Iterator<ImageWriter> writers = ImageIO.getImageWritersByMIMEType(variant.toString());
+            if (!writers.hasNext()) {
+                log.debug("No ImageIO writer for {}, variant skipped", variant);
+                continue;
+            }
+            if (source == null) {
+                source = ImageIO.read(image.toFile());
+                if (source == null) {
+                    return 0;
+                }
+            }
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            try {
+                ImageWriter writer = writers.next();
+                try (OutputStream out = Files.newOutputStream(tmp);
+                     var imageOut = ImageIO.createImageOutputStream(out)) {
+                    writer.setOutput(imageOut);
+                    writer.write(source);
+                } finally {
+                    writer.dispose();
+                }
+                if (Files.size(tmp) < Files.size(image)) {
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    written++;
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+        }
+        return written;
+    }
+
+    private MapFile describe(Path file, MediaType type, boolean variant) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long size = attributes.size();
+        long modified = attributes.lastModifiedTime().toMillis();
+        MapFile cached = described.get(file);
+        if (cached != null && cached.length() == size && cached.lastModified() == modified) {
+            return cached;
+        }
+        MapFile fresh = new MapFile(file, type, size, modified, "\"" + hash(file) + "\"", variant);
+        described.put(file, fresh);
+        return fresh;
+    }
+
+    private static boolean accepts(List<MediaType> accepted, MediaType type) {
+        for (MediaType mediaType : accepted) {
+            // Only explicit listings count; image/* and */* alone do not prove decoder support
+            if (mediaType.getType().equals(type.getType()) && mediaType.getSubtype().equals(type.getSubtype())
+                    && mediaType.getQualityValue() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Path variantPath(Path original, MediaType variant) {
+        return original.resolveSibling(original.getFileName() + "." + variant.getSubtype());
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+
+    /**
+     * A map file ready to send; etag is a quoted strong validator of its content
+     */
+    public record MapFile(Path path, MediaType contentType, long length, long lastModified, String etag,
+                          boolean variant) {}
+}
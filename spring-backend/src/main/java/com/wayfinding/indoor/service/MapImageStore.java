@@ -0,0 +1,181 @@
+package com.wayfinding.indoor.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * Floor map images as files under {@code wayfinding.maps.dir}, served as static resources
+ * under /maps/{buildingId}/{file} (see MapController). Floor documents only keep the URL, so
+ * reading a floor never transfers image bytes.
+ */
+@Component
+public class MapImageStore {
+
+    private static final Set<String> EXTENSIONS = Set.of("png", "jpg", "jpeg", "webp");
+
+    @Value("${wayfinding.maps.dir:./uploads/maps}")
+    private String dir = "./uploads/maps";
+
+    /**
+     * Store an uploaded image and return its URL. Unknown extensions are stored as png.
+     */
+    public String save(String buildingId, String floorId, String extension, InputStream content) throws IOException {
+        String ext = extension != null && EXTENSIONS.contains(extension.toLowerCase()) ? extension.toLowerCase() : "png";
+        String filename = floorId + "." + ext;
+        Path target = resolve(buildingId, filename);
+        Files.createDirectories(target.getParent());
+        Path tmp = Files.createTempFile(target.getParent(), filename, ".tmp");
+        try {
+            Files.copy(content, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return url(buildingId, filename);
+    }
+
+    /**
+     * Store a Base64 image (plain or a data: URI) and return its URL.
+     *
+     * @throws ResponseStatusException 400 when the value is not valid Base64
+     */
+    public String saveEncoded(String buildingId, String floorId, String encoded) throws IOException {
+        EncodedImage image = decode(encoded);
+        return save(buildingId, floorId, image.extension(), new ByteArrayInputStream(image.bytes()));
+    }
+
+    /**
+     * Bytes and extension of a Base64 image (plain or a data: URI); plain Base64 is taken as png.
+     *
+     * @throws ResponseStatusException 400 when the value is not valid Base64
+     */
+    public static EncodedImage decode(String encoded) {
+        String ext = "png";
+        String data = encoded.trim();
+        if (data.startsWith("data:")) {
+            int comma = data.indexOf(',');
+            if (comma < 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed map image data URI");
+            }
+            String header = data.substring(5, comma).toLowerCase();
+            if (header.startsWith("image/")) {
+                int end = header.indexOf(';');
+                ext = header.substring(6, end < 0 ? header.length() : end);
+            }
+            data = data.substring(comma + 1);
+        }
+        byte[] bytes;
+        try {
+            // Line breaks are common in stored Base64; anything else outside the alphabet is an error
+            bytes = Base64.getDecoder().decode(data.replaceAll("\\s", ""));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Map image is not valid Base64");
+        }
+        if (bytes.length == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Map image is empty");
+        }
+        return new EncodedImage(ext, bytes);
+    }
+
+    /**
+     * Decode the first image after checking its size from the header, or null when no
+     * reader understands the format
+     *
+     * @throws ResponseStatusException 413 when the image has more than maxPixels pixels
+     */
+    public static BufferedImage read(ImageInputStream in, String what, long maxPixels) throws IOException {
+        Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+        if (readers == null || !readers.hasNext()) {
+            return null;
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(in, true, true);
+            int width = reader.getWidth(0);
+            int height = reader.getHeight(0);
+            if ((long) width * height > maxPixels) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        what + " is " + width + "x" + height + ", more than " + maxPixels + " pixels");
+            }
+            return reader.read(0);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    /**
+     * Keep an undecodable legacy value next to the images instead of dropping it
+     */
+    public Path saveRaw(String buildingId, String floorId, String value) throws IOException {
+        Path target = resolve(buildingId, floorId + ".invalid.b64");
+        Files.createDirectories(target.getParent());
+        Files.writeString(target, value, StandardCharsets.UTF_8);
+        return target;
+    }
+
+    /**
+     * Local file behind a /maps/{buildingId}/{file} URL, or null for other URLs
+     */
+    public Path locate(String mapImageUrl) {
+        if (mapImageUrl == null || !mapImageUrl.startsWith("/maps/")) {
+            return null;
+        }
+        String[] parts = mapImageUrl.substring("/maps/".length()).split("/");
+        if (parts.length != 2) {
+            return null;
+        }
+        return resolve(parts[0], parts[1]);
+    }
+
+    /**
+     * Directory holding the tile pyramids of a floor, {dir}/{buildingId}/{floorId}.tiles
+     */
+    public Path tileDirectory(String buildingId, String floorId) {
+        return resolve(buildingId, floorId + ".tiles");
+    }
+
+    /**
+     * Whether a legacy mapImage value is already a link rather than image content
+     */
+    public static boolean isUrl(String value) {
+        String trimmed = value.trim();
+        return trimmed.startsWith("/") || trimmed.startsWith("http://") || trimmed.startsWith("https://");
+    }
+
+    private Path resolve(String buildingId, String filename) {
+        if (buildingId == null || buildingId.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Map images need a building id");
+        }
+        Path root = Paths.get(dir).toAbsolutePath().normalize();
+        Path target = root.resolve(buildingId).resolve(filename).normalize();
+        // Ids become path segments; keep them from escaping {root}/{buildingId}/
+        if (!root.equals(target.getParent().getParent()) || !target.getFileName().toString().equals(filename)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid building or floor id for a map image");
+        }
+        return target;
+    }
+
+    private static String url(String buildingId, String filename) {
+        return "/maps/" + buildingId + "/" + filename;
+    }
+
+    public record EncodedImage(String extension, byte[] bytes) {}
+}
@@ -0,0 +1,168 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.Floor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Cuts floor maps into a z/x/y pyramid of PNG tiles so clients only download what is on
+ * screen. Level maxZoom holds the map at full resolution and every level below halves
+ * it, down to level 0 where the whole map fits one tile. Tiles are written under a
+ * version taken from the image's content hash, so tile URLs never change meaning and can
+ * be cached forever; a new upload produces a new version and the old one is removed.
+ * <p>
+ * Generation runs as a step of the {@link MapUploadPipeline}, off the request threads.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MapTileService {
+
+    private final MapImageStore mapImageStore;
+
+    @Value("${wayfinding.maps.tiles.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${wayfinding.maps.tiles.size:256}")
+    private int tileSize = 256;
+
+    /**
+     * Generate the pyramid of the floor's current map image and record it on the floor
+     * (not saved). Leaves the floor untouched when tiling is disabled or the image cannot
+     * be tiled.
+     */
+    public TilePyramid generate(Floor floor) throws IOException {
+        Path image = mapImageStore.locate(floor.getMapImageUrl());
+        if (!enabled || image == null) {
+            return null;
+        }
+        TilePyramid pyramid = generate(floor.getBuildingId(), floor.getFloorId(), image);
+        if (pyramid != null) {
+            floor.setMapTilesUrl(pyramid.urlTemplate());
+            floor.setMapTileSize(pyramid.tileSize());
+            floor.setMapTileMaxZoom(pyramid.maxZoom());
+        }
+        return pyramid;
+    }
+
+    /**
+     * Tile file of a pyramid version, or null when it does not exist
+     */
+    public Path tile(String buildingId, String floorId, String version, int z, int x, int y) {
+        if (!version.matches("[0-9a-f]{1,64}") || z < 0 || x < 0 || y < 0) {
+            return null;
+        }
+        Path file = mapImageStore.tileDirectory(buildingId, floorId)
+                .resolve(version).resolve(Integer.toString(z)).resolve(Integer.toString(x)).resolve(y + ".png");
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    /**
+     * Write the pyramid of an image and drop older versions. Returns null when the image
+     * cannot be decoded (e.g. WebP, which ImageIO does not read).
+     */
+    TilePyramid generate(String buildingId, String floorId, Path image) throws IOException {
+        long started = System.nanoTime();
+        byte[] bytes = Files.readAllBytes(image);
+        String version = HexFormat.of().formatHex(sha256().digest(bytes)).substring(0, 16);
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(bytes));
+        if (source == null) {
+            log.warn("No tiles for floor {}: unsupported image format {}", floorId, image.getFileName());
+            return null;
+        }
+
+        int maxZoom = maxZoom(source.getWidth(), source.getHeight(), tileSize);
+        Path floorTiles = mapImageStore.tileDirectory(buildingId, floorId);
+        Path root = floorTiles.resolve(version);
+        int tiles = 0;
+        BufferedImage level = source;
+        for (int z = maxZoom; z >= 0; z--) {
+            if (z < maxZoom) {
+                level = halve(level);
+            }
+            tiles += writeLevel(level, root.resolve(Integer.toString(z)));
+        }
+        removeOtherVersions(floorTiles, version);
+
+        log.info("Generated {} tiles (zoom 0-{}) for floor {} in {} ms", tiles, maxZoom, floorId,
+                (System.nanoTime() - started) / 1_000_000);
+        String urlTemplate = "/api/maps/" + buildingId + "/" + floorId + "/tiles/" + version + "/{z}/{x}/{y}.png";
+        return new TilePyramid(version, tileSize, maxZoom, tiles, urlTemplate);
+    }
+
+    /**
+     * Smallest zoom at which the map is at most 2^zoom tiles wide and high
+     */
+    static int maxZoom(int width, int height, int tileSize) {
+        int zoom = 0;
+        while ((long) tileSize << zoom < Math.max(width, height)) {
+            zoom++;
+        }
+        return zoom;
+    }
+
+    private int writeLevel(BufferedImage level, Path dir) throws IOException {
+        int columns = (level.getWidth() + tileSize - 1) / tileSize;
+        int rows = (level.getHeight() + tileSize - 1) / tileSize;
+        for (int x = 0; x < columns; x++) {
+            Path column = Files.createDirectories(dir.resolve(Integer.toString(x)));
+            for (int y = 0; y < rows; y++) {
+                // Edge tiles keep the full tile size; the area outside the map is transparent
+                BufferedImage tile = new BufferedImage(tileSize, tileSize, BufferedImage.TYPE_INT_ARGB);
+                Graphics2D g = tile.createGraphics();
+                g.drawImage(level, -x * tileSize, -y * tileSize, null);
+                g.dispose();
+                ImageIO.write(tile, "png", column.resolve(y + ".png").toFile());
+            }
+        }
+        return columns * rows;
+    }
+
+    private static BufferedImage halve(BufferedImage image) {
+        int width = Math.max(1, (image.getWidth() + 1) / 2);
+        int height = Math.max(1, (image.getHeight() + 1) / 2);
+        BufferedImage half = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = half.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return half;
+    }
+
+    private static void removeOtherVersions(Path floorTiles, String version) throws IOException {
+        try (DirectoryStream<Path> versions = Files.newDirectoryStream(floorTiles)) {
+            for (Path dir : versions) {
+                if (!dir.getFileName().toString().equals(version)) {
+                    FileSystemUtils.deleteRecursively(dir);
+                }
+            }
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record TilePyramid(String version, int tileSize, int maxZoom, int tiles, String urlTemplate) {}
+}
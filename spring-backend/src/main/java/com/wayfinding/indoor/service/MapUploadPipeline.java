@@ -0,0 +1,350 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.MapUploadJob;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.FloorRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Processes floor map uploads off the request threads; inline (Base64) maps sent with
+ * floor create and update requests take the same path, so every stored map gets its
+ * checks, tiles and variants. The request only spools the file to a temp file and
+ * queues a job; a worker then:
+ * <ol>
+ *   <li>reads the image header and rejects images over max-pixels before decoding,</li>
+ *   <li>checks the aspect ratio against the floor's width/height (when set),</li>
+ *   <li>decodes and downscales images whose longer side exceeds max-edge,</li>
+ *   <li>stores the map and generates the tile pyramid and AVIF/WebP variants,</li>
+ *   <li>sets the map, tile and (unset) size fields on the floor.</li>
+ * </ol>
+ * Only those fields are written, so floor edits made while the job ran are kept. Jobs of
+ * one floor run one after another, and a job still waiting when a newer one for its floor
+ * arrives is skipped, so the floor's image, tiles and variants always come from one job.
+ * The queue is bounded; when it is full, uploads get 503 instead of piling up on disk.
+ * Job states are kept in memory for the retention period after they finish.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MapUploadPipeline {
+
+    private final FloorRepository floorRepository;
+    private final MongoTemplate mongoTemplate;
+    private final CollectionVersions collectionVersions;
+    private final MapImageStore mapImageStore;
+    private final MapTileService mapTileService;
+    private final MapDeliveryService mapDeliveryService;
+    private final RouteSmoother routeSmoother;
+    private final ChangeLogService changeLog;
+
+    @Value("${wayfinding.maps.upload.workers:2}")
+    private int workers = 2;
+
+    @Value("${wayfinding.maps.upload.queue-capacity:16}")
+    private int queueCapacity = 16;
+
+    @Value("${wayfinding.maps.upload.max-edge:8192}")
+    private int maxEdge = 8192;
+
+    @Value("${wayfinding.maps.upload.max-pixels:100000000}")
+    private long maxPixels = 100_000_000L;
+
+    @Value("${wayfinding.maps.upload.aspect-tolerance:0.02}")
+    private double aspectTolerance = 0.02;
+
+    @Value("${wayfinding.maps.upload.retention-minutes:60}")
+    private long retentionMinutes = 60;
+
+    private final Map<String, MapUploadJob> jobs = new ConcurrentHashMap<>();
+    // Newest job per floor, and the lock its jobs run under
+    private final Map<String, String> latest = new ConcurrentHashMap<>();
+    private final Map<String, Object> floorLocks = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        int threads = Math.max(1, workers);
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), new CustomizableThreadFactory("map-upload-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Spool an upload and queue it for processing
+     *
+     * @throws ResponseStatusException 503 when the queue is full
+     */
+    public MapUploadJob submit(Floor floor, MultipartFile file) throws IOException {
+        String ext = extension(file.getOriginalFilename());
+        Path staged = Files.createTempFile("map-upload-", "." + ext);
+        try {
+            file.transferTo(staged);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        return enqueue(floor, staged, ext, file.getSize());
+    }
+
+    /**
+     * Queue an inline (Base64) map image of a floor. It takes the same path as an upload,
+     * so its size is checked and its tiles and variants are replaced with it.
+     *
+     * @throws ResponseStatusException 400 when the value is not valid Base64, 503 when the
+     *                                 queue is full
+     */
+    public MapUploadJob submitEncoded(Floor floor, String encoded) throws IOException {
+        MapImageStore.EncodedImage image = MapImageStore.decode(encoded);
+        String ext = extension("map." + image.extension());
+        Path staged = Files.createTempFile("map-upload-", "." + ext);
+        try {
+            Files.write(staged, image.bytes());
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(staged);
+            throw e;
+        }
+        return enqueue(floor, staged, ext, image.bytes().length);
+    }
+
+    private MapUploadJob enqueue(Floor floor, Path staged, String ext, long bytes) throws IOException {
+        evictExpired();
+        MapUploadJob job = MapUploadJob.queued(UUID.randomUUID().toString(), floor.getId());
+        jobs.put(job.jobId(), job);
+        String previous = latest.put(floor.getId(), job.jobId());
+        try {
+            executor.execute(() -> process(job, staged, ext));
+        } catch (RejectedExecutionException e) {
+            // A rejected map must not supersede the one already waiting
+            if (previous == null) {
+                latest.remove(floor.getId(), job.jobId());
+            } else {
+                latest.replace(floor.getId(), job.jobId(), previous);
+            }
+            jobs.remove(job.jobId());
+            Files.deleteIfExists(staged);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Map processing queue is full, retry later");
+        }
+        log.info("Queued map upload {} for floor {} ({} bytes)", job.jobId(), floor.getFloorId(), bytes);
+        return job;
+    }
+
+    public Optional<MapUploadJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    void process(MapUploadJob queued, Path staged, String ext) {
+        try {
+            // Jobs of one floor share its files and fields, so they run one at a time and
+            // only the newest of those waiting is applied
+            synchronized (floorLocks.computeIfAbsent(queued.floorId(), id -> new Object())) {
+                if (!queued.jobId().equals(latest.get(queued.floorId()))) {
+                    jobs.put(queued.jobId(), queued.failed("Superseded by a newer map of the floor"));
+                    log.info("Skipped map upload {}: superseded", queued.jobId());
+                    return;
+                }
+                jobs.put(queued.jobId(), apply(queued, staged, ext));
+                latest.remove(queued.floorId(), queued.jobId());
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(staged);
+            } catch (IOException e) {
+                log.warn("Could not remove staged upload {}: {}", staged, e.getMessage());
+            }
+        }
+    }
+
+    private MapUploadJob apply(MapUploadJob queued, Path staged, String ext) {
+        jobs.put(queued.jobId(), queued.processing());
+        long started = System.nanoTime();
+        try {
+            MapUploadJob done = run(queued, staged, ext);
+            log.info("Processed map upload {} in {} ms", queued.jobId(), (System.nanoTime() - started) / 1_000_000);
+            return done;
+        } catch (ResponseStatusException e) {
+            log.warn("Rejected map upload {}: {}", queued.jobId(), e.getReason());
+            return queued.failed(e.getReason());
+        } catch (IOException | RuntimeException e) {
+            log.error("Map upload {} failed: {}", queued.jobId(), e.getMessage());
+            return queued.failed("Processing failed: " + e.getMessage());
+        }
+    }
+
+    private MapUploadJob run(MapUploadJob job, Path staged, String ext) throws IOException {
+        Floor floor = floorRepository.findById(job.floorId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Floor no longer exists"));
+
+        // Dimensions come from the header, so an image bomb is rejected before it is decoded
+        int[] size = readSize(staged);
+        int width = size[0];
+        int height = size[1];
+        if ((long) width * height > maxPixels) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Map is " + width + "x" + height + ", more than " + maxPixels + " pixels");
+        }
+        if (floor.getWidth() > 0 && floor.getHeight() > 0) {
+            double expected = (double) floor.getWidth() / floor.getHeight();
+            double actual = (double) width / height;
+            if (Math.abs(actual / expected - 1) > aspectTolerance) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Map is " + width + "x" + height
+                        + ", which does not match the floor's " + floor.getWidth() + "x" + floor.getHeight());
+            }
+        }
+
+        String message = null;
+        String url;
+        if (Math.max(width, height) > maxEdge) {
+            BufferedImage source = ImageIO.read(staged.toFile());
+            if (source == null) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Map image cannot be decoded");
+            }
+            BufferedImage scaled = downscale(source, maxEdge);
+            message = "Downscaled from " + width + "x" + height;
+            width = scaled.getWidth();
+            height = scaled.getHeight();
+            Path png = Files.createTempFile("map-upload-", ".png");
+            try {
+                ImageIO.write(scaled, "png", png.toFile());
+                try (InputStream content = Files.newInputStream(png)) {
+                    url = mapImageStore.save(floor.getBuildingId(), floor.getFloorId(), "png", content);
+                }
+            } finally {
+                Files.deleteIfExists(png);
+            }
+        } else {
+            try (InputStream content = Files.newInputStream(staged)) {
+                url = mapImageStore.save(floor.getBuildingId(), floor.getFloorId(), ext, content);
+            }
+        }
+
+        Path image = mapImageStore.locate(url);
+        floor.setMapImageUrl(url);
+        mapDeliveryService.precomputeVariants(image);
+        mapTileService.generate(floor);
+        floor.setUpdatedAt(LocalDateTime.now());
+        Query byId = Query.query(Criteria.where("_id").is(floor.getId()));
+        Update update = new Update()
+                .set("mapImageUrl", floor.getMapImageUrl())
+                .set("mapTilesUrl", floor.getMapTilesUrl())
+                .set("mapTileSize", floor.getMapTileSize())
+                .set("mapTileMaxZoom", floor.getMapTileMaxZoom())
+                .set("updatedAt", floor.getUpdatedAt());
+        if (mongoTemplate.updateFirst(byId, update, Floor.class).getMatchedCount() == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Floor no longer exists");
+        }
+        if (floor.getWidth() <= 0 || floor.getHeight() <= 0) {
+            // Only while still unset; an edit during processing wins
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("_id").is(floor.getId())
+                            .orOperator(Criteria.where("width").lte(0), Criteria.where("height").lte(0))),
+                    new Update().set("width", width).set("height", height),
+                    Floor.class);
+            floor.setWidth(width);
+            floor.setHeight(height);
+        }
+        collectionVersions.bump(mongoTemplate.getCollectionName(Floor.class));
+        changeLog.upserted(floor.getBuildingId(), Kind.FLOOR, floor.getFloorId(), floor.getId());
+        routeSmoother.invalidate(floor.getBuildingId(), floor.getFloorId());
+        return job.succeeded(width, height, url, message);
+    }
+
+    /**
+     * Width and height from the image header, without decoding pixels
+     */
+    private static int[] readSize(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Unsupported map image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Fit the image into maxEdge, halving first so bilinear filtering never skips pixels
+     */
+    static BufferedImage downscale(BufferedImage image, int maxEdge) {
+        double scale = (double) maxEdge / Math.max(image.getWidth(), image.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = resize(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = resize(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = resized.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return resized;
+    }
+
+    private void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(retentionMinutes);
+        jobs.values().removeIf(job -> job.isFinished() && job.finishedAt().isBefore(cutoff));
+    }
+
+    private static String extension(String filename) {
+        if (filename != null && filename.contains(".")) {
+            String ext = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase();
+            if (ext.matches("[a-z0-9]{1,5}")) {
+                return ext;
+            }
+        }
+        return "png";
+    }
+}
@@ -6,9 +6,12 @@ import com.wayfinding.indoor.dto.NavigationResponse.RoutePoint;
 import com.wayfinding.indoor.dto.NavigationRecalculateRequest;
 import com.wayfinding.indoor.model.NavigationNode;
 import com.wayfinding.indoor.repository.NavigationNodeRepository;
+import com.wayfinding.indoor.repository.ReactiveNavigationNodeRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
 
 import java.util.*;
 
@@ -18,20 +21,38 @@ import java.util.*;
 public class NavigationService {
 
     private final NavigationNodeRepository nodeRepository;
+    private final ReactiveNavigationNodeRepository reactiveNodeRepository;
+
+    @Value("${wayfinding.reactive.enabled:true}")
+    private boolean reactive = true;
 
     /**
      * Compute navigation route from start to destination.
      * For Phase 1, uses simple direct path or A* if nodes are available.
      */
     public NavigationResponse computeRoute(NavigationRequest request) {
+        return computeRoute(request, nodeRepository.findByFloorId(request.getFloorId()));
+    }
+
+    /**
+     * {@link #computeRoute(NavigationRequest)} with the floor's nodes read through the
+     * reactive driver, so the caller's thread is not held while Mongo responds.
+     */
+    public Mono<NavigationResponse> computeRouteAsync(NavigationRequest request) {
+        if (!reactive) {
+            return Mono.fromCallable(() -> computeRoute(request));
+        }
+        return reactiveNodeRepository.findByFloorId(request.getFloorId())
+                .collectList()
+                .map(nodes -> computeRoute(request, nodes));
+    }
+
+    private NavigationResponse computeRoute(NavigationRequest request, List<NavigationNode> nodes) {
         List<RoutePoint> route = new ArrayList<>();
 
         // Add start point
         route.add(new RoutePoint(request.getStartX(), request.getStartY(), "start"));
 
-        // Get navigation nodes for this floor
-        List<NavigationNode> nodes = nodeRepository.findByFloorId(request.getFloorId());
-
         if (nodes.isEmpty()) {
             // No navigation graph defined - return direct path
             log.info("No navigation nodes for floor {}, using direct path", request.getFloorId());
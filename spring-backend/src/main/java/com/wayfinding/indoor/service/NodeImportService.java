@@ -0,0 +1,287 @@
+package com.wayfinding.indoor.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.wayfinding.indoor.dto.BulkImportResult;
+import com.wayfinding.indoor.dto.CreateNavigationNodeRequest;
+import com.wayfinding.indoor.dto.CreateNodeRequest;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.model.NavigationNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming bulk imports of graph and navigation nodes. Request bodies (newline-delimited
+ * JSON or a JSON array) are read one item at a time; every batch is validated, checked
+ * for duplicates with a single query and inserted with one unordered bulk write, so
+ * memory is bounded by the batch size. Invalid and duplicate items are rejected and
+ * reported in the summary while the rest are imported.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NodeImportService {
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final FloorGraphCache graphCache;
+    private final ChangeLogService changeLog;
+    private final CollectionVersions collectionVersions;
+
+    @Value("${wayfinding.import.batch-size:1000}")
+    private int batchSize = 1000;
+
+    public BulkImportResult importGraphNodes(InputStream body) {
+        BulkImportResult result = importStream(body, CreateNodeRequest.class, this::insertGraphNodes);
+        log.info("Streamed graph node import: {} received, {} inserted, {} rejected",
+                result.getReceived(), result.getInserted(), result.getRejected());
+        return result;
+    }
+
+    public BulkImportResult importNavigationNodes(InputStream body) {
+        BulkImportResult result = importStream(body, CreateNavigationNodeRequest.class, this::insertNavigationNodes);
+        log.info("Streamed navigation node import: {} received, {} inserted, {} rejected",
+                result.getReceived(), result.getInserted(), result.getRejected());
+        return result;
+    }
+
+    private <T> BulkImportResult importStream(InputStream body, Class<T> type, BatchWriter<T> writer) {
+        BulkImportResult result = new BulkImportResult();
+        List<T> batch = new ArrayList<>(batchSize);
+        long received = 0;
+        long batchStart = 0;
+
+        try (MappingIterator<T> items = objectMapper.readerFor(type).readValues(body)) {
+            while (items.hasNextValue()) {
+                batch.add(items.nextValue());
+                received++;
+                if (batch.size() >= batchSize) {
+                    writer.write(batch, batchStart, result);
+                    batch.clear();
+                    batchStart = received;
+                }
+            }
+        } catch (JsonProcessingException e) {
+            received++;
+            result.addError("item " + (received - 1) + ": malformed JSON, import stopped (" + e.getOriginalMessage() + ")");
+        } catch (RuntimeJsonMappingException | IOException e) {
+            received++;
+            result.addError("item " + (received - 1) + ": unreadable input, import stopped (" + e.getMessage() + ")");
+        }
+        writer.write(batch, batchStart, result);
+
+        result.setReceived(received);
+        return result;
+    }
+
+    private void insertGraphNodes(List<CreateNodeRequest> batch, long offset, BulkImportResult result) {
+        Map<String, Integer> candidates = new LinkedHashMap<>();
+        Map<String, FloorNodeIds> nodeIdsByFloor = new LinkedHashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            CreateNodeRequest request = batch.get(i);
+            String problem = graphNodeProblem(request);
+            if (problem != null) {
+                result.addError("item " + (offset + i) + ": " + problem);
+                continue;
+            }
+            String floor = floorKey(request.getBuildingId(), request.getFloorId());
+            if (candidates.putIfAbsent(floor + "|" + request.getNodeId(), i) != null) {
+                result.addError("item " + (offset + i) + ": duplicate nodeId in request: " + request.getNodeId());
+                continue;
+            }
+            nodeIdsByFloor.computeIfAbsent(floor,
+                    k -> new FloorNodeIds(request.getBuildingId(), request.getFloorId(), new ArrayList<>()))
+                    .nodeIds().add(request.getNodeId());
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = existingGraphNodeKeys(nodeIdsByFloor.values());
+        List<GraphNode> nodes = new ArrayList<>(candidates.size());
+        List<Long> items = new ArrayList<>(candidates.size());
+        for (Map.Entry<String, Integer> entry : candidates.entrySet()) {
+            CreateNodeRequest request = batch.get(entry.getValue());
+            if (existing.contains(entry.getKey())) {
+                result.addError("item " + (offset + entry.getValue()) + ": nodeId already exists: " + request.getNodeId());
+                continue;
+            }
+            GraphNode node = new GraphNode();
+            node.setNodeId(request.getNodeId());
+            node.setBuildingId(request.getBuildingId());
+            node.setFloorId(request.getFloorId());
+            node.setX(request.getX());
+            node.setY(request.getY());
+            nodes.add(node);
+            items.add(offset + entry.getValue());
+        }
+        if (insert(nodes, items, GraphNode.class, result) == 0) {
+            return;
+        }
+        for (FloorNodeIds floor : nodeIdsByFloor.values()) {
+            graphCache.invalidate(floor.buildingId(), floor.floorId());
+            changeLog.floorReset(floor.buildingId(), Kind.NODE, floor.floorId());
+        }
+    }
+
+    /**
+     * Keys of the batch's nodes that are already stored, found with one query
+     */
+    private Set<String> existingGraphNodeKeys(Collection<FloorNodeIds> floors) {
+        List<Criteria> perFloor = new ArrayList<>(floors.size());
+        for (FloorNodeIds floor : floors) {
+            perFloor.add(Criteria.where("buildingId").is(floor.buildingId())
+                    .and("floorId").is(floor.floorId())
+                    .and("nodeId").in(floor.nodeIds()));
+        }
+        Query query = new Query(perFloor.size() == 1 ? perFloor.get(0) : new Criteria().orOperator(perFloor));
+        query.fields().include("nodeId", "buildingId", "floorId");
+
+        Set<String> existing = new HashSet<>();
+        for (GraphNode node : mongoTemplate.find(query, GraphNode.class)) {
+            existing.add(floorKey(node.getBuildingId(), node.getFloorId()) + "|" + node.getNodeId());
+        }
+        return existing;
+    }
+
+    private void insertNavigationNodes(List<CreateNavigationNodeRequest> batch, long offset, BulkImportResult result) {
+        List<Integer> valid = new ArrayList<>(batch.size());
+        Set<String> ids = new HashSet<>();
+        for (int i = 0; i < batch.size(); i++) {
+            CreateNavigationNodeRequest request = batch.get(i);
+            if (request == null || request.getFloorId() == null || request.getFloorId().trim().isEmpty()) {
+                result.addError("item " + (offset + i) + ": floorId is required");
+                continue;
+            }
+            if (request.getX() == null || request.getY() == null) {
+                result.addError("item " + (offset + i) + ": x and y are required");
+                continue;
+            }
+            if (request.getId() != null && !ids.add(request.getId())) {
+                result.addError("item " + (offset + i) + ": duplicate id in request: " + request.getId());
+                continue;
+            }
+            valid.add(i);
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = new HashSet<>();
+        if (!ids.isEmpty()) {
+            Query query = new Query(Criteria.where("id").in(ids));
+            query.fields().include("id");
+            for (NavigationNode node : mongoTemplate.find(query, NavigationNode.class)) {
+                existing.add(node.getId());
+            }
+        }
+
+        List<NavigationNode> nodes = new ArrayList<>(valid.size());
+        List<Long> items = new ArrayList<>(valid.size());
+        for (int i : valid) {
+            CreateNavigationNodeRequest request = batch.get(i);
+            if (request.getId() != null && existing.contains(request.getId())) {
+                result.addError("item " + (offset + i) + ": id already exists: " + request.getId());
+                continue;
+            }
+            NavigationNode node = new NavigationNode();
+            node.setId(request.getId());
+            node.setFloorId(request.getFloorId());
+            node.setX(request.getX());
+            node.setY(request.getY());
+            node.setConnectedNodes(request.getConnectedNodes());
+            node.setPoiId(request.getPoiId());
+            node.setNodeType(request.getNodeType());
+            nodes.add(node);
+            items.add(offset + i);
+        }
+        insert(nodes, items, NavigationNode.class, result);
+    }
+
+    /**
+     * Insert a batch; items are the input positions of the documents, for error messages.
+     * Documents the unique indexes reject (e.g. written by a concurrent import since the
+     * existence check) are counted as rejected; the rest of the unordered batch still lands.
+     *
+     * @return how many of the documents were inserted
+     */
+    private int insert(List<?> documents, List<Long> items, Class<?> type, BulkImportResult result) {
+        if (documents.isEmpty()) {
+            return 0;
+        }
+        int inserted;
+        try {
+            // One version bump for the batch, not one per inserted document
+            inserted = collectionVersions.batch(() -> mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type)
+                    .insert(documents)
+                    .execute()
+                    .getInsertedCount());
+        } catch (BulkOperationException e) {
+            inserted = e.getResult().getInsertedCount();
+            // A failed bulk write publishes no save events for the documents it did insert
+            if (inserted > 0) {
+                collectionVersions.bump(mongoTemplate.getCollectionName(type));
+            }
+            for (BulkWriteError error : e.getErrors()) {
+                String problem = ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY
+                        ? "already exists"
+                        : error.getMessage();
+                result.addError("item " + items.get(error.getIndex()) + ": " + problem);
+            }
+        }
+        result.setInserted(result.getInserted() + inserted);
+        return inserted;
+    }
+
+    private static String graphNodeProblem(CreateNodeRequest request) {
+        if (request == null) {
+            return "node is required";
+        }
+        if (request.getNodeId() == null || request.getNodeId().trim().isEmpty()) {
+            return "nodeId is required";
+        }
+        if (request.getBuildingId() == null || request.getBuildingId().trim().isEmpty()) {
+            return "buildingId is required";
+        }
+        if (request.getFloorId() == null || request.getFloorId().trim().isEmpty()) {
+            return "floorId is required";
+        }
+        if (request.getX() == null || request.getY() == null) {
+            return "x and y are required";
+        }
+        return null;
+    }
+
+    private static String floorKey(String buildingId, String floorId) {
+        return buildingId + "|" + floorId;
+    }
+
+    private record FloorNodeIds(String buildingId, String floorId, List<String> nodeIds) {}
+
+    @FunctionalInterface
+    private interface BatchWriter<T> {
+        void write(List<T> batch, long offset, BulkImportResult result);
+    }
+}
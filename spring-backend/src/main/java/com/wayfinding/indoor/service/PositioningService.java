@@ -8,14 +8,29 @@ import com.wayfinding.indoor.model.Floor;
 import com.wayfinding.indoor.repository.BeaconRepository;
 import com.wayfinding.indoor.repository.BuildingRepository;
 import com.wayfinding.indoor.repository.FloorRepository;
+import com.wayfinding.indoor.repository.ReactiveBeaconRepository;
+import com.wayfinding.indoor.repository.ReactiveBuildingRepository;
+import com.wayfinding.indoor.repository.ReactiveFloorRepository;
+import com.wayfinding.indoor.util.BeaconKeys;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,6 +41,16 @@ public class PositioningService {
     private final BeaconRepository beaconRepository;
     private final FloorRepository floorRepository;
     private final BuildingRepository buildingRepository;
+    private final FingerprintService fingerprintService;
+    private final FloorDetectionService floorDetectionService;
+    private final ScanFilterPipeline scanFilterPipeline;
+    private final QueryFanOut queryFanOut;
+    private final ReactiveBeaconRepository reactiveBeaconRepository;
+    private final ReactiveFloorRepository reactiveFloorRepository;
+    private final ReactiveBuildingRepository reactiveBuildingRepository;
+
+    @Value("${wayfinding.reactive.enabled:true}")
+    private boolean reactive = true;
 
     /**
      * Compute user position from scanned beacons using iBeacon UUID+Major+Minor matching.
@@ -40,89 +65,264 @@ public class PositioningService {
                     .build();
         }
 
-        // Match scanned beacons to registered beacons in database (UUID+Major+Minor only)
-        List<MatchedBeacon> matchedBeacons = new ArrayList<>();
-        
-        for (BeaconScanRequest.ScannedBeacon scanned : request.getBeacons()) {
-            // Filter out weak signals (backend side safety): ignore RSSI below -75 dBm
-            if (scanned.getRssi() < -75) {
+        PositionEstimate estimate = estimatePosition(request, request.getDeviceId(),
+                registeredBeaconResolver(request.getBeacons()), floorRepository::findById);
+        if (estimate == null) {
+            return PositionResponse.builder()
+                    .valid(false)
+                    .errorMessage("No registered beacons found")
+                    .build();
+        }
+
+        // Get building info
+        Optional<Building> buildingOpt = Optional.ofNullable(estimate.floor)
+                .flatMap(f -> buildingRepository.findById(f.getBuildingId()));
+        return toResponse(estimate, buildingOpt);
+    }
+
+    /**
+     * {@link #computePosition} on the reactive driver. The scan's beacons are resolved with
+     * one registry query instead of a lookup per beacon, then its floors with one more;
+     * the estimate itself runs on the bounded elastic scheduler since fingerprint radio
+     * maps may still have to be read on first use.
+     */
+    public Mono<PositionResponse> computePositionAsync(BeaconScanRequest request) {
+        if (request.getBeacons() == null || request.getBeacons().isEmpty()) {
+            return Mono.just(PositionResponse.builder()
+                    .valid(false)
+                    .errorMessage("No beacons provided")
+                    .build());
+        }
+        if (!reactive) {
+            return Mono.fromCallable(() -> computePosition(request));
+        }
+
+        PositionResponse unmatched = PositionResponse.builder()
+                .valid(false)
+                .errorMessage("No registered beacons found")
+                .build();
+        Set<String> uuids = BeaconKeys.uuidVariants(request.getBeacons());
+        if (uuids.isEmpty()) {
+            return Mono.just(unmatched);
+        }
+
+        return reactiveBeaconRepository.findByUuidIn(uuids)
+                .collectList()
+                .map(BeaconKeys::index)
+                .flatMap(registry -> {
+                    Set<String> floorIds = new HashSet<>();
+                    for (Beacon beacon : registry.values()) {
+                        floorIds.add(beacon.getFloorId());
+                    }
+                    return reactiveFloorRepository.findAllById(floorIds)
+                            .collectMap(Floor::getId)
+                            .publishOn(Schedulers.boundedElastic())
+                            .mapNotNull(floors -> estimatePosition(request, request.getDeviceId(),
+                                    scanned -> Optional.ofNullable(registry.get(BeaconKeys.of(scanned))),
+                                    floorId -> Optional.ofNullable(floors.get(floorId))));
+                })
+                .flatMap(estimate -> {
+                    if (estimate.floor == null) {
+                        return Mono.just(toResponse(estimate, Optional.empty()));
+                    }
+                    return reactiveBuildingRepository.findById(estimate.floor.getBuildingId())
+                            .map(Optional::of)
+                            .defaultIfEmpty(Optional.empty())
+                            .map(buildingOpt -> toResponse(estimate, buildingOpt));
+                })
+                .defaultIfEmpty(unmatched);
+    }
+
+    /**
+     * Compute positions for many tags at once (e.g. scans aggregated by a fixed gateway).
+     * Registered beacons are resolved with a single registry query for the whole batch,
+     * floors/buildings are fetched once per batch, and positions are computed in parallel.
+     * Tag ids double as device ids for floor tracking unless a scan carries its own deviceId.
+     */
+    public Map<String, PositionResponse> computePositions(Map<String, BeaconScanRequest> scans) {
+        Map<String, PositionResponse> results = new LinkedHashMap<>();
+        if (scans == null || scans.isEmpty()) {
+            return results;
+        }
+
+        Map<String, Beacon> registry = loadRegistry(scans.values());
+
+        Set<String> floorIds = new HashSet<>();
+        for (Beacon beacon : registry.values()) {
+            floorIds.add(beacon.getFloorId());
+        }
+        Map<String, Floor> floors = new HashMap<>();
+        floorRepository.findAllById(floorIds).forEach(f -> floors.put(f.getId(), f));
+
+        Map<String, PositionEstimate> estimates = new ConcurrentHashMap<>();
+        scans.entrySet().parallelStream().forEach(entry -> {
+            BeaconScanRequest request = entry.getValue();
+            if (request == null || request.getBeacons() == null || request.getBeacons().isEmpty()) {
+                return;
+            }
+            String deviceId = request.getDeviceId() != null ? request.getDeviceId() : entry.getKey();
+            PositionEstimate estimate = estimatePosition(request, deviceId,
+                    scanned -> Optional.ofNullable(registry.get(BeaconKeys.of(scanned))),
+                    floorId -> Optional.ofNullable(floors.get(floorId)));
+            if (estimate != null) {
+                estimates.put(entry.getKey(), estimate);
+            }
+        });
+
+        Set<String> buildingIds = new HashSet<>();
+        for (PositionEstimate estimate : estimates.values()) {
+            if (estimate.floor != null) {
+                buildingIds.add(estimate.floor.getBuildingId());
+            }
+        }
+        Map<String, Building> buildings = new HashMap<>();
+        buildingRepository.findAllById(buildingIds).forEach(b -> buildings.put(b.getId(), b));
+
+        for (Map.Entry<String, BeaconScanRequest> entry : scans.entrySet()) {
+            BeaconScanRequest request = entry.getValue();
+            if (request == null || request.getBeacons() == null || request.getBeacons().isEmpty()) {
+                results.put(entry.getKey(), PositionResponse.builder()
+                        .valid(false)
+                        .errorMessage("No beacons provided")
+                        .build());
                 continue;
             }
+            PositionEstimate estimate = estimates.get(entry.getKey());
+            if (estimate == null) {
+                results.put(entry.getKey(), PositionResponse.builder()
+                        .valid(false)
+                        .errorMessage("No registered beacons found")
+                        .build());
+                continue;
+            }
+            Optional<Building> buildingOpt = Optional.ofNullable(estimate.floor)
+                    .map(f -> buildings.get(f.getBuildingId()));
+            results.put(entry.getKey(), toResponse(estimate, buildingOpt));
+        }
+        return results;
+    }
+
+    /**
+     * Match scanned beacons, pick the best floor and solve the position on it with the
+     * positioning method configured for that floor.
+     * Returns null when no registered beacon was matched.
+     */
+    private PositionEstimate estimatePosition(BeaconScanRequest request,
+                                              String deviceId,
+                                              Function<BeaconScanRequest.ScannedBeacon, Optional<Beacon>> resolver,
+                                              Function<String, Optional<Floor>> floorLookup) {
+        // Match scanned beacons to registered beacons (UUID+Major+Minor only), then dedupe,
+        // smooth and threshold the readings. The floor is picked straight from the pooled
+        // buffer, so only the readings of that floor are copied out of it.
+        FloorReadings floorReadings = scanFilterPipeline.process(request, deviceId, resolver,
+                buffer -> pickFloor(buffer, deviceId));
+        if (floorReadings == null) {
+            return null;
+        }
+        String bestFloorId = floorReadings.floorId();
+        boolean floorChanged = floorReadings.changed();
+        List<MatchedBeacon> floorBeacons = floorReadings.beacons();
 
-            // Match by UUID+Major+Minor (preferred). Do NOT use MAC addresses.
-            Optional<Beacon> registered = Optional.empty();
-            if (scanned.getUuid() != null && !scanned.getUuid().trim().isEmpty()) {
-                String uuid = scanned.getUuid().trim();
-                Integer major = scanned.getMajor();
-                Integer minor = scanned.getMinor();
+        Optional<Floor> floorOpt = floorLookup.apply(bestFloorId);
+        if (floorOpt.isEmpty()) {
+            return new PositionEstimate(null, null, null, 0, false);
+        }
+        Floor floor = floorOpt.get();
 
-                if (major != null && minor != null) {
-                    String upper = uuid.toUpperCase();
-                    String lower = uuid.toLowerCase();
-                    registered = beaconRepository.findByUuidAndMajorAndMinor(upper, major, minor);
-                    if (registered.isEmpty() && !lower.equals(upper)) {
-                        registered = beaconRepository.findByUuidAndMajorAndMinor(lower, major, minor);
-                    }
+        String configured = floor.getPositioningMethod() != null ? floor.getPositioningMethod() : "auto";
+        String method = null;
+        double[] position = null;
+        switch (configured) {
+            case "fingerprint" -> {
+                position = fingerprintService.locate(floor.getId(), toObservation(floorBeacons));
+                method = "fingerprint";
+            }
+            case "trilateration" -> {
+                if (floorBeacons.size() >= 3) {
+                    position = computeTrilaterationPosition(floorBeacons, floor.getScale());
+                    method = "trilateration";
                 }
             }
+            case "weighted" -> {
+                position = computeWeightedPosition(floorBeacons);
+                method = "weighted";
+            }
+            case "nearest" -> {
+                Beacon b = strongest(floorBeacons).beacon;
+                position = new double[]{b.getX(), b.getY()};
+                method = "nearest";
+            }
+            default -> {
+            }
+        }
 
-            if (registered.isPresent()) {
-                matchedBeacons.add(new MatchedBeacon(registered.get(), scanned.getRssi()));
+        // Automatic selection (also used when the configured method cannot produce a fix)
+        if (position == null) {
+            if (floorBeacons.size() >= 3) {
+                position = computeTrilaterationPosition(floorBeacons, floor.getScale());
+                method = "trilateration";
+            } else if (floorBeacons.size() == 1) {
+                Beacon b = floorBeacons.get(0).beacon;
+                position = new double[]{b.getX(), b.getY()};
+                method = "nearest";
+            } else {
+                position = computeWeightedPosition(floorBeacons);
+                method = "weighted";
             }
         }
 
-        if (matchedBeacons.isEmpty()) {
-            return PositionResponse.builder()
-                    .valid(false)
-                    .errorMessage("No registered beacons found")
-                    .build();
+        return new PositionEstimate(floor, position, method, floorBeacons.size(), floorChanged);
+    }
+
+    private FloorReadings pickFloor(ScanBuffer buffer, String deviceId) {
+        if (buffer.size() == 0) {
+            return null;
         }
 
         // Group by floor and pick best floor by strongest combined RSSI
         String bestFloorId = null;
         double bestFloorScore = Double.NEGATIVE_INFINITY;
-        java.util.Map<String, Double> floorScores = new java.util.HashMap<>();
-        for (MatchedBeacon mb : matchedBeacons) {
-            String floorId = mb.beacon.getFloorId();
-            floorScores.put(floorId, floorScores.getOrDefault(floorId, 0.0) + mb.rssi);
+        Map<String, Double> floorScores = new HashMap<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            floorScores.merge(buffer.beacon(i).getFloorId(), (double) buffer.rssi(i), Double::sum);
         }
-        for (java.util.Map.Entry<String, Double> entry : floorScores.entrySet()) {
+        for (Map.Entry<String, Double> entry : floorScores.entrySet()) {
             if (entry.getValue() > bestFloorScore) {
                 bestFloorScore = entry.getValue();
                 bestFloorId = entry.getKey();
             }
         }
 
-        final String bestFloor = bestFloorId;
-        List<MatchedBeacon> floorBeacons = matchedBeacons.stream()
-                .filter(mb -> mb.beacon.getFloorId().equals(bestFloor))
-                .collect(Collectors.toList());
+        // Devices with a session use hysteresis so the floor only changes on real transitions
+        boolean floorChanged = false;
+        if (deviceId != null && !deviceId.isEmpty()) {
+            Map<String, Double> floorPower = new HashMap<>();
+            for (int i = 0; i < buffer.size(); i++) {
+                floorPower.merge(buffer.beacon(i).getFloorId(), Math.pow(10, buffer.rssi(i) / 10.0), Double::sum);
+            }
+            FloorDetectionService.FloorDecision decision = floorDetectionService.update(deviceId, floorPower);
+            bestFloorId = decision.floorId();
+            floorChanged = decision.changed();
+        }
 
-        String method;
-        double[] position;
-        if (floorBeacons.size() >= 3) {
-            position = computeTrilaterationPosition(floorBeacons);
-            method = "trilateration";
-        } else if (floorBeacons.size() == 1) {
-            Beacon b = floorBeacons.get(0).beacon;
-            position = new double[]{b.getX(), b.getY()};
-            method = "nearest";
-        } else {
-            position = computeWeightedPosition(floorBeacons);
-            method = "weighted";
-        }
-
-        // Get floor and building info
-        Optional<Floor> floorOpt = floorRepository.findById(bestFloorId);
-        if (floorOpt.isEmpty()) {
+        List<MatchedBeacon> floorBeacons = new ArrayList<>(buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            if (buffer.beacon(i).getFloorId().equals(bestFloorId)) {
+                floorBeacons.add(new MatchedBeacon(buffer.beacon(i), buffer.rssi(i)));
+            }
+        }
+        return new FloorReadings(bestFloorId, floorChanged, floorBeacons);
+    }
+
+    private PositionResponse toResponse(PositionEstimate estimate, Optional<Building> buildingOpt) {
+        if (estimate.floor == null) {
             return PositionResponse.builder()
                     .valid(false)
                     .errorMessage("Floor not found")
                     .build();
         }
 
-        Floor floor = floorOpt.get();
-        Optional<Building> buildingOpt = buildingRepository.findById(floor.getBuildingId());
+        Floor floor = estimate.floor;
 
         return PositionResponse.builder()
                 .valid(true)
@@ -131,13 +331,101 @@ public class PositioningService {
                 .floorId(floor.getId())
                 .floorName(floor.getName())
                 .floorNumber(floor.getFloorNumber())
-                .x(position[0])
-                .y(position[1])
-                .method(method)
-                .beaconsUsed(floorBeacons.size())
+                .x(estimate.position[0])
+                .y(estimate.position[1])
+                .method(estimate.method)
+                .beaconsUsed(estimate.beaconsUsed)
+                .floorChanged(estimate.floorChanged)
                 .build();
     }
 
+    /**
+     * Resolver for the beacons of one scan. When queries fan out, every distinct beacon is
+     * looked up up front on its own virtual thread; otherwise each is looked up on demand.
+     * Only used while the reactive driver is off: {@link #computePositionAsync} resolves
+     * the whole scan with one registry query otherwise.
+     */
+    private Function<BeaconScanRequest.ScannedBeacon, Optional<Beacon>> registeredBeaconResolver(
+            List<BeaconScanRequest.ScannedBeacon> scanned) {
+        if (!queryFanOut.isParallel()) {
+            return this::findRegisteredBeacon;
+        }
+        Map<String, BeaconScanRequest.ScannedBeacon> distinct = new LinkedHashMap<>();
+        for (BeaconScanRequest.ScannedBeacon beacon : scanned) {
+            // Readings the pipeline drops before resolving are not looked up either
+            if (scanFilterPipeline.isCandidate(beacon)) {
+                distinct.putIfAbsent(BeaconKeys.of(beacon), beacon);
+            }
+        }
+        List<String> keys = new ArrayList<>(distinct.keySet());
+        List<Optional<Beacon>> found = queryFanOut.map(keys, key -> findRegisteredBeacon(distinct.get(key)));
+        Map<String, Optional<Beacon>> resolved = new HashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            resolved.put(keys.get(i), found.get(i));
+        }
+        return beacon -> resolved.getOrDefault(BeaconKeys.of(beacon), Optional.empty());
+    }
+
+    /**
+     * Match by UUID+Major+Minor (preferred). Do NOT use MAC addresses.
+     */
+    private Optional<Beacon> findRegisteredBeacon(BeaconScanRequest.ScannedBeacon scanned) {
+        if (scanned.getUuid() == null || scanned.getUuid().trim().isEmpty()) {
+            return Optional.empty();
+        }
+        String uuid = scanned.getUuid().trim();
+        Integer major = scanned.getMajor();
+        Integer minor = scanned.getMinor();
+        if (major == null || minor == null) {
+            return Optional.empty();
+        }
+
+        String upper = uuid.toUpperCase();
+        String lower = uuid.toLowerCase();
+        Optional<Beacon> registered = beaconRepository.findByUuidAndMajorAndMinor(upper, major, minor);
+        if (registered.isEmpty() && !lower.equals(upper)) {
+            registered = beaconRepository.findByUuidAndMajorAndMinor(lower, major, minor);
+        }
+        return registered;
+    }
+
+    /**
+     * Load every registered beacon referenced by the given scans with one query,
+     * keyed by {@link BeaconKeys#of(Beacon)}.
+     */
+    private Map<String, Beacon> loadRegistry(Collection<BeaconScanRequest> scans) {
+        List<BeaconScanRequest.ScannedBeacon> scanned = new ArrayList<>();
+        for (BeaconScanRequest request : scans) {
+            if (request != null && request.getBeacons() != null) {
+                scanned.addAll(request.getBeacons());
+            }
+        }
+        Set<String> uuids = BeaconKeys.uuidVariants(scanned);
+        if (uuids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return BeaconKeys.index(beaconRepository.findByUuidIn(uuids));
+    }
+
+    private static Map<String, Integer> toObservation(List<MatchedBeacon> beacons) {
+        Map<String, Integer> observed = new HashMap<>();
+        for (MatchedBeacon mb : beacons) {
+            observed.merge(BeaconKeys.of(mb.beacon),
+                    mb.rssi, Math::max);
+        }
+        return observed;
+    }
+
+    private static MatchedBeacon strongest(List<MatchedBeacon> beacons) {
+        MatchedBeacon best = beacons.get(0);
+        for (MatchedBeacon mb : beacons) {
+            if (mb.rssi > best.rssi) {
+                best = mb;
+            }
+        }
+        return best;
+    }
+
     private double[] computeWeightedPosition(List<MatchedBeacon> beacons) {
         if (beacons.isEmpty()) {
             return new double[]{0, 0};
@@ -168,7 +456,12 @@ public class PositioningService {
         return new double[]{weightedX / totalWeight, weightedY / totalWeight};
     }
 
-    private double[] computeTrilaterationPosition(List<MatchedBeacon> beacons) {
+    /**
+     * Trilaterate from the three strongest beacons. Path-loss distances are in meters and are
+     * converted to map units with the floor scale (pixels per meter).
+     */
+    private double[] computeTrilaterationPosition(List<MatchedBeacon> beacons, double scale) {
+        double unitsPerMeter = scale > 0 ? scale : 1.0;
         List<MatchedBeacon> top = beacons.stream()
                 .sorted(Comparator.comparingInt((MatchedBeacon b) -> b.rssi).reversed())
                 .limit(3)
@@ -185,9 +478,9 @@ public class PositioningService {
         double x3 = b3.beacon.getX();
         double y3 = b3.beacon.getY();
 
-        double d1 = rssiToDistance(b1.rssi, b1.beacon.getTxPower());
-        double d2 = rssiToDistance(b2.rssi, b2.beacon.getTxPower());
-        double d3 = rssiToDistance(b3.rssi, b3.beacon.getTxPower());
+        double d1 = rssiToDistance(b1.rssi, b1.beacon.getTxPower(), b1.beacon.getPathLossExponent()) * unitsPerMeter;
+        double d2 = rssiToDistance(b2.rssi, b2.beacon.getTxPower(), b2.beacon.getPathLossExponent()) * unitsPerMeter;
+        double d3 = rssiToDistance(b3.rssi, b3.beacon.getTxPower(), b3.beacon.getPathLossExponent()) * unitsPerMeter;
 
         double A = 2 * (x2 - x1);
         double B = 2 * (y2 - y1);
@@ -212,17 +505,44 @@ public class PositioningService {
         return new double[]{x, y};
     }
 
-    private double rssiToDistance(int rssi, double txPower) {
-        double n = 2.0;
+    /**
+     * Log-distance path-loss model using the beacon's calibrated txPower and exponent.
+     */
+    private double rssiToDistance(int rssi, double txPower, double n) {
+        if (n <= 0) {
+            n = 2.0;
+        }
         if (txPower == 0) {
             txPower = -59;
         }
         return Math.pow(10.0, (txPower - rssi) / (10.0 * n));
     }
 
+    /**
+     * Helper class to hold a solved position before building lookup
+     */
+    private static class PositionEstimate {
+        final Floor floor;
+        final double[] position;
+        final String method;
+        final int beaconsUsed;
+        final boolean floorChanged;
+
+        PositionEstimate(Floor floor, double[] position, String method, int beaconsUsed, boolean floorChanged) {
+            this.floor = floor;
+            this.position = position;
+            this.method = method;
+            this.beaconsUsed = beaconsUsed;
+            this.floorChanged = floorChanged;
+        }
+    }
+
     /**
      * Helper class to hold a matched beacon with its RSSI
      */
+    private record FloorReadings(String floorId, boolean changed, List<MatchedBeacon> beacons) {
+    }
+
     private static class MatchedBeacon {
         final Beacon beacon;
         final int rssi;
@@ -0,0 +1,111 @@
+package com.wayfinding.indoor.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Runs independent blocking Mongo queries of one request side by side. Forking is only
+ * worth it when threads are cheap, so queries fan out onto virtual threads when the
+ * service runs with {@code spring.threads.virtual.enabled} on Java 21 (the java21 Maven
+ * profile); otherwise they run one after another on the calling thread as before.
+ * <p>
+ * Only blocking code paths use it. With {@code wayfinding.reactive.enabled} (the default)
+ * position and route requests go through the reactive driver instead, so what fans out
+ * there is delta and full sync and the graph loads behind snapshot export and warm-up;
+ * single-scan beacon lookups and route graph loads fan out only with the driver off.
+ */
+@Component
+@Slf4j
+public class QueryFanOut {
+
+    private final SimpleAsyncTaskExecutor executor;
+
+    @Autowired
+    public QueryFanOut(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads && JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE)) {
+            executor = new SimpleAsyncTaskExecutor("query-");
+            executor.setVirtualThreads(true);
+            log.info("Independent Mongo queries fan out on virtual threads");
+        } else {
+            executor = null;
+        }
+    }
+
+    public boolean isParallel() {
+        return executor != null;
+    }
+
+    /**
+     * Run both tasks and return once both have finished. The first runs on its own
+     * virtual thread when fanning out, the second on the caller.
+     */
+    public void both(Runnable first, Runnable second) {
+        all(first, second);
+    }
+
+    /**
+     * Run all tasks and return once all have finished. All but the last run on their own
+     * virtual threads when fanning out, the last on the caller.
+     */
+    public void all(Runnable... tasks) {
+        if (executor == null || tasks.length < 2) {
+            for (Runnable task : tasks) {
+                task.run();
+            }
+            return;
+        }
+        List<CompletableFuture<Void>> forked = new ArrayList<>(tasks.length - 1);
+        for (int i = 0; i < tasks.length - 1; i++) {
+            forked.add(CompletableFuture.runAsync(tasks[i], executor));
+        }
+        tasks[tasks.length - 1].run();
+        for (CompletableFuture<Void> future : forked) {
+            join(future);
+        }
+    }
+
+    /**
+     * Apply a query to every item, results in item order
+     */
+    public <T, R> List<R> map(List<T> items, Function<T, R> query) {
+        List<R> results = new ArrayList<>(items.size());
+        if (executor == null || items.size() < 2) {
+            for (T item : items) {
+                results.add(query.apply(item));
+            }
+            return results;
+        }
+        List<CompletableFuture<R>> futures = new ArrayList<>(items.size());
+        for (T item : items) {
+            futures.add(CompletableFuture.supplyAsync(() -> query.apply(item), executor));
+        }
+        for (CompletableFuture<R> future : futures) {
+            results.add(join(future));
+        }
+        return results;
+    }
+
+    private static <R> R join(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
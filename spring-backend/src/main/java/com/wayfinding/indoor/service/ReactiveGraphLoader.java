@@ -0,0 +1,77 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.repository.ReactiveGraphEdgeRepository;
+import com.wayfinding.indoor.repository.ReactiveGraphNodeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-blocking counterpart of {@link FloorGraphCache#get}: on a cache miss the node and
+ * edge projections are streamed concurrently from the reactive driver into one builder,
+ * and the compiled graph is installed in the shared cache. Concurrent misses on one floor
+ * share a single load, the reactive counterpart of the cache's in-flight map.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReactiveGraphLoader {
+
+    private final ReactiveGraphNodeRepository nodeRepository;
+    private final ReactiveGraphEdgeRepository edgeRepository;
+    private final FloorGraphCache graphCache;
+
+    private final Map<String, Mono<CompiledGraph>> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Compiled graph of a floor; an empty graph when the floor has no nodes
+     */
+    public Mono<CompiledGraph> get(String buildingId, String floorId) {
+        CompiledGraph cached = graphCache.getIfPresent(buildingId, floorId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        String key = buildingId + "|" + floorId;
+        return Mono.defer(() -> loading.computeIfAbsent(key, k -> load(buildingId, floorId)
+                // Only the load itself removes its entry, so a later miss starts a fresh one
+                .doFinally(signal -> loading.remove(k))
+                .cache()));
+    }
+
+    private Mono<CompiledGraph> load(String buildingId, String floorId) {
+        return Mono.defer(() -> {
+            CompiledGraph cached = graphCache.getIfPresent(buildingId, floorId);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+            long loadedAt = graphCache.generation();
+            long started = System.nanoTime();
+            CompiledGraph.Builder builder = CompiledGraph.builder(buildingId, floorId);
+            Mono<Void> nodes = nodeRepository.streamPointsByBuildingIdAndFloorId(buildingId, floorId)
+                    .doOnNext(node -> builder.addNode(node.nodeId(), node.x(), node.y()))
+                    .then();
+            Mono<Void> edges = edgeRepository.streamLinksByBuildingIdAndFloorId(buildingId, floorId)
+                    .doOnNext(edge -> builder.addEdge(edge.fromNodeId(), edge.toNodeId(), edge.weight()))
+                    .then();
+            return Mono.when(nodes, edges)
+                    // Compiling and the cache listeners (file store) must not run on driver threads
+                    .publishOn(Schedulers.boundedElastic())
+                    .then(Mono.fromCallable(() -> {
+                        CompiledGraph graph = builder.build();
+                        log.info("Compiled graph for {}/{}: {} nodes, {} edges in {} ms", buildingId, floorId,
+                                graph.nodeCount(), graph.edgeCount() / 2, (System.nanoTime() - started) / 1_000_000);
+                        if (builder.droppedEdges() > 0) {
+                            log.warn("Dropped {} edges of {}/{} with unknown endpoints or self loops",
+                                    builder.droppedEdges(), buildingId, floorId);
+                        }
+                        graphCache.putIfUnchanged(graph, loadedAt);
+                        return graph;
+                    }));
+        });
+    }
+}
@@ -0,0 +1,157 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.NavigationPathResponse.PathPoint;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.FloorRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes waypoints a walker would not notice: a point is dropped when the previous kept
+ * point can see the next one across the floor's walkable area. The walkable mask of each
+ * floor is derived from its map image once, in the background, and kept until the floor's
+ * map or size changes (see {@link #invalidate}); until it is ready (or when a floor has no
+ * usable map) routes are returned unchanged, so smoothing never blocks a request. A floor
+ * without a mask is looked at again after retry-seconds. Maps over the upload pixel limit
+ * get no mask; their size is checked from the header before any pixels are decoded.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RouteSmoother {
+
+    private final FloorRepository floorRepository;
+    private final MapImageStore mapImageStore;
+
+    @Value("${wayfinding.navigation.smoothing.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${wayfinding.navigation.smoothing.cell-size:4}")
+    private int cellSize = 4;
+
+    @Value("${wayfinding.navigation.smoothing.luminance-threshold:200}")
+    private int luminanceThreshold = 200;
+
+    @Value("${wayfinding.navigation.smoothing.clearance:1}")
+    private int clearance = 1;
+
+    @Value("${wayfinding.navigation.smoothing.retry-seconds:60}")
+    private long retrySeconds = 60;
+
+    @Value("${wayfinding.maps.upload.max-pixels:100000000}")
+    private long maxPixels = 100_000_000L;
+
+    private final Map<String, CompletableFuture<Optional<WalkableMask>>> masks = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("route-masks-"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<PathPoint> smooth(String buildingId, String floorId, List<PathPoint> path) {
+        if (!enabled || path.size() < 3) {
+            return path;
+        }
+        Optional<WalkableMask> mask = masks.computeIfAbsent(key(buildingId, floorId),
+                key -> build(key, buildingId, floorId)).getNow(null);
+        return mask != null && mask.isPresent() ? smooth(mask.get(), path) : path;
+    }
+
+    /**
+     * Drop the floor's mask after its map or size changed, or the floor was deleted; the
+     * next route rebuilds it
+     */
+    public void invalidate(String buildingId, String floorId) {
+        masks.remove(key(buildingId, floorId));
+    }
+
+    private CompletableFuture<Optional<WalkableMask>> build(String key, String buildingId, String floorId) {
+        CompletableFuture<Optional<WalkableMask>> mask =
+                CompletableFuture.supplyAsync(() -> load(buildingId, floorId), executor);
+        // A missing map may be uploaded later, without passing through invalidate
+        mask.thenAccept(loaded -> {
+            if (loaded.isEmpty()) {
+                executor.schedule(() -> masks.remove(key, mask), retrySeconds, TimeUnit.SECONDS);
+            }
+        });
+        return mask;
+    }
+
+    private static String key(String buildingId, String floorId) {
+        return buildingId + "/" + floorId;
+    }
+
+    /**
+     * Greedy string pulling: keep a point only when the last kept point cannot see past it
+     */
+    static List<PathPoint> smooth(WalkableMask mask, List<PathPoint> path) {
+        List<PathPoint> smoothed = new ArrayList<>();
+        PathPoint anchor = path.get(0);
+        smoothed.add(anchor);
+        for (int i = 2; i < path.size(); i++) {
+            PathPoint next = path.get(i);
+            if (!mask.lineOfSight(anchor.getX(), anchor.getY(), next.getX(), next.getY())) {
+                anchor = path.get(i - 1);
+                smoothed.add(anchor);
+            }
+        }
+        smoothed.add(path.get(path.size() - 1));
+        return smoothed;
+    }
+
+    private Optional<WalkableMask> load(String buildingId, String floorId) {
+        try {
+            Optional<Floor> floor = floorRepository.findByFloorId(floorId)
+                    .filter(f -> buildingId.equals(f.getBuildingId()));
+            Path file = floor.map(f -> mapImageStore.locate(f.getMapImageUrl())).orElse(null);
+            if (file == null || !Files.isRegularFile(file)) {
+                return Optional.empty();
+            }
+            long started = System.nanoTime();
+            BufferedImage image;
+            try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+                image = MapImageStore.read(in, "Map", maxPixels);
+            }
+            if (image == null) {
+                return Optional.empty();
+            }
+            Floor f = floor.get();
+            WalkableMask mask = WalkableMask.fromImage(image, cellSize, luminanceThreshold,
+                    f.getWidth() > 0 ? (double) f.getWidth() / image.getWidth() : 1,
+                    f.getHeight() > 0 ? (double) f.getHeight() / image.getHeight() : 1,
+                    clearance);
+            log.info("Built walkable mask for {}/{} in {} ms", buildingId, floorId,
+                    (System.nanoTime() - started) / 1_000_000);
+            return Optional.of(mask);
+        } catch (Exception e) {
+            log.warn("No walkable mask for {}/{}: {}", buildingId, floorId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
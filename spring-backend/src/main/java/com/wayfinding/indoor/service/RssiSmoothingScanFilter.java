@@ -0,0 +1,119 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.config.ScanFilterProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Smooths each device's readings per beacon across scans. A reading further than the
+ * outlier limit from the beacon's smoothed value is clamped to that limit before it is
+ * folded in, then replaced by the exponential moving average or the median of the last
+ * few readings. Scans without a deviceId pass through unchanged.
+ */
+@Component
+@Order(20)
+@RequiredArgsConstructor
+public class RssiSmoothingScanFilter implements ScanFilter {
+
+    private final ScanFilterProperties properties;
+
+    private final Map<String, DeviceRssiState> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong updates = new AtomicLong();
+
+    private static final int SWEEP_INTERVAL = 1024;
+
+    @Override
+    public void apply(ScanBuffer buffer, String deviceId) {
+        ScanFilterProperties.Smoothing smoothing = properties.getSmoothing();
+        if (deviceId == null || "none".equalsIgnoreCase(smoothing.getMode()) || buffer.size() == 0) {
+            return;
+        }
+        boolean median = "median".equalsIgnoreCase(smoothing.getMode());
+        long now = System.currentTimeMillis();
+        long ttl = smoothing.getSessionTtl().toMillis();
+
+        DeviceRssiState state = sessions.computeIfAbsent(deviceId, id -> new DeviceRssiState());
+        synchronized (state) {
+            if (now - state.lastSeen > ttl) {
+                state.tracks.clear();
+            }
+            state.lastSeen = now;
+            for (int i = 0; i < buffer.size(); i++) {
+                RssiTrack track = state.tracks.get(buffer.key(i));
+                if (track == null) {
+                    track = new RssiTrack(Math.max(1, smoothing.getWindow()));
+                    state.tracks.put(buffer.key(i), track);
+                }
+                buffer.setRssi(i, track.add(buffer.rssi(i), smoothing, median));
+            }
+        }
+
+        if (updates.incrementAndGet() % SWEEP_INTERVAL == 0) {
+            sessions.entrySet().removeIf(e -> now - e.getValue().lastSeen > ttl);
+        }
+    }
+
+    public void reset(String deviceId) {
+        sessions.remove(deviceId);
+    }
+
+    int sessionCount() {
+        return sessions.size();
+    }
+
+    private static class DeviceRssiState {
+        final Map<String, RssiTrack> tracks = new HashMap<>();
+        long lastSeen;
+    }
+
+    private static class RssiTrack {
+        final int[] window;
+        final int[] sorted;
+        int count;
+        int next;
+        double ema;
+
+        RssiTrack(int size) {
+            window = new int[size];
+            sorted = new int[size];
+        }
+
+        int add(int rssi, ScanFilterProperties.Smoothing smoothing, boolean median) {
+            if (count == 0) {
+                ema = rssi;
+            } else {
+                int reference = (int) Math.round(ema);
+                int limit = smoothing.getOutlierDb();
+                rssi = Math.max(reference - limit, Math.min(reference + limit, rssi));
+                ema += smoothing.getAlpha() * (rssi - ema);
+            }
+            window[next] = rssi;
+            next = (next + 1) % window.length;
+            if (count < window.length) {
+                count++;
+            }
+            return median ? median() : (int) Math.round(ema);
+        }
+
+        private int median() {
+            for (int i = 0; i < count; i++) {
+                int v = window[i];
+                int j = i;
+                while (j > 0 && sorted[j - 1] > v) {
+                    sorted[j] = sorted[j - 1];
+                    j--;
+                }
+                sorted[j] = v;
+            }
+            return count % 2 == 1
+                    ? sorted[count / 2]
+                    : Math.round((sorted[count / 2 - 1] + sorted[count / 2]) / 2f);
+        }
+    }
+}
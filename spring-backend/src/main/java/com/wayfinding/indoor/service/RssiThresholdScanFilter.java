@@ -0,0 +1,26 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.config.ScanFilterProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops readings that are too weak for the beacon's building.
+ */
+@Component
+@Order(30)
+@RequiredArgsConstructor
+public class RssiThresholdScanFilter implements ScanFilter {
+
+    private final ScanFilterProperties properties;
+
+    @Override
+    public void apply(ScanBuffer buffer, String deviceId) {
+        for (int i = buffer.size() - 1; i >= 0; i--) {
+            if (buffer.rssi(i) < properties.minRssiFor(buffer.beacon(i).getBuildingId())) {
+                buffer.remove(i);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.Beacon;
+
+import java.util.Arrays;
+
+/**
+ * Reusable, array-backed holder for the matched readings of one scan. The pipeline pools
+ * buffers and filters edit them in place, so preprocessing a scan does not allocate once
+ * pooled buffers have grown to the typical scan size.
+ */
+public final class ScanBuffer {
+
+    private String[] keys = new String[16];
+    private Beacon[] beacons = new Beacon[16];
+    private int[] rssi = new int[16];
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public String key(int i) {
+        return keys[i];
+    }
+
+    public Beacon beacon(int i) {
+        return beacons[i];
+    }
+
+    public int rssi(int i) {
+        return rssi[i];
+    }
+
+    public void setRssi(int i, int value) {
+        rssi[i] = value;
+    }
+
+    /**
+     * Remove a reading by moving the last one into its slot (order is not preserved).
+     */
+    public void remove(int i) {
+        size--;
+        keys[i] = keys[size];
+        beacons[i] = beacons[size];
+        rssi[i] = rssi[size];
+        keys[size] = null;
+        beacons[size] = null;
+    }
+
+    void add(String key, Beacon beacon, int value) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            beacons = Arrays.copyOf(beacons, capacity);
+            rssi = Arrays.copyOf(rssi, capacity);
+        }
+        keys[size] = key;
+        beacons[size] = beacon;
+        rssi[size] = value;
+        size++;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(beacons, 0, size, null);
+        size = 0;
+    }
+}
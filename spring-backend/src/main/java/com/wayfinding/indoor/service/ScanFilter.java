@@ -0,0 +1,14 @@
+package com.wayfinding.indoor.service;
+
+/**
+ * One stage of the scan preprocessing pipeline. Implementations are Spring beans applied
+ * in {@link org.springframework.core.annotation.Order} order and edit the buffer in place.
+ */
+public interface ScanFilter {
+
+    /**
+     * @param buffer matched readings of the current scan
+     * @param deviceId device that reported the scan, or null for anonymous scans
+     */
+    void apply(ScanBuffer buffer, String deviceId);
+}
@@ -0,0 +1,92 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.config.ScanFilterProperties;
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.util.BeaconKeys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Function;
+
+/**
+ * Preprocesses a scan before positioning: implausible readings are discarded, the rest are
+ * matched against the beacon registry into a pooled {@link ScanBuffer} and then passed
+ * through every {@link ScanFilter} bean in order (dedupe, smoothing, thresholds by default).
+ * Weak readings are kept until the threshold filter, so they still move the smoothed values.
+ * <p>
+ * Buffers are pooled rather than kept per thread, since request threads may be virtual
+ * threads that never run a second scan; a scan that finds the pool empty allocates one.
+ */
+@Service
+@Slf4j
+public class ScanFilterPipeline {
+
+    // Enough for the scans in flight at once; buffers beyond it are left to the GC
+    private static final int POOLED_BUFFERS = 256;
+
+    private final List<ScanFilter> filters;
+    private final ScanFilterProperties properties;
+    private final BlockingQueue<ScanBuffer> buffers = new ArrayBlockingQueue<>(POOLED_BUFFERS);
+
+    public ScanFilterPipeline(List<ScanFilter> filters, ScanFilterProperties properties) {
+        this.filters = List.copyOf(filters);
+        this.properties = properties;
+        log.info("Scan filter pipeline: {}", this.filters.stream()
+                .map(f -> f.getClass().getSimpleName())
+                .toList());
+    }
+
+    /**
+     * Match and filter the readings of one scan and hand the result to {@code consumer}.
+     * The buffer goes back to the pool afterwards, so the consumer must not keep it.
+     */
+    public <R> R process(BeaconScanRequest request,
+                         String deviceId,
+                         Function<BeaconScanRequest.ScannedBeacon, Optional<Beacon>> resolver,
+                         Function<ScanBuffer, R> consumer) {
+        ScanBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new ScanBuffer();
+        }
+        try {
+            for (BeaconScanRequest.ScannedBeacon scanned : request.getBeacons()) {
+                if (!isCandidate(scanned)) {
+                    continue;
+                }
+                Optional<Beacon> registered = resolver.apply(scanned);
+                if (registered.isPresent()) {
+                    buffer.add(key(registered.get()), registered.get(), scanned.getRssi());
+                }
+            }
+            for (ScanFilter filter : filters) {
+                if (buffer.size() == 0) {
+                    break;
+                }
+                filter.apply(buffer, deviceId);
+            }
+            return consumer.apply(buffer);
+        } finally {
+            buffer.clear();
+            buffers.offer(buffer);
+        }
+    }
+
+    /**
+     * Whether a reading is worth resolving against the registry. Only implausible readings
+     * are dropped here; the per-building threshold is applied after smoothing.
+     */
+    public boolean isCandidate(BeaconScanRequest.ScannedBeacon scanned) {
+        // Non-negative RSSI is not a real reading (0 is what many stacks report for "unknown")
+        return scanned.getRssi() < properties.getMaxRssi();
+    }
+
+    // The registry id is stable and already allocated; the iBeacon key only for unsaved beacons
+    private static String key(Beacon beacon) {
+        return beacon.getId() != null ? beacon.getId() : BeaconKeys.of(beacon);
+    }
+}
@@ -0,0 +1,193 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.SyncResponse;
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.model.ChangeLogEntry;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.ChangeLogEntry.Op;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.model.POI;
+import com.wayfinding.indoor.repository.BeaconRepository;
+import com.wayfinding.indoor.repository.BuildingRepository;
+import com.wayfinding.indoor.repository.ChangeLogRepository;
+import com.wayfinding.indoor.repository.FloorRepository;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.POIRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Delta sync of a building's floors, POIs, beacons and routing graph for offline clients.
+ * A client sends the sequence of its last sync and gets only what changed since, read
+ * from the change log (see ChangeLogService): the current version of each changed
+ * document, the ids of deleted ones, and the whole contents of floors reset by bulk
+ * writes. Several changes to one document collapse into one. Clients without a
+ * sequence, or further behind than the log reaches, get a full sync instead.
+ * <p>
+ * The collections of a response are read independently of each other, so they fan out
+ * through {@link QueryFanOut} when it is parallel.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SyncService {
+
+    // A write takes its sequence before its entry is stored, so a later entry can be
+    // visible first. A gap younger than this is waited for; an older one is a lost write.
+    private static final Duration GAP_GRACE = Duration.ofSeconds(30);
+
+    private final ChangeLogService changeLogService;
+    private final ChangeLogRepository changeLogRepository;
+    private final BuildingRepository buildingRepository;
+    private final FloorRepository floorRepository;
+    private final POIRepository poiRepository;
+    private final BeaconRepository beaconRepository;
+    private final GraphNodeRepository nodeRepository;
+    private final GraphEdgeRepository edgeRepository;
+    private final QueryFanOut queryFanOut;
+
+    @Value("${wayfinding.sync.max-changes:1000}")
+    private int maxChanges = 1000;
+
+    public SyncResponse changesSince(String buildingId, long since) {
+        // Read before the data, so anything written meanwhile is sent again next time
+        long current = changeLogService.currentSequence(buildingId);
+        if (since <= 0 || since > current
+                || since < current && !changeLogRepository.existsByBuildingIdAndSeqLessThanEqual(buildingId, since + 1)) {
+            return full(buildingId, since, current);
+        }
+
+        SyncResponse response = new SyncResponse();
+        response.setBuildingId(buildingId);
+        response.setSince(since);
+        response.setSequence(since);
+        if (since == current) {
+            return response;
+        }
+
+        List<ChangeLogEntry> entries = changeLogRepository.findByBuildingIdAndSeqGreaterThanOrderBySeqAsc(
+                buildingId, since, PageRequest.of(0, Math.max(1, maxChanges)));
+        LocalDateTime settled = LocalDateTime.now().minus(GAP_GRACE);
+        Map<Kind, Pending> pending = new EnumMap<>(Kind.class);
+        long sequence = since;
+        boolean gap = false;
+        for (ChangeLogEntry entry : entries) {
+            if (entry.getSeq() != sequence + 1 && entry.getChangedAt().isAfter(settled)) {
+                gap = true;
+                break;
+            }
+            pending.computeIfAbsent(entry.getKind(), kind -> new Pending()).add(entry);
+            sequence = entry.getSeq();
+        }
+        response.setSequence(sequence);
+        response.setHasMore(!gap && entries.size() >= maxChanges && sequence < current);
+
+        Pending building = pending.get(Kind.BUILDING);
+        queryFanOut.all(
+                () -> {
+                    if (building != null) {
+                        building.documents.forEach((id, op) -> {
+                            response.setBuilding(op == Op.UPSERT ? buildingRepository.findById(id).orElse(null) : null);
+                            response.setBuildingDeleted(response.getBuilding() == null);
+                        });
+                    }
+                },
+                () -> fill(response.getFloors(), pending.get(Kind.FLOOR), buildingId,
+                        floorRepository::findAllById, (b, f) -> List.of(), Floor::getId),
+                () -> fill(response.getPois(), pending.get(Kind.POI), buildingId,
+                        poiRepository::findAllById, poiRepository::findByBuildingIdAndFloorId, POI::getId),
+                () -> fill(response.getBeacons(), pending.get(Kind.BEACON), buildingId,
+                        beaconRepository::findAllById, beaconRepository::findByBuildingIdAndFloorId, Beacon::getId),
+                () -> fill(response.getNodes(), pending.get(Kind.NODE), buildingId,
+                        nodeRepository::findAllById, nodeRepository::findByBuildingIdAndFloorId, GraphNode::getId),
+                () -> fill(response.getEdges(), pending.get(Kind.EDGE), buildingId,
+                        edgeRepository::findAllById, edgeRepository::findByBuildingIdAndFloorId, GraphEdge::getId));
+        log.debug("Sync of {} from {} to {}: {} log entries", buildingId, since, sequence, entries.size());
+        return response;
+    }
+
+    private SyncResponse full(String buildingId, long since, long current) {
+        SyncResponse response = new SyncResponse();
+        response.setBuildingId(buildingId);
+        response.setSince(since);
+        response.setSequence(current);
+        response.setFull(true);
+        queryFanOut.all(
+                () -> response.setBuilding(buildingRepository.findById(buildingId).orElse(null)),
+                () -> response.getFloors().setUpserted(floorRepository.findByBuildingIdOrderByFloorNumberAsc(buildingId)),
+                () -> response.getPois().setUpserted(poiRepository.findByBuildingId(buildingId)),
+                () -> response.getBeacons().setUpserted(beaconRepository.findByBuildingId(buildingId)),
+                () -> response.getNodes().setUpserted(nodeRepository.findByBuildingId(buildingId)),
+                () -> response.getEdges().setUpserted(edgeRepository.findByBuildingId(buildingId)));
+        log.info("Full sync of {} at sequence {}", buildingId, current);
+        return response;
+    }
+
+    private static <T> void fill(SyncResponse.Changes<T> changes, Pending pending, String buildingId,
+                                 Function<List<String>, Iterable<T>> byIds,
+                                 BiFunction<String, String, List<T>> byFloor,
+                                 Function<T, String> id) {
+        if (pending == null) {
+            return;
+        }
+        for (String floorId : pending.resetFloors) {
+            changes.getResetFloors().add(floorId);
+            changes.getUpserted().addAll(byFloor.apply(buildingId, floorId));
+        }
+        List<String> upserted = pending.documents.entrySet().stream()
+                .filter(e -> e.getValue() == Op.UPSERT).map(Map.Entry::getKey).toList();
+        Set<String> found = new HashSet<>();
+        if (!upserted.isEmpty()) {
+            for (T document : byIds.apply(upserted)) {
+                changes.getUpserted().add(document);
+                found.add(id.apply(document));
+            }
+        }
+        pending.documents.forEach((documentId, op) -> {
+            // Upserted documents that are gone by now were deleted after the entry was read
+            if (op == Op.DELETE || !found.contains(documentId)) {
+                changes.getDeleted().add(documentId);
+            }
+        });
+    }
+
+    /**
+     * Net effect of the entries of one kind: reset floors and the last op per document.
+     * A reset covers earlier and later single-document entries on its floor.
+     */
+    private static final class Pending {
+        final Set<String> resetFloors = new LinkedHashSet<>();
+        final Map<String, Op> documents = new LinkedHashMap<>();
+        final Map<String, String> floors = new HashMap<>();
+
+        void add(ChangeLogEntry entry) {
+            if (entry.getOp() == Op.RESET) {
+                resetFloors.add(entry.getFloorId());
+                documents.keySet().removeIf(id -> Objects.equals(floors.get(id), entry.getFloorId()));
+            } else if (!resetFloors.contains(entry.getFloorId())) {
+                documents.put(entry.getDocumentId(), entry.getOp());
+                floors.put(entry.getDocumentId(), entry.getFloorId());
+            }
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package com.wayfinding.indoor.service;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Derives a navigation graph from a floor map. Light pixels are walkable; the image is
+ * reduced to an occupancy grid of cellSize x cellSize cells, corridors are thinned to a
+ * one-cell-wide skeleton (Zhang-Suen) and the skeleton is traced into edges between its
+ * endpoints and junctions. Each traced path is simplified (Douglas-Peucker) and long
+ * straight runs are split, so the graph follows corridor centre lines with few nodes.
+ * <p>
+ * The occupancy grid is built as for {@link WalkableMask}. Grid building and every
+ * thinning pass run row-parallel on the common fork-join pool; tracing is linear in the
+ * skeleton and runs on the calling thread.
+ */
+public final class WalkableGraphGenerator {
+
+    // Neighbour offsets P2..P9 in Zhang-Suen order: N, NE, E, SE, S, SW, W, NW
+    private static final int[] DX = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] DY = {-1, -1, 0, 1, 1, 1, 0, -1};
+
+    /**
+     * @param cellSize           map pixels per grid cell
+     * @param luminanceThreshold pixels at least this light (0-255) are walkable
+     * @param simplifyTolerance  max deviation of a simplified path from the skeleton, in cells
+     * @param minBranchCells     dead-end branches shorter than this are pruned as noise
+     * @param maxEdgeCells       longer edges are split so nodes stay close to any position
+     */
+    public record Options(int cellSize, int luminanceThreshold, double simplifyTolerance,
+                          int minBranchCells, int maxEdgeCells) {}
+
+    public record Result(CompiledGraph graph, int gridWidth, int gridHeight, int walkableCells,
+                         int skeletonCells) {}
+
+    private final Options options;
+    private final int width;
+    private final int height;
+    // Padded by one cell on every side, so neighbour reads never leave the array
+    private final int stride;
+    private final byte[] grid;
+
+    private WalkableGraphGenerator(Options options, int width, int height, byte[] grid) {
+        this.options = options;
+        this.width = width;
+        this.height = height;
+        this.stride = width + 2;
+        this.grid = grid;
+    }
+
+    /**
+     * @param unitsPerPixelX map units (Floor.width) per image pixel, horizontally
+     * @param unitsPerPixelY map units (Floor.height) per image pixel, vertically
+     */
+    public static Result generate(String buildingId, String floorId, BufferedImage image,
+                                  double unitsPerPixelX, double unitsPerPixelY, Options options) {
+        int cell = Math.max(1, options.cellSize());
+        WalkableGraphGenerator generator = new WalkableGraphGenerator(options,
+                (image.getWidth() + cell - 1) / cell, (image.getHeight() + cell - 1) / cell,
+                WalkableMask.occupancy(image, cell, options.luminanceThreshold(), 1));
+        int walkable = generator.count();
+        generator.thin();
+        generator.removeStaircases();
+        int skeleton = generator.count();
+        CompiledGraph graph = generator.trace(buildingId, floorId, cell * unitsPerPixelX, cell * unitsPerPixelY);
+        return new Result(graph, generator.width, generator.height, walkable, skeleton);
+    }
+
+    private int index(int x, int y) {
+        return (y + 1) * stride + x + 1;
+    }
+
+    /**
+     * Zhang-Suen thinning. Each sub-iteration decides every cell against the same grid,
+     * so rows can be marked in parallel and the result does not depend on scheduling.
+     */
+    private void thin() {
+        byte[] marks = new byte[grid.length];
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int step = 0; step < 2; step++) {
+                int first = step;
+                int marked = IntStream.range(0, height).parallel().map(y -> {
+                    int count = 0;
+                    for (int x = 0; x < width; x++) {
+                        int i = index(x, y);
+                        if (grid[i] == 1 && removable(i, first == 0)) {
+                            marks[i] = 1;
+                            count++;
+                        }
+                    }
+                    return count;
+                }).sum();
+                if (marked > 0) {
+                    changed = true;
+                    IntStream.range(0, height).parallel().forEach(y -> {
+                        for (int i = index(0, y), end = i + width; i < end; i++) {
+                            if (marks[i] == 1) {
+                                grid[i] = 0;
+                                marks[i] = 0;
+                            }
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private boolean removable(int i, boolean firstStep) {
+        int[] p = new int[8];
+        int neighbours = 0;
+        for (int k = 0; k < 8; k++) {
+            p[k] = grid[i + DY[k] * stride + DX[k]];
+            neighbours += p[k];
+        }
+        if (neighbours < 2 || neighbours > 6) {
+            return false;
+        }
+        int transitions = 0;
+        for (int k = 0; k < 8; k++) {
+            if (p[k] == 0 && p[(k + 1) % 8] == 1) {
+                transitions++;
+            }
+        }
+        if (transitions != 1) {
+            return false;
+        }
+        // p[0]=N, p[2]=E, p[4]=S, p[6]=W
+        return firstStep
+                ? p[0] * p[2] * p[4] == 0 && p[2] * p[4] * p[6] == 0
+                : p[0] * p[2] * p[6] == 0 && p[0] * p[4] * p[6] == 0;
+    }
+
+    /**
+     * Drop the inner corner of staircase steps (a cell with two orthogonal neighbours that
+     * touch diagonally and nothing on the opposite side), so skeleton lines are strictly
+     * one cell wide and only real junctions have more than two neighbours.
+     */
+    private void removeStaircases() {
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = index(x, y);
+                if (grid[i] == 0) {
+                    continue;
+                }
+                for (int k = 0; k < 8; k += 2) {
+                    // Orthogonal pair k, k+2 set; the three cells opposite (k+4, k+5, k+6) empty
+                    if (at(i, k) == 1 && at(i, k + 2) == 1
+                            && at(i, k + 4) == 0 && at(i, k + 5) == 0 && at(i, k + 6) == 0) {
+                        grid[i] = 0;
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private int at(int i, int direction) {
+        int k = direction % 8;
+        return grid[i + DY[k] * stride + DX[k]];
+    }
+
+    private int count() {
+        int cells = 0;
+        for (byte b : grid) {
+            cells += b;
+        }
+        return cells;
+    }
+
+    private int degree(int i) {
+        int degree = 0;
+        for (int k = 0; k < 8; k++) {
+            degree += at(i, k);
+        }
+        return degree;
+    }
+
+    private CompiledGraph trace(String buildingId, String floorId, double unitsPerCellX, double unitsPerCellY) {
+        // Cells with other than two neighbours are graph vertices; touching ones form one vertex
+        int[] cluster = new int[grid.length];
+        Arrays.fill(cluster, -1);
+        List<double[]> vertices = new ArrayList<>();
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = index(x, y);
+                if (grid[i] == 1 && cluster[i] < 0 && degree(i) != 2 && degree(i) > 0) {
+                    vertices.add(flood(i, vertices.size(), cluster));
+                }
+            }
+        }
+
+        List<Chain> chains = new ArrayList<>();
+        boolean[] visited = new boolean[grid.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = index(x, y);
+                if (cluster[i] >= 0) {
+                    traceFrom(i, cluster, visited, chains, vertices);
+                }
+            }
+        }
+        // Closed corridors without any junction: open each loop at its first cell
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = index(x, y);
+                if (grid[i] == 1 && cluster[i] < 0 && !visited[i]) {
+                    cluster[i] = vertices.size();
+                    vertices.add(new double[]{x, y, 1});
+                    traceFrom(i, cluster, visited, chains, vertices);
+                }
+            }
+        }
+
+        prune(chains, vertices.size());
+        return build(buildingId, floorId, vertices, chains, unitsPerCellX, unitsPerCellY);
+    }
+
+    /**
+     * Collect the vertex cells connected to start; returns the centroid and cell count
+     */
+    private double[] flood(int start, int id, int[] cluster) {
+        List<Integer> stack = new ArrayList<>();
+        stack.add(start);
+        cluster[start] = id;
+        double sx = 0;
+        double sy = 0;
+        int cells = 0;
+        while (!stack.isEmpty()) {
+            int i = stack.remove(stack.size() - 1);
+            sx += i % stride - 1;
+            sy += i / stride - 1;
+            cells++;
+            for (int k = 0; k < 8; k++) {
+                int j = i + DY[k] * stride + DX[k];
+                if (grid[j] == 1 && cluster[j] < 0 && degree(j) != 2) {
+                    cluster[j] = id;
+                    stack.add(j);
+                }
+            }
+        }
+        return new double[]{sx / cells, sy / cells, cells};
+    }
+
+    private void traceFrom(int start, int[] cluster, boolean[] visited, List<Chain> chains, List<double[]> vertices) {
+        int from = cluster[start];
+        visited[start] = true;
+        for (int k = 0; k < 8; k++) {
+            int next = start + DY[k] * stride + DX[k];
+            if (grid[next] == 0 || cluster[next] == from || visited[next] && cluster[next] < 0) {
+                continue;
+            }
+            List<Integer> path = new ArrayList<>();
+            path.add(start);
+            int previous = start;
+            int current = next;
+            while (cluster[current] < 0) {
+                visited[current] = true;
+                path.add(current);
+                int following = -1;
+                for (int d = 0; d < 8; d++) {
+                    int j = current + DY[d] * stride + DX[d];
+                    if (grid[j] == 1 && j != previous && (cluster[j] >= 0 && j != start || !visited[j])) {
+                        following = j;
+                        break;
+                    }
+                    if (grid[j] == 1 && j == start && path.size() > 2) {
+                        following = j;
+                    }
+                }
+                if (following < 0) {
+                    // Dead end without a vertex (should not happen after thinning); end the chain here
+                    cluster[current] = vertices.size();
+                    vertices.add(new double[]{current % stride - 1, current / stride - 1, 1});
+                    break;
+                }
+                previous = current;
+                current = following;
+            }
+            path.add(current);
+            int to = cluster[current];
+            // Adjacent vertices are seen from both sides; keep one edge
+            if (path.size() > 2 || from < to) {
+                chains.add(new Chain(from, to, path));
+            }
+        }
+    }
+
+    /**
+     * Remove short dead ends hanging off junctions (thinning turns bumps in walls into
+     * them) and duplicate links between vertices that touch in several cells
+     */
+    private void prune(List<Chain> chains, int vertexCount) {
+        Set<Long> direct = new HashSet<>();
+        chains.removeIf(chain -> chain.cells.size() == 2
+                && !direct.add((long) Math.min(chain.from, chain.to) << 32 | Math.max(chain.from, chain.to)));
+        int[] degree = new int[vertexCount];
+        for (Chain chain : chains) {
+            degree[chain.from]++;
+            degree[chain.to]++;
+        }
+        chains.removeIf(chain -> chain.cells.size() < options.minBranchCells()
+                && (degree[chain.from] == 1 && degree[chain.to] >= 3 || degree[chain.to] == 1 && degree[chain.from] >= 3));
+    }
+
+    private CompiledGraph build(String buildingId, String floorId, List<double[]> vertices, List<Chain> chains,
+                                double unitsPerCellX, double unitsPerCellY) {
+        CompiledGraph.Builder builder = CompiledGraph.builder(buildingId, floorId);
+        boolean[] used = new boolean[vertices.size()];
+        for (Chain chain : chains) {
+            used[chain.from] = true;
+            used[chain.to] = true;
+        }
+        int[] ids = new int[vertices.size()];
+        int next = 0;
+        for (int v = 0; v < vertices.size(); v++) {
+            if (used[v]) {
+                ids[v] = next++;
+                builder.addNode(nodeId(floorId, ids[v]), (vertices.get(v)[0] + 0.5) * unitsPerCellX,
+                        (vertices.get(v)[1] + 0.5) * unitsPerCellY);
+            }
+        }
+
+        for (Chain chain : chains) {
+            List<double[]> points = new ArrayList<>();
+            points.add(vertices.get(chain.from));
+            for (int c = 1; c < chain.cells.size() - 1; c++) {
+                int i = chain.cells.get(c);
+                points.add(new double[]{i % stride - 1, i / stride - 1});
+            }
+            points.add(vertices.get(chain.to));
+            List<double[]> kept = split(simplify(points));
+
+            String previous = nodeId(floorId, ids[chain.from]);
+            double[] last = kept.get(0);
+            for (int k = 1; k < kept.size(); k++) {
+                double[] point = kept.get(k);
+                String id;
+                if (k == kept.size() - 1) {
+                    id = nodeId(floorId, ids[chain.to]);
+                } else {
+                    id = nodeId(floorId, next++);
+                    builder.addNode(id, (point[0] + 0.5) * unitsPerCellX, (point[1] + 0.5) * unitsPerCellY);
+                }
+                builder.addEdge(previous, id, Math.hypot((point[0] - last[0]) * unitsPerCellX,
+                        (point[1] - last[1]) * unitsPerCellY));
+                previous = id;
+                last = point;
+            }
+        }
+        return builder.build();
+    }
+
+    private static String nodeId(String floorId, int n) {
+        return floorId + "-g" + n;
+    }
+
+    /**
+     * Douglas-Peucker; the end points are always kept
+     */
+    private List<double[]> simplify(List<double[]> points) {
+        boolean[] keep = new boolean[points.size()];
+        keep[0] = true;
+        keep[points.size() - 1] = true;
+        simplify(points, 0, points.size() - 1, keep);
+        // A closed loop collapses onto its start; keep its far side so it stays a loop
+        if (points.size() > 3 && distance(points.get(0), points.get(points.size() - 1)) < 1e-9) {
+            keep[points.size() / 3] = true;
+            keep[2 * points.size() / 3] = true;
+        }
+        List<double[]> kept = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            if (keep[i]) {
+                kept.add(points.get(i));
+            }
+        }
+        return kept;
+    }
+
+    private void simplify(List<double[]> points, int first, int last, boolean[] keep) {
+        if (last - first < 2) {
+            return;
+        }
+        double[] a = points.get(first);
+        double[] b = points.get(last);
+        int farthest = -1;
+        double max = options.simplifyTolerance();
+        for (int i = first + 1; i < last; i++) {
+            double d = segmentDistance(points.get(i), a, b);
+            if (d > max) {
+                max = d;
+                farthest = i;
+            }
+        }
+        if (farthest >= 0) {
+            keep[farthest] = true;
+            simplify(points, first, farthest, keep);
+            simplify(points, farthest, last, keep);
+        }
+    }
+
+    /**
+     * Insert evenly spaced points into segments longer than maxEdgeCells
+     */
+    private List<double[]> split(List<double[]> points) {
+        int max = options.maxEdgeCells();
+        if (max <= 0) {
+            return points;
+        }
+        List<double[]> result = new ArrayList<>();
+        result.add(points.get(0));
+        for (int i = 1; i < points.size(); i++) {
+            double[] a = points.get(i - 1);
+            double[] b = points.get(i);
+            int parts = (int) Math.ceil(distance(a, b) / max);
+            for (int p = 1; p < parts; p++) {
+                double t = (double) p / parts;
+                result.add(new double[]{a[0] + (b[0] - a[0]) * t, a[1] + (b[1] - a[1]) * t});
+            }
+            result.add(b);
+        }
+        return result;
+    }
+
+    private static double distance(double[] a, double[] b) {
+        return Math.hypot(a[0] - b[0], a[1] - b[1]);
+    }
+
+    private static double segmentDistance(double[] p, double[] a, double[] b) {
+        double dx = b[0] - a[0];
+        double dy = b[1] - a[1];
+        double lengthSquared = dx * dx + dy * dy;
+        if (lengthSquared == 0) {
+            return distance(p, a);
+        }
+        double t = Math.max(0, Math.min(1, ((p[0] - a[0]) * dx + (p[1] - a[1]) * dy) / lengthSquared));
+        return Math.hypot(p[0] - (a[0] + t * dx), p[1] - (a[1] + t * dy));
+    }
+
+    /**
+     * Skeleton path between two vertices; cells are grid indexes including both ends
+     */
+    private record Chain(int from, int to, List<Integer> cells) {}
+}
@@ -0,0 +1,158 @@
+package com.wayfinding.indoor.service;
+
+import java.awt.image.BufferedImage;
+import java.util.stream.IntStream;
+
+/**
+ * Walkable area of a floor as a bit grid in floor coordinates, for line-of-sight tests.
+ * Cells closer than the clearance to a wall are cleared when the mask is built, so a
+ * visible segment keeps that distance from walls and each test is a single grid walk.
+ */
+public final class WalkableMask {
+
+    private final int width;
+    private final int height;
+    private final double unitsPerCellX;
+    private final double unitsPerCellY;
+    private final long[] bits;
+
+    private WalkableMask(int width, int height, double unitsPerCellX, double unitsPerCellY, long[] bits) {
+        this.width = width;
+        this.height = height;
+        this.unitsPerCellX = unitsPerCellX;
+        this.unitsPerCellY = unitsPerCellY;
+        this.bits = bits;
+    }
+
+    /**
+     * @param cellSize  image pixels per cell
+     * @param clearance cells that must stay free between a visible segment and a wall
+     */
+    public static WalkableMask fromImage(BufferedImage image, int cellSize, int luminanceThreshold,
+                                         double unitsPerPixelX, double unitsPerPixelY, int clearance) {
+        int cell = Math.max(1, cellSize);
+        int width = (image.getWidth() + cell - 1) / cell;
+        int height = (image.getHeight() + cell - 1) / cell;
+        byte[] grid = occupancy(image, cell, luminanceThreshold, 0);
+
+        // Chessboard distance to the nearest blocked cell (outside the map counts as blocked)
+        int[] distance = new int[grid.length];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (grid[i] == 0) {
+                    continue;
+                }
+                int d = Math.min(x, y) + 1;
+                if (x > 0) d = Math.min(d, distance[i - 1] + 1);
+                if (y > 0) {
+                    d = Math.min(d, distance[i - width] + 1);
+                    if (x > 0) d = Math.min(d, distance[i - width - 1] + 1);
+                    if (x < width - 1) d = Math.min(d, distance[i - width + 1] + 1);
+                }
+                distance[i] = d;
+            }
+        }
+        long[] bits = new long[(grid.length + 63) / 64];
+        for (int y = height - 1; y >= 0; y--) {
+            for (int x = width - 1; x >= 0; x--) {
+                int i = y * width + x;
+                if (grid[i] == 0) {
+                    continue;
+                }
+                int d = Math.min(distance[i], Math.min(width - x, height - y));
+                if (x < width - 1) d = Math.min(d, distance[i + 1] + 1);
+                if (y < height - 1) {
+                    d = Math.min(d, distance[i + width] + 1);
+                    if (x < width - 1) d = Math.min(d, distance[i + width + 1] + 1);
+                    if (x > 0) d = Math.min(d, distance[i + width - 1] + 1);
+                }
+                distance[i] = d;
+                if (d > clearance) {
+                    bits[i >>> 6] |= 1L << i;
+                }
+            }
+        }
+        return new WalkableMask(width, height, cell * unitsPerPixelX, cell * unitsPerPixelY, bits);
+    }
+
+    /**
+     * Cells of cell x cell pixels, 1 where more than half the pixels are light and opaque,
+     * surrounded by pad blocked cells on every side. Rows are classified in parallel.
+     */
+    static byte[] occupancy(BufferedImage image, int cell, int luminanceThreshold, int pad) {
+        int width = (image.getWidth() + cell - 1) / cell;
+        int height = (image.getHeight() + cell - 1) / cell;
+        int stride = width + 2 * pad;
+        byte[] grid = new byte[stride * (height + 2 * pad)];
+        IntStream.range(0, height).parallel().forEach(cy -> {
+            int top = cy * cell;
+            int rows = Math.min(cell, image.getHeight() - top);
+            int[] counts = new int[width];
+            int[] line = new int[image.getWidth()];
+            for (int r = 0; r < rows; r++) {
+                image.getRGB(0, top + r, image.getWidth(), 1, line, 0, image.getWidth());
+                for (int px = 0; px < line.length; px++) {
+                    int argb = line[px];
+                    int luminance = (299 * ((argb >> 16) & 0xff) + 587 * ((argb >> 8) & 0xff) + 114 * (argb & 0xff)) / 1000;
+                    if ((argb >>> 24) >= 128 && luminance >= luminanceThreshold) {
+                        counts[px / cell]++;
+                    }
+                }
+            }
+            int offset = (cy + pad) * stride + pad;
+            for (int cx = 0; cx < width; cx++) {
+                int columns = Math.min(cell, image.getWidth() - cx * cell);
+                if (counts[cx] * 2 > rows * columns) {
+                    grid[offset + cx] = 1;
+                }
+            }
+        });
+        return grid;
+    }
+
+    /**
+     * Whether every cell the segment passes through is walkable with clearance
+     */
+    public boolean lineOfSight(double x1, double y1, double x2, double y2) {
+        double fx = x1 / unitsPerCellX;
+        double fy = y1 / unitsPerCellY;
+        double tx = x2 / unitsPerCellX;
+        double ty = y2 / unitsPerCellY;
+        int x = (int) Math.floor(fx);
+        int y = (int) Math.floor(fy);
+        int endX = (int) Math.floor(tx);
+        int endY = (int) Math.floor(ty);
+        // Amanatides-Woo grid traversal
+        double dx = tx - fx;
+        double dy = ty - fy;
+        int stepX = dx > 0 ? 1 : -1;
+        int stepY = dy > 0 ? 1 : -1;
+        double deltaX = dx == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dx);
+        double deltaY = dy == 0 ? Double.POSITIVE_INFINITY : Math.abs(1 / dy);
+        double maxX = dx == 0 ? Double.POSITIVE_INFINITY : (dx > 0 ? x + 1 - fx : fx - x) * deltaX;
+        double maxY = dy == 0 ? Double.POSITIVE_INFINITY : (dy > 0 ? y + 1 - fy : fy - y) * deltaY;
+        int steps = Math.abs(endX - x) + Math.abs(endY - y);
+        for (int s = 0; s <= steps; s++) {
+            if (!walkable(x, y)) {
+                return false;
+            }
+            if (maxX < maxY) {
+                maxX += deltaX;
+                x += stepX;
+            } else {
+                maxY += deltaY;
+                y += stepY;
+            }
+        }
+        return true;
+    }
+
+    private boolean walkable(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return false;
+        }
+        int i = y * width + x;
+        return (bits[i >>> 6] & 1L << i) != 0;
+    }
+}
@@ -0,0 +1,56 @@
+package com.wayfinding.indoor.util;
+
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.model.Beacon;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helpers for keying beacons by iBeacon identity ("UUID:major:minor", UUID upper-cased).
+ */
+public class BeaconKeys {
+
+    public static String of(String uuid, Integer major, Integer minor) {
+        if (uuid == null || major == null || minor == null) {
+            return "";
+        }
+        return uuid.trim().toUpperCase() + ":" + major + ":" + minor;
+    }
+
+    public static String of(Beacon beacon) {
+        return of(beacon.getUuid(), beacon.getMajor(), beacon.getMinor());
+    }
+
+    public static String of(BeaconScanRequest.ScannedBeacon scanned) {
+        return of(scanned.getUuid(), scanned.getMajor(), scanned.getMinor());
+    }
+
+    /**
+     * Upper- and lower-case UUID variants of the scanned beacons, for a single $in lookup
+     * that also matches beacons stored before UUIDs were normalized.
+     */
+    public static Set<String> uuidVariants(Collection<BeaconScanRequest.ScannedBeacon> scanned) {
+        Set<String> uuids = new HashSet<>();
+        for (BeaconScanRequest.ScannedBeacon b : scanned) {
+            if (b.getUuid() == null || b.getUuid().trim().isEmpty()) {
+                continue;
+            }
+            String uuid = b.getUuid().trim();
+            uuids.add(uuid.toUpperCase());
+            uuids.add(uuid.toLowerCase());
+        }
+        return uuids;
+    }
+
+    public static Map<String, Beacon> index(Iterable<Beacon> beacons) {
+        Map<String, Beacon> registry = new HashMap<>();
+        for (Beacon beacon : beacons) {
+            registry.putIfAbsent(of(beacon), beacon);
+        }
+        return registry;
+    }
+}
@@ -1,32 +1,203 @@
 package com.wayfinding.indoor.util;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
-public class EdgeCsvImporter {
+/**
+ * Reads "fromNodeId,toNodeId" edge lists. Rows are read one at a time from a fixed char
+ * buffer and fields are located in place, so only the two node ids of each row are
+ * materialized and memory stays flat regardless of the input size. A header row
+ * ("from..." or "node...") is skipped when it is the first non-empty line.
+ */
+public class EdgeCsvImporter implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private char[] buf;
+    private int pos;
+    private int limit;
+    private boolean eof;
+    private boolean firstRow = true;
+    private long lineNumber;
+    private long skippedLines;
+
+    public EdgeCsvImporter(InputStream in) {
+        this(new InputStreamReader(in, StandardCharsets.UTF_8), DEFAULT_BUFFER_SIZE);
+    }
+
+    EdgeCsvImporter(Reader reader, int bufferSize) {
+        this.reader = reader;
+        this.buf = new char[bufferSize];
+    }
 
     public static List<EdgePair> parseCsv(String csvText) {
         List<EdgePair> pairs = new ArrayList<>();
         if (csvText == null || csvText.trim().isEmpty()) {
             return pairs;
         }
-        String[] lines = csvText.split("\\r?\\n");
-        for (String raw : lines) {
-            String line = raw.trim();
-            if (line.isEmpty()) continue;
-            if (line.toLowerCase().startsWith("from") || line.toLowerCase().startsWith("node")) {
-                continue; // skip header
-            }
-            String[] parts = line.split(",");
-            if (parts.length < 2) continue;
-            String from = parts[0].trim();
-            String to = parts[1].trim();
-            if (!from.isEmpty() && !to.isEmpty()) {
-                pairs.add(new EdgePair(from, to));
+        try (EdgeCsvImporter importer = new EdgeCsvImporter(new StringReader(csvText), DEFAULT_BUFFER_SIZE)) {
+            EdgePair pair;
+            while ((pair = importer.next()) != null) {
+                pairs.add(pair);
             }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
         return pairs;
     }
 
+    /**
+     * Next edge pair, or null at the end of the input.
+     * Rows without two non-empty fields are skipped and counted in {@link #skippedLines()}.
+     */
+    public EdgePair next() throws IOException {
+        while (true) {
+            int end = findLineEnd();
+            if (end < 0) {
+                return null;
+            }
+            int start = pos;
+            pos = end < limit ? end + 1 : end;
+            lineNumber++;
+            EdgePair pair = parseLine(start, end);
+            if (pair != null) {
+                return pair;
+            }
+        }
+    }
+
+    /**
+     * 1-based number of the line last returned by {@link #next()}
+     */
+    public long lineNumber() {
+        return lineNumber;
+    }
+
+    public long skippedLines() {
+        return skippedLines;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Index of the '\n' ending the current line (or of the end of the input for a last
+     * line without one), refilling or growing the buffer as needed; -1 when exhausted.
+     */
+    private int findLineEnd() throws IOException {
+        int scanFrom = pos;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buf[i] == '\n') {
+                    return i;
+                }
+            }
+            if (eof) {
+                return pos < limit ? limit : -1;
+            }
+            scanFrom = limit - pos;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        if (pos > 0) {
+            System.arraycopy(buf, pos, buf, 0, limit - pos);
+            limit -= pos;
+            pos = 0;
+        }
+        if (limit == buf.length) {
+            // A single line longer than the buffer
+            buf = Arrays.copyOf(buf, buf.length * 2);
+        }
+        int read = reader.read(buf, limit, buf.length - limit);
+        if (read < 0) {
+            eof = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private EdgePair parseLine(int start, int end) {
+        if (lineNumber == 1 && start < end && buf[start] == '\uFEFF') {
+            start++;
+        }
+        start = skipWhitespace(start, end);
+        end = trimWhitespace(start, end);
+        if (start == end) {
+            return null;
+        }
+        if (firstRow) {
+            firstRow = false;
+            if (startsWithIgnoreCase(start, end, "from") || startsWithIgnoreCase(start, end, "node")) {
+                return null;
+            }
+        }
+
+        int comma = indexOf(',', start, end);
+        if (comma < 0) {
+            skippedLines++;
+            return null;
+        }
+        int secondComma = indexOf(',', comma + 1, end);
+        int toEnd = secondComma < 0 ? end : secondComma;
+
+        int fromEnd = trimWhitespace(start, comma);
+        int toStart = skipWhitespace(comma + 1, toEnd);
+        toEnd = trimWhitespace(toStart, toEnd);
+        if (fromEnd == start || toEnd == toStart) {
+            skippedLines++;
+            return null;
+        }
+        return new EdgePair(new String(buf, start, fromEnd - start), new String(buf, toStart, toEnd - toStart));
+    }
+
+    private int indexOf(char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buf[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int skipWhitespace(int from, int to) {
+        while (from < to && buf[from] <= ' ') {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimWhitespace(int from, int to) {
+        while (to > from && buf[to - 1] <= ' ') {
+            to--;
+        }
+        return to;
+    }
+
+    private boolean startsWithIgnoreCase(int from, int to, String prefix) {
+        if (to - from < prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (Character.toLowerCase(buf[from + i]) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public record EdgePair(String fromNodeId, String toNodeId) {}
 }
@@ -0,0 +1,75 @@
+package com.wayfinding.indoor.util;
+
+/**
+ * Encoded polyline format (as used by Google Maps) for route coordinates: each value is
+ * scaled by 10^precision, rounded, delta-encoded against the previous point and written
+ * as zig-zagged 5-bit groups in printable ASCII (63..126). A route point usually takes
+ * 2-6 characters instead of a JSON object.
+ */
+public class PolylineCodec {
+
+    public static final int MAX_PRECISION = 7;
+
+    public static String encode(double[] xs, double[] ys, int precision) {
+        double scale = Math.pow(10, precision);
+        StringBuilder out = new StringBuilder(xs.length * 6);
+        long lastX = 0;
+        long lastY = 0;
+        for (int i = 0; i < xs.length; i++) {
+            long x = Math.round(xs[i] * scale);
+            long y = Math.round(ys[i] * scale);
+            append(out, x - lastX);
+            append(out, y - lastY);
+            lastX = x;
+            lastY = y;
+        }
+        return out.toString();
+    }
+
+    /**
+     * @return points as {x0, y0, x1, y1, ...}
+     * @throws IllegalArgumentException when the string is not a valid polyline
+     */
+    public static double[] decode(String encoded, int precision) {
+        double scale = Math.pow(10, precision);
+        double[] values = new double[encoded.length()];
+        int count = 0;
+        long[] last = new long[2];
+        int i = 0;
+        while (i < encoded.length()) {
+            long result = 0;
+            int shift = 0;
+            int chunk;
+            do {
+                if (i >= encoded.length() || shift > 60) {
+                    throw new IllegalArgumentException("Truncated polyline");
+                }
+                chunk = encoded.charAt(i++) - 63;
+                if (chunk < 0 || chunk > 63) {
+                    throw new IllegalArgumentException("Invalid polyline character at " + (i - 1));
+                }
+                result |= (long) (chunk & 0x1f) << shift;
+                shift += 5;
+            } while (chunk >= 0x20);
+            long delta = (result & 1) != 0 ? ~(result >>> 1) : result >>> 1;
+            last[count % 2] += delta;
+            values[count] = last[count % 2] / scale;
+            count++;
+        }
+        if (count % 2 != 0) {
+            throw new IllegalArgumentException("Polyline has an odd number of values");
+        }
+        double[] points = new double[count];
+        System.arraycopy(values, 0, points, 0, count);
+        return points;
+    }
+
+    private static void append(StringBuilder out, long value) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            out.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>>= 5;
+        }
+        out.append((char) (v + 63));
+    }
+}
@@ -0,0 +1,88 @@
+package com.wayfinding.indoor.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wayfinding.indoor.controller.PositioningController;
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.dto.PositionResponse;
+import com.wayfinding.indoor.service.NavigationService;
+import com.wayfinding.indoor.service.PositioningService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class CborNegotiationTest {
+
+    private static final MediaType CBOR = MediaType.parseMediaType("application/cbor");
+
+    private final PositioningService positioningService = mock(PositioningService.class);
+    private final ObjectMapper json = new Jackson2ObjectMapperBuilder().build();
+    private MappingJackson2CborHttpMessageConverter cborConverter;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(positioningService.computePositionAsync(any())).thenReturn(Mono.just(PositionResponse.builder()
+                .buildingId("B1").floorId("F1").x(412.5).y(208.25).method("trilateration").beaconsUsed(3).valid(true)
+                .build()));
+        cborConverter = new WebConfig(json).cborHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new PositioningController(positioningService, mock(NavigationService.class)))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(json), cborConverter)
+                .build();
+    }
+
+    @Test
+    void scansAndPositionsTravelAsCborWhenNegotiated() throws Exception {
+        BeaconScanRequest scan = new BeaconScanRequest(List.of(
+                new BeaconScanRequest.ScannedBeacon("FDA50693-A4E2-4FB1-AFCF-C6EB07647825", 100, 1, -61)), "device-1");
+        ObjectMapper cbor = cborConverter.getObjectMapper();
+
+        MvcResult started = mockMvc.perform(post("/api/position")
+                        .contentType(CBOR).accept(CBOR).content(cbor.writeValueAsBytes(scan)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(content().contentType(CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        PositionResponse position = cbor.readValue(body, PositionResponse.class);
+        assertThat(position.getX()).isEqualTo(412.5);
+        assertThat(position.isValid()).isTrue();
+        ArgumentCaptor<BeaconScanRequest> received = ArgumentCaptor.forClass(BeaconScanRequest.class);
+        verify(positioningService).computePositionAsync(received.capture());
+        assertThat(received.getValue()).isEqualTo(scan);
+    }
+
+    @Test
+    void jsonRemainsTheDefault() throws Exception {
+        MvcResult started = mockMvc.perform(post("/api/position")
+                        .contentType(MediaType.APPLICATION_JSON).accept(MediaType.ALL)
+                        .content("{\"beacons\":[]}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.x").value(412.5));
+    }
+}
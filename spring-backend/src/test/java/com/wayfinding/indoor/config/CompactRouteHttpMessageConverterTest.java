@@ -0,0 +1,78 @@
+package com.wayfinding.indoor.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wayfinding.indoor.controller.NavigationController;
+import com.wayfinding.indoor.dto.NavigationPathResponse;
+import com.wayfinding.indoor.dto.NavigationPathResponse.PathPoint;
+import com.wayfinding.indoor.service.GraphNavigationService;
+import com.wayfinding.indoor.service.NavigationService;
+import com.wayfinding.indoor.util.PolylineCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+class CompactRouteHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        GraphNavigationService graphNavigationService = mock(GraphNavigationService.class);
+        when(graphNavigationService.computePathAsync(eq("B1"), eq("F1"), anyDouble(), anyDouble(), anyDouble(), anyDouble()))
+                .thenAnswer(invocation -> Mono.just(new NavigationPathResponse(List.of(
+                        new PathPoint(105.25, 85.5), new PathPoint(375, 200), new PathPoint(375, 405)))));
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new NavigationController(mock(NavigationService.class), graphNavigationService))
+                .setMessageConverters(new MappingJackson2HttpMessageConverter(objectMapper),
+                        new CompactRouteHttpMessageConverter(objectMapper, 2))
+                .build();
+    }
+
+    @Test
+    void plainJsonStaysTheDefault() throws Exception {
+        mockMvc.perform(asyncDispatch(navigate(MediaType.ALL)))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.path[1].x").value(375.0));
+    }
+
+    @Test
+    void compactEncodingIsNegotiatedWithTheAcceptHeader() throws Exception {
+        String body = mockMvc.perform(asyncDispatch(navigate(MediaType.parseMediaType(
+                        CompactRouteHttpMessageConverter.MEDIA_TYPE_VALUE + ";precision=1"))))
+                .andExpect(content().contentTypeCompatibleWith(CompactRouteHttpMessageConverter.MEDIA_TYPE))
+                .andExpect(jsonPath("$.precision").value(1))
+                .andExpect(jsonPath("$.points").value(3))
+                .andReturn().getResponse().getContentAsString();
+
+        String polyline = objectMapper.readTree(body).get("polyline").asText();
+        assertThat(PolylineCodec.decode(polyline, 1)).containsExactly(105.3, 85.5, 375, 200, 375, 405);
+    }
+
+    private MvcResult navigate(MediaType accept) throws Exception {
+        return mockMvc.perform(get("/api/navigation")
+                        .param("buildingId", "B1").param("floorId", "F1")
+                        .param("fromX", "100").param("fromY", "80").param("toX", "380").param("toY", "410")
+                        .accept(accept))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+    }
+}
@@ -0,0 +1,104 @@
+package com.wayfinding.indoor.config;
+
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.service.CollectionVersions;
+import com.wayfinding.indoor.service.MapDeliveryService;
+import com.wayfinding.indoor.service.MapImageStore;
+import com.wayfinding.indoor.service.RouteSmoother;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FloorMapImageMigrationTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void movesInlineImagesToTheStoreAndUnsetsTheField() throws Exception {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 1, 2, 3};
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Floor.class)).thenReturn("floors");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("floors"))).thenReturn(Stream.of(
+                floor("1", "F1", null, "data:image/webp;base64," + Base64.getEncoder().encodeToString(png)),
+                floor("2", "F2", null, Base64.getEncoder().encodeToString(png)),
+                floor("3", "F3", null, "/maps/B1/F3.png"),
+                floor("4", "F4", "/maps/B1/F4.png", "not base64 at all!")
+        ));
+
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        // A variant left by an image stored earlier under the same URL
+        Files.createDirectories(dir.resolve("B1"));
+        Files.write(dir.resolve("B1/F2.png.webp"), new byte[]{1});
+        RouteSmoother routeSmoother = mock(RouteSmoother.class);
+        CollectionVersions collectionVersions = mock(CollectionVersions.class);
+        int migrated = new FloorMapImageMigration(mongoTemplate, store, new MapDeliveryService(store), routeSmoother,
+                collectionVersions).migrate();
+
+        assertThat(migrated).isEqualTo(4);
+        assertThat(Files.readAllBytes(dir.resolve("B1/F1.webp"))).isEqualTo(png);
+        assertThat(Files.readAllBytes(dir.resolve("B1/F2.png"))).isEqualTo(png);
+        assertThat(dir.resolve("B1/F2.png.webp")).doesNotExist();
+        assertThat(Files.readString(dir.resolve("B1/F4.invalid.b64"))).isEqualTo("not base64 at all!");
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(4)).updateFirst(any(Query.class), updates.capture(), eq(Floor.class));
+        List<Document> applied = updates.getAllValues().stream().map(Update::getUpdateObject).toList();
+        assertThat(applied).allSatisfy(u -> assertThat(u.get("$unset", Document.class)).containsKey("mapImage"));
+        assertThat(applied.get(0).get("$set", Document.class)).containsEntry("mapImageUrl", "/maps/B1/F1.webp");
+        assertThat(applied.get(1).get("$set", Document.class)).containsEntry("mapImageUrl", "/maps/B1/F2.png");
+        assertThat(applied.get(2).get("$set", Document.class)).containsEntry("mapImageUrl", "/maps/B1/F3.png");
+        assertThat(applied.get(3).get("$set")).isNull();
+        // Tiles of an earlier image go with it; floors whose map stays keep theirs
+        assertThat(applied.get(0).get("$unset", Document.class)).containsKeys("mapTilesUrl", "mapTileMaxZoom");
+        assertThat(applied.get(3).get("$unset", Document.class)).doesNotContainKey("mapTilesUrl");
+        verify(routeSmoother).invalidate("B1", "F1");
+        verify(routeSmoother).invalidate("B1", "F3");
+        verify(routeSmoother, never()).invalidate("B1", "F4");
+        verify(collectionVersions, times(4)).bump("floors");
+    }
+
+    @Test
+    void rejectsIdsThatEscapeTheMapDirectory() {
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+
+        assertThatThrownBy(
+                () -> store.saveEncoded("..", "F1", Base64.getEncoder().encodeToString(new byte[]{1})))
+                .isInstanceOf(ResponseStatusException.class);
+        assertThatThrownBy(
+                () -> store.saveEncoded("B1", "../../F1", Base64.getEncoder().encodeToString(new byte[]{1})))
+                .isInstanceOf(ResponseStatusException.class);
+    }
+
+    private static Document floor(String id, String floorId, String mapImageUrl, String mapImage) {
+        return new Document("_id", id)
+                .append("floorId", floorId)
+                .append("buildingId", "B1")
+                .append("mapImageUrl", mapImageUrl)
+                .append("mapImage", mapImage);
+    }
+}
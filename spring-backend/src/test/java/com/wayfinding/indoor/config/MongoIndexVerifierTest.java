@@ -0,0 +1,112 @@
+package com.wayfinding.indoor.config;
+
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MongoIndexVerifierTest {
+
+    @Test
+    void createsOnlyMissingIndexes() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(GraphNode.class, GraphEdge.class));
+        mappingContext.initialize();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter())
+                .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+
+        IndexOperations nodeIndexes = mock(IndexOperations.class);
+        when(nodeIndexes.getIndexInfo()).thenReturn(List.of(index("_id_", "_id")));
+        IndexOperations edgeIndexes = mock(IndexOperations.class);
+        when(edgeIndexes.getIndexInfo()).thenReturn(List.of(
+                index("_id_", "_id"), index("edge_floor", "buildingId", "floorId")));
+        when(mongoTemplate.indexOps(GraphNode.class)).thenReturn(nodeIndexes);
+        when(mongoTemplate.indexOps(GraphEdge.class)).thenReturn(edgeIndexes);
+
+        List<String> missing = new MongoIndexVerifier(mongoTemplate).verifyIndexes();
+
+        assertThat(missing).containsExactly(
+                "nodes {\"buildingId\": 1, \"floorId\": 1, \"nodeId\": 1} (unique)");
+        ArgumentCaptor<IndexDefinition> created = ArgumentCaptor.forClass(IndexDefinition.class);
+        verify(nodeIndexes).ensureIndex(created.capture());
+        assertThat(created.getValue().getIndexOptions().getBoolean("unique")).isTrue();
+        verify(edgeIndexes, never()).ensureIndex(any());
+    }
+
+    @Test
+    void rebuildsIndexesWhoseUniqueOptionDiffers() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(GraphNode.class));
+        mappingContext.initialize();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter())
+                .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+
+        IndexOperations nodeIndexes = mock(IndexOperations.class);
+        when(nodeIndexes.getIndexInfo()).thenReturn(List.of(
+                index("_id_", "_id"), index("node_floor_nodeId", "buildingId", "floorId", "nodeId")));
+        when(mongoTemplate.indexOps(GraphNode.class)).thenReturn(nodeIndexes);
+
+        List<String> mismatched = new MongoIndexVerifier(mongoTemplate).verifyIndexes();
+
+        assertThat(mismatched).containsExactly("nodes {\"buildingId\": 1, \"floorId\": 1, \"nodeId\": 1} (unique)"
+                + " mismatched by node_floor_nodeId");
+        InOrder order = inOrder(nodeIndexes);
+        order.verify(nodeIndexes).dropIndex("node_floor_nodeId");
+        ArgumentCaptor<IndexDefinition> created = ArgumentCaptor.forClass(IndexDefinition.class);
+        order.verify(nodeIndexes).ensureIndex(created.capture());
+        assertThat(created.getValue().getIndexOptions().getBoolean("unique")).isTrue();
+    }
+
+    @Test
+    void onlyReportsMismatchesWhenCreationIsDisabled() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setInitialEntitySet(Set.of(GraphNode.class));
+        mappingContext.initialize();
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getConverter())
+                .thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+
+        IndexOperations nodeIndexes = mock(IndexOperations.class);
+        when(nodeIndexes.getIndexInfo()).thenReturn(List.of(
+                index("_id_", "_id"), index("node_floor_nodeId", "buildingId", "floorId", "nodeId")));
+        when(mongoTemplate.indexOps(GraphNode.class)).thenReturn(nodeIndexes);
+        MongoIndexVerifier verifier = new MongoIndexVerifier(mongoTemplate);
+        ReflectionTestUtils.setField(verifier, "createMissing", false);
+
+        assertThat(verifier.verifyIndexes()).hasSize(1);
+        verify(nodeIndexes, never()).dropIndex(any());
+        verify(nodeIndexes, never()).ensureIndex(any());
+    }
+
+    private static IndexInfo index(String name, String... fields) {
+        List<IndexField> indexFields = Arrays.stream(fields)
+                .map(f -> IndexField.create(f, Sort.Direction.ASC))
+                .toList();
+        return new IndexInfo(indexFields, name, false, false, "");
+    }
+}
@@ -0,0 +1,65 @@
+package com.wayfinding.indoor.controller;
+
+import com.wayfinding.indoor.model.POI;
+import com.wayfinding.indoor.repository.POIRepository;
+import com.wayfinding.indoor.service.ChangeLogService;
+import com.wayfinding.indoor.service.CollectionVersions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class POIControllerTest {
+
+    private final POIRepository poiRepository = mock(POIRepository.class);
+    private final CollectionVersions collectionVersions = mock(CollectionVersions.class);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        when(poiRepository.findByFloorId("F1")).thenReturn(List.of(new POI("B1", "F1", "Cafe", "food", 10, 20)));
+        when(collectionVersions.etag("pois")).thenReturn("W/\"v-4\"");
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new POIController(poiRepository, collectionVersions, mock(ChangeLogService.class)))
+                .build();
+    }
+
+    @Test
+    void listsRevalidateWithNotModifiedUntilTheCollectionChanges() throws Exception {
+        String etag = mockMvc.perform(get("/api/pois").param("floor_id", "F1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"))
+                .andExpect(jsonPath("$[0].name").value("Cafe"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("W/\"v-4\"");
+
+        mockMvc.perform(get("/api/pois").param("floor_id", "F1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verify(poiRepository, times(1)).findByFloorId("F1");
+
+        // A write to the collection, on any instance
+        when(collectionVersions.etag("pois")).thenReturn("W/\"v-5\"");
+        String changed = mockMvc.perform(get("/api/pois").param("floor_id", "F1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Cafe"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changed).isNotEqualTo(etag);
+        verify(poiRepository, times(2)).findByFloorId("F1");
+    }
+}
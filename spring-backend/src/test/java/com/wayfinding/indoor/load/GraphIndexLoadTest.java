@@ -0,0 +1,134 @@
+package com.wayfinding.indoor.load;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.wayfinding.indoor.model.GraphNode;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures floor graph query latency on the nodes collection with and without the
+ * compound floor index. Needs a running Mongo (-Dloadtest.mongo-uri, default localhost)
+ * and is excluded from the default build; run with {@code mvn test -Pload-test}.
+ */
+@Tag("load")
+@Slf4j
+class GraphIndexLoadTest {
+
+    private static final String URI = System.getProperty("loadtest.mongo-uri", "mongodb://localhost:27017");
+    private static final int NODES = Integer.getInteger("loadtest.nodes", 200_000);
+    private static final int FLOORS = Integer.getInteger("loadtest.floors", 400);
+    private static final int QUERIES = Integer.getInteger("loadtest.queries", 300);
+    private static final String DATABASE = "wayfinding_loadtest";
+
+    private static MongoClient client;
+    private static MongoTemplate mongoTemplate;
+    private static boolean seeded;
+
+    @BeforeAll
+    static void seed() {
+        client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(URI))
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build());
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        try {
+            mongoTemplate.executeCommand("{ping: 1}");
+            seeded = true;
+        } catch (RuntimeException e) {
+            assumeTrue(false, "Mongo not reachable at " + URI);
+        }
+
+        mongoTemplate.dropCollection(GraphNode.class);
+        Random random = new Random(42);
+        List<GraphNode> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < NODES; i++) {
+            int floor = i % FLOORS;
+            batch.add(new GraphNode(null, "n" + i, "B" + (floor % 10), "F" + floor,
+                    random.nextDouble() * 1000, random.nextDouble() * 1000));
+            if (batch.size() == 10_000) {
+                mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class).insert(batch).execute();
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class).insert(batch).execute();
+        }
+    }
+
+    @AfterAll
+    static void cleanup() {
+        if (client == null) {
+            return;
+        }
+        try {
+            if (seeded) {
+                mongoTemplate.getDb().drop();
+            }
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    void floorQueriesAreFasterWithCompoundIndex() {
+        mongoTemplate.indexOps(GraphNode.class).dropAllIndexes();
+        long[] scan = measure();
+
+        mongoTemplate.indexOps(GraphNode.class).ensureIndex(new Index()
+                .on("buildingId", Sort.Direction.ASC)
+                .on("floorId", Sort.Direction.ASC)
+                .on("nodeId", Sort.Direction.ASC)
+                .unique()
+                .named("node_floor_nodeId"));
+        long[] indexed = measure();
+
+        log.info(String.format("floor query over %d nodes / %d floors: collection scan p50=%.2fms p95=%.2fms,"
+                        + " indexed p50=%.2fms p95=%.2fms",
+                NODES, FLOORS, millis(scan, 50), millis(scan, 95), millis(indexed, 50), millis(indexed, 95)));
+        assertThat(percentile(indexed, 50)).isLessThan(percentile(scan, 50));
+    }
+
+    private static long[] measure() {
+        Random random = new Random(7);
+        long[] samples = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int floor = random.nextInt(FLOORS);
+            Query query = new Query(Criteria.where("buildingId").is("B" + (floor % 10)).and("floorId").is("F" + floor));
+            long started = System.nanoTime();
+            List<GraphNode> nodes = mongoTemplate.find(query, GraphNode.class);
+            samples[i] = System.nanoTime() - started;
+            assertThat(nodes).isNotEmpty();
+        }
+        Arrays.sort(samples);
+        return samples;
+    }
+
+    private static long percentile(long[] sorted, int p) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * p / 100)];
+    }
+
+    private static double millis(long[] sorted, int p) {
+        return percentile(sorted, p) / 1e6;
+    }
+}
@@ -0,0 +1,184 @@
+package com.wayfinding.indoor.load;
+
+import com.wayfinding.indoor.model.Building;
+import com.wayfinding.indoor.repository.BeaconRepository;
+import com.wayfinding.indoor.repository.BuildingRepository;
+import com.wayfinding.indoor.repository.EdgeLink;
+import com.wayfinding.indoor.repository.FloorRepository;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.NodePoint;
+import com.wayfinding.indoor.repository.POIRepository;
+import com.wayfinding.indoor.service.ChangeLogService;
+import com.wayfinding.indoor.service.FloorGraphCache;
+import com.wayfinding.indoor.service.QueryFanOut;
+import com.wayfinding.indoor.service.SyncService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Sustained throughput when every request waits on Mongo: a 200-thread pool (Tomcat's
+ * default) with sequential queries against virtual thread per request with queries fanned
+ * out. Full sync is measured because it stays blocking with the reactive driver on (the
+ * default); graph loads serve routes only with {@code wayfinding.reactive.enabled=false}.
+ * Mongo is simulated by repositories that sleep for a fixed latency while holding one of
+ * as many permits as the driver's connection pool has (maxPoolSize, 100 by default), so
+ * the test needs no database but does need Java 21: {@code mvn test -Pjava21,load-test}.
+ * <p>
+ * With 200 platform threads the pool is already saturated, so virtual threads cannot raise
+ * throughput beyond it; the test checks that they keep up with the platform pool and that
+ * neither side exceeds what the connection pool can serve.
+ */
+@Tag("load")
+@Slf4j
+class VirtualThreadThroughputLoadTest {
+
+    private static final int REQUESTS = Integer.getInteger("loadtest.requests", 20_000);
+    private static final int PLATFORM_THREADS = Integer.getInteger("loadtest.platform-threads", 200);
+    private static final long LATENCY_MS = Long.getLong("loadtest.latency-ms", 20);
+    private static final int MONGO_POOL = Integer.getInteger("loadtest.mongo-pool", 100);
+
+    private static final Semaphore connections = new Semaphore(MONGO_POOL, true);
+    private static final AtomicLong queries = new AtomicLong();
+
+    @Test
+    void fullSyncsOnVirtualThreadsKeepUpUntilTheMongoPoolIsSaturated() {
+        compare("Full syncs", fanOut -> {
+            SyncService sync = new SyncService(currentSequence(), null,
+                    repository(BuildingRepository.class, "findById", () -> Optional.of(new Building())),
+                    repository(FloorRepository.class, "findByBuildingIdOrderByFloorNumberAsc", List::of),
+                    repository(POIRepository.class, "findByBuildingId", List::of),
+                    repository(BeaconRepository.class, "findByBuildingId", List::of),
+                    repository(GraphNodeRepository.class, "findByBuildingId", List::of),
+                    repository(GraphEdgeRepository.class, "findByBuildingId", List::of),
+                    fanOut);
+            return i -> assertThat(sync.changesSince("B" + i, 0).isFull()).isTrue();
+        });
+    }
+
+    @Test
+    void graphLoadsOnVirtualThreadsKeepUpUntilTheMongoPoolIsSaturated() {
+        compare("Graph loads", fanOut -> {
+            FloorGraphCache cache = new FloorGraphCache(slowNodeRepository(), slowEdgeRepository(), fanOut);
+            return i -> {
+                assertThat(cache.get("B1", "F" + i).nodeCount()).isEqualTo(3);
+                cache.invalidate("B1", "F" + i);
+            };
+        });
+    }
+
+    private static void compare(String what, Function<QueryFanOut, IntConsumer> setUp) {
+        assumeTrue(JavaVersion.getJavaVersion().isEqualOrNewerThan(JavaVersion.TWENTY_ONE),
+                "Virtual threads need Java 21 (-Pjava21)");
+
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        Rate platformRate;
+        try {
+            platformRate = run(platform, setUp.apply(new QueryFanOut(false)));
+        } finally {
+            platform.shutdownNow();
+        }
+
+        SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("request-");
+        virtual.setVirtualThreads(true);
+        Rate virtualRate = run(virtual, setUp.apply(new QueryFanOut(true)));
+
+        double poolQueries = MONGO_POOL * 1000.0 / LATENCY_MS;
+        log.info("{}/s with {} ms Mongo latency and {} connections (at most {} queries/s): "
+                        + "platform pool({}) {} ({} queries/s), virtual threads {} ({} queries/s)",
+                what, LATENCY_MS, MONGO_POOL, Math.round(poolQueries), PLATFORM_THREADS,
+                Math.round(platformRate.requests()), Math.round(platformRate.queries()),
+                Math.round(virtualRate.requests()), Math.round(virtualRate.queries()));
+        assertThat(platformRate.queries()).isLessThanOrEqualTo(poolQueries * 1.05);
+        assertThat(virtualRate.queries()).isLessThanOrEqualTo(poolQueries * 1.05);
+        assertThat(virtualRate.requests()).isGreaterThan(platformRate.requests() * 0.9);
+    }
+
+    /**
+     * Requests and queries per second for REQUESTS concurrent requests, each for its own
+     * building or floor
+     */
+    private static Rate run(Executor requests, IntConsumer request) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>(REQUESTS);
+        long queried = queries.get();
+        long started = System.nanoTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            int n = i;
+            futures.add(CompletableFuture.runAsync(() -> request.accept(n), requests));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return new Rate(REQUESTS / seconds, (queries.get() - queried) / seconds);
+    }
+
+    private static ChangeLogService currentSequence() {
+        return new ChangeLogService(null, null) {
+            @Override
+            public long currentSequence(String buildingId) {
+                try {
+                    query();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 1;
+            }
+        };
+    }
+
+    // Plain proxies rather than Mockito mocks, whose answers are synchronized per stubbing
+
+    private static GraphNodeRepository slowNodeRepository() {
+        return repository(GraphNodeRepository.class, "streamPointsByBuildingIdAndFloorId",
+                () -> Stream.of(new NodePoint("A", 0, 0), new NodePoint("B", 1, 0), new NodePoint("C", 2, 0)));
+    }
+
+    private static GraphEdgeRepository slowEdgeRepository() {
+        return repository(GraphEdgeRepository.class, "streamLinksByBuildingIdAndFloorId",
+                () -> Stream.of(new EdgeLink("A", "B", 1.0), new EdgeLink("B", "C", 1.0)));
+    }
+
+    private static <T> T repository(Class<T> type, String method, Supplier<?> result) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (p, m, args) -> {
+            if (!m.getName().equals(method)) {
+                throw new UnsupportedOperationException(m.getName());
+            }
+            query();
+            return result.get();
+        });
+        return type.cast(proxy);
+    }
+
+    // One round trip on a pooled connection: waits for a free connection like the driver does
+    private static void query() throws InterruptedException {
+        connections.acquire();
+        try {
+            queries.incrementAndGet();
+            Thread.sleep(LATENCY_MS);
+        } finally {
+            connections.release();
+        }
+    }
+
+    private record Rate(double requests, double queries) {}
+}
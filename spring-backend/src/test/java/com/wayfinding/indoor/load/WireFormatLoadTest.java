@@ -0,0 +1,106 @@
+package com.wayfinding.indoor.load;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.dto.NavigationPathResponse;
+import com.wayfinding.indoor.dto.NavigationResponse;
+import com.wayfinding.indoor.dto.PositionResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Serialization cost of the hot-path DTOs as JSON and as CBOR: size on the wire and time
+ * per write + read round trip, with the mappers configured as the application does.
+ * Pure CPU, no database; run with {@code mvn test -Pload-test}.
+ * <p>
+ * Sizes are asserted per DTO. CBOR is smaller for every DTO except
+ * NavigationPathResponse (4809 B against 4452 B of JSON): its coordinates are doubles
+ * with few decimals, which CBOR writes as 9-byte floats while JSON writes them as short
+ * text. Round-trip times are only asserted in total, since single DTOs are too noisy to
+ * compare on their own.
+ */
+@Tag("load")
+@Slf4j
+class WireFormatLoadTest {
+
+    private static final int WARMUP = Integer.getInteger("loadtest.warmup", 20_000);
+    private static final int ITERATIONS = Integer.getInteger("loadtest.iterations", 100_000);
+
+    private final ObjectMapper json = new Jackson2ObjectMapperBuilder().build();
+    private final ObjectMapper cbor = new Jackson2ObjectMapperBuilder().factory(new CBORFactory()).build();
+
+    @Test
+    void cborIsSmallerThanJsonExceptForFloatPathsAndCheaperOverall() throws Exception {
+        List<BeaconScanRequest.ScannedBeacon> beacons = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            beacons.add(new BeaconScanRequest.ScannedBeacon("FDA50693-A4E2-4FB1-AFCF-C6EB07647825", 100, i, -60 - i));
+        }
+        BeaconScanRequest scan = new BeaconScanRequest(beacons, "device-42");
+        PositionResponse position = new PositionResponse("building-123", "Main", "floor-1", "Ground", 0,
+                412.37, 208.91, "trilateration", 9, true, false, null);
+        List<NavigationPathResponse.PathPoint> path = new ArrayList<>();
+        List<NavigationResponse.RoutePoint> route = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            path.add(new NavigationPathResponse.PathPoint(100 + i * 3.25, 80 + (i % 7) * 11.5));
+            route.add(new NavigationResponse.RoutePoint(100 + i * 3.25, 80 + (i % 7) * 11.5,
+                    i == 0 ? "start" : i == 199 ? "destination" : "waypoint"));
+        }
+
+        Map<Class<?>, Result[]> results = new LinkedHashMap<>();
+        for (Object body : List.of(scan, position, new NavigationPathResponse(path),
+                new NavigationResponse(true, "Route found", 650.0, route))) {
+            Result j = measure(json, body);
+            Result c = measure(cbor, body);
+            log.info(String.format("%-24s JSON %6d B %8.0f ns/op | CBOR %6d B %8.0f ns/op",
+                    body.getClass().getSimpleName(), j.bytes, j.nanos, c.bytes, c.nanos));
+            results.put(body.getClass(), new Result[]{j, c});
+        }
+        double jsonNanos = results.values().stream().mapToDouble(r -> r[0].nanos).sum();
+        double cborNanos = results.values().stream().mapToDouble(r -> r[1].nanos).sum();
+        log.info(String.format("Total                    JSON %6d B %8.0f ns/op | CBOR %6d B %8.0f ns/op",
+                results.values().stream().mapToInt(r -> r[0].bytes).sum(), jsonNanos,
+                results.values().stream().mapToInt(r -> r[1].bytes).sum(), cborNanos));
+
+        assertThat(bytes(results.get(BeaconScanRequest.class))).isNegative();
+        assertThat(bytes(results.get(PositionResponse.class))).isNegative();
+        assertThat(bytes(results.get(NavigationResponse.class))).isNegative();
+        // Float coordinates: 9 bytes each in CBOR, usually fewer as JSON text
+        assertThat(bytes(results.get(NavigationPathResponse.class))).isPositive();
+        assertThat(cborNanos).isLessThan(jsonNanos);
+    }
+
+    /**
+     * CBOR bytes minus JSON bytes
+     */
+    private static int bytes(Result[] jsonAndCbor) {
+        return jsonAndCbor[1].bytes - jsonAndCbor[0].bytes;
+    }
+
+    private static Result measure(ObjectMapper mapper, Object body) throws Exception {
+        byte[] encoded = mapper.writeValueAsBytes(body);
+        assertThat(mapper.readValue(encoded, body.getClass())).isEqualTo(body);
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += mapper.readValue(mapper.writeValueAsBytes(body), body.getClass()).hashCode();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += mapper.readValue(mapper.writeValueAsBytes(body), body.getClass()).hashCode();
+        }
+        double nanos = (double) (System.nanoTime() - started) / ITERATIONS;
+        assertThat(sink).isNotZero();
+        return new Result(encoded.length, nanos);
+    }
+
+    private record Result(int bytes, double nanos) {}
+}
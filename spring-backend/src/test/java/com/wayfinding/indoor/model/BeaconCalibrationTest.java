@@ -0,0 +1,43 @@
+package com.wayfinding.indoor.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class BeaconCalibrationTest {
+
+    @Test
+    void fit_recoversPathLossParametersIncrementally() {
+        double txPower = -62;
+        double exponent = 2.7;
+        BeaconCalibration calibration = new BeaconCalibration();
+
+        for (double d : new double[]{1, 2, 3, 5, 8, 13}) {
+            double x = BeaconCalibration.feature(d);
+            double rssi = txPower + exponent * x;
+            calibration.setCount(calibration.getCount() + 1);
+            calibration.setSumX(calibration.getSumX() + x);
+            calibration.setSumY(calibration.getSumY() + rssi);
+            calibration.setSumXX(calibration.getSumXX() + x * x);
+            calibration.setSumXY(calibration.getSumXY() + x * rssi);
+        }
+
+        Double fitted = calibration.fitExponent();
+        assertThat(fitted).isCloseTo(exponent, within(1e-9));
+        assertThat(calibration.fitTxPower(fitted)).isCloseTo(txPower, within(1e-9));
+    }
+
+    @Test
+    void fit_sameDistanceOnly_hasNoExponent() {
+        BeaconCalibration calibration = new BeaconCalibration();
+        double x = BeaconCalibration.feature(4);
+        calibration.setCount(3);
+        calibration.setSumX(3 * x);
+        calibration.setSumY(-210);
+        calibration.setSumXX(3 * x * x);
+        calibration.setSumXY(-70 * 3 * x);
+
+        assertThat(calibration.fitExponent()).isNull();
+    }
+}
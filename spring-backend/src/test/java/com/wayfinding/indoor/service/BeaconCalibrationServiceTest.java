@@ -0,0 +1,60 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.repository.BeaconRepository;
+import com.wayfinding.indoor.repository.FloorRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BeaconCalibrationServiceTest {
+
+    private final BeaconRepository beaconRepository = mock(BeaconRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CollectionVersions collectionVersions = mock(CollectionVersions.class);
+    private final ChangeLogService changeLog = mock(ChangeLogService.class);
+    private final BeaconCalibrationService service = new BeaconCalibrationService(
+            beaconRepository, mock(FloorRepository.class), mongoTemplate, collectionVersions, changeLog);
+
+    @Test
+    void resetWritesOnlyTheModelFields() {
+        Beacon reset = new Beacon("B1", "F1", "UUID", 1, 2, 10, 20);
+        reset.setId("b1");
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Beacon.class))).thenReturn(reset);
+        when(mongoTemplate.getCollectionName(Beacon.class)).thenReturn("beacons");
+
+        assertThat(service.reset("b1")).containsSame(reset);
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Beacon.class));
+        Document written = update.getValue().getUpdateObject();
+        assertThat(written.keySet()).containsExactlyInAnyOrder("$set", "$unset");
+        assertThat((Document) written.get("$set"))
+                .containsExactlyInAnyOrderEntriesOf(new Document("txPower", -59).append("pathLossExponent", 2.0));
+        assertThat(((Document) written.get("$unset")).keySet()).containsExactly("calibration");
+        verify(beaconRepository, never()).save(any());
+        verify(collectionVersions).bump("beacons");
+        verify(changeLog).upserted(eq("B1"), any(), eq("F1"), eq("b1"));
+    }
+
+    @Test
+    void resetOfAnUnknownBeaconChangesNothing() {
+        assertThat(service.reset("missing")).isEmpty();
+        verifyNoInteractions(collectionVersions, changeLog);
+    }
+}
@@ -0,0 +1,72 @@
+package com.wayfinding.indoor.service;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CollectionVersionsTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CollectionVersions versions = new CollectionVersions(mongoTemplate);
+
+    @Test
+    void writesMoveTheStampBeforeTheyReturn() {
+        versions.onAfterSave(new AfterSaveEvent<>(new Object(), new Document(), "pois"));
+        verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq(CollectionVersions.VERSIONS));
+
+        // The change log is not served with ETags and is not counted
+        versions.onAfterDelete(new AfterDeleteEvent<>(new Document(), Object.class, "change_log"));
+        verify(mongoTemplate, times(1)).upsert(any(Query.class), any(Update.class), eq(CollectionVersions.VERSIONS));
+    }
+
+    @Test
+    void failedIncrementsFailTheWrite() {
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(CollectionVersions.VERSIONS)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+
+        assertThatThrownBy(() -> versions.onAfterSave(new AfterSaveEvent<>(new Object(), new Document(), "pois")))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+    }
+
+    @Test
+    void batchesBumpEachCollectionOnce() {
+        int saved = versions.batch(() -> {
+            for (int i = 0; i < 100; i++) {
+                versions.onAfterSave(new AfterSaveEvent<>(new Object(), new Document(), "nodes"));
+            }
+            verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), anyString());
+            return 100;
+        });
+
+        assertThat(saved).isEqualTo(100);
+        verify(mongoTemplate, times(1)).upsert(Query.query(Criteria.where("_id").is("nodes")),
+                new Update().inc("version", 1L), CollectionVersions.VERSIONS);
+    }
+
+    @Test
+    void etagsComeFromTheSharedCounters() {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), eq(CollectionVersions.VERSIONS)))
+                .thenReturn(List.of(new Document("_id", "beacons").append("version", 7L)));
+
+        assertThat(versions.etag("pois", "beacons")).isEqualTo("W/\"v-0-7\"");
+    }
+}
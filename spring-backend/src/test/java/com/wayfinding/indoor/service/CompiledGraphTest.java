@@ -0,0 +1,119 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompiledGraphTest {
+
+    private static final List<GraphNode> NODES = List.of(
+            new GraphNode("1", "A", "B1", "F1", 0, 0),
+            new GraphNode("2", "B", "B1", "F1", 1, 0),
+            new GraphNode("3", "C", "B1", "F1", 2, 0),
+            new GraphNode("4", "D", "B1", "F1", 0, 2),
+            new GraphNode("5", "É", "B1", "F1", 9, 9)
+    );
+
+    private static final List<GraphEdge> EDGES = List.of(
+            new GraphEdge("e1", "A", "B", "B1", "F1", 1.0),
+            new GraphEdge("e2", "B", "C", "B1", "F1", 1.0),
+            new GraphEdge("e3", "A", "D", "B1", "F1", 5.0),
+            new GraphEdge("e4", "D", "C", "B1", "F1", 5.0),
+            new GraphEdge("e5", "A", "missing", "B1", "F1", 1.0),
+            new GraphEdge("e6", "C", "C", "B1", "F1", 1.0)
+    );
+
+    @Test
+    void compile_buildsBidirectionalCsrAndDropsInvalidEdges() {
+        CompiledGraph graph = CompiledGraph.compile("B1", "F1", NODES, EDGES);
+
+        assertThat(graph.nodeCount()).isEqualTo(5);
+        assertThat(graph.edgeCount()).isEqualTo(8);
+        int c = graph.indexOf("C");
+        assertThat(graph.endEdge(c) - graph.firstEdge(c)).isEqualTo(2);
+        assertThat(path(graph, "D", "C")).containsExactly("D", "C");
+        assertThat(path(graph, "C", "D")).containsExactly("C", "D");
+        assertThat(path(graph, "D", "B")).containsExactly("D", "A", "B");
+        assertThat(graph.shortestPath(graph.indexOf("A"), graph.indexOf("É"))).isEmpty();
+        assertThat(graph.nodeId(graph.nearestNode(1.9, 0.2))).isEqualTo("C");
+
+        CompiledGraph.Builder builder = CompiledGraph.builder("B1", "F1");
+        NODES.forEach(node -> builder.addNode(node.getNodeId(), node.getX(), node.getY()));
+        EDGES.forEach(edge -> builder.addEdge(edge.getFromNodeId(), edge.getToNodeId(), edge.getWeight()));
+        builder.build();
+        assertThat(builder.droppedEdges()).isEqualTo(2);
+    }
+
+    @Test
+    void coordinatesKeepTheStoredDoubles() {
+        CompiledGraph graph = CompiledGraph.builder("B1", "F1").addNode("A", 412.3, 208.7).build();
+        CompiledGraph decoded = GraphSnapshotCodec.decode(GraphSnapshotCodec.encode(graph));
+
+        assertThat(decoded.x(0)).isEqualTo(412.3);
+        assertThat(decoded.y(0)).isEqualTo(208.7);
+    }
+
+    @Test
+    void snapshot_roundTripsThroughHeapAndDirectBuffers() {
+        CompiledGraph graph = CompiledGraph.compile("B1", "F1", NODES, EDGES);
+
+        ByteBuffer encoded = GraphSnapshotCodec.encode(graph);
+        ByteBuffer direct = ByteBuffer.allocateDirect(encoded.remaining());
+        direct.put(encoded.duplicate()).flip();
+
+        for (ByteBuffer buffer : List.of(encoded, direct)) {
+            CompiledGraph decoded = GraphSnapshotCodec.decode(buffer);
+            assertThat(decoded.getBuildingId()).isEqualTo("B1");
+            assertThat(decoded.getFloorId()).isEqualTo("F1");
+            assertThat(decoded.nodeCount()).isEqualTo(graph.nodeCount());
+            assertThat(decoded.edgeCount()).isEqualTo(graph.edgeCount());
+            for (int i = 0; i < graph.nodeCount(); i++) {
+                assertThat(decoded.nodeId(i)).isEqualTo(graph.nodeId(i));
+                assertThat(decoded.x(i)).isEqualTo(graph.x(i));
+                assertThat(decoded.y(i)).isEqualTo(graph.y(i));
+            }
+            assertThat(path(decoded, "D", "B")).containsExactly("D", "A", "B");
+        }
+    }
+
+    @Test
+    void decode_rejectsInvalidInput() {
+        assertThatThrownBy(() -> GraphSnapshotCodec.decode(ByteBuffer.wrap("{\"nodes\":[]}".getBytes())))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Not a graph snapshot");
+
+        ByteBuffer encoded = GraphSnapshotCodec.encode(CompiledGraph.compile("B1", "F1", NODES, EDGES));
+        ByteBuffer truncated = encoded.slice(0, encoded.remaining() - 6);
+        assertThatThrownBy(() -> GraphSnapshotCodec.decode(truncated))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // 0 -> 1 without 1 -> 0, and a self loop at 1
+        assertThatThrownBy(() -> GraphSnapshotCodec.decode(GraphSnapshotCodec.encode(raw(new int[]{0, 1, 1}, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("one direction only");
+        assertThatThrownBy(() -> GraphSnapshotCodec.decode(GraphSnapshotCodec.encode(raw(new int[]{0, 0, 1}, 1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("self loop");
+    }
+
+    private static CompiledGraph raw(int[] offsets, int target) {
+        return new CompiledGraph("B1", "F1", new String[]{"A", "B"},
+                DoubleBuffer.wrap(new double[]{0, 1}), DoubleBuffer.wrap(new double[]{0, 0}),
+                IntBuffer.wrap(offsets), IntBuffer.wrap(new int[]{target}), FloatBuffer.wrap(new float[]{1}));
+    }
+
+    private static List<String> path(CompiledGraph graph, String from, String to) {
+        int[] path = graph.shortestPath(graph.indexOf(from), graph.indexOf(to));
+        return Arrays.stream(path).mapToObj(graph::nodeId).toList();
+    }
+}
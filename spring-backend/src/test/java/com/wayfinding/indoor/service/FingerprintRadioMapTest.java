@@ -0,0 +1,44 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.model.Fingerprint;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FingerprintRadioMapTest {
+
+    @Test
+    void locate_returnsNearestCellInSignalSpace() {
+        List<Fingerprint> fingerprints = new ArrayList<>();
+        fingerprints.add(cell(0, 0, Map.of("A", -50.0, "B", -80.0, "C", -85.0)));
+        fingerprints.add(cell(10, 0, Map.of("A", -80.0, "B", -50.0, "C", -80.0)));
+        fingerprints.add(cell(0, 10, Map.of("A", -85.0, "B", -80.0, "C", -50.0)));
+
+        FingerprintRadioMap radioMap = FingerprintRadioMap.compile(fingerprints);
+        double[] position = radioMap.locate(Map.of("A", -79, "B", -51, "C", -81), 1);
+
+        assertThat(radioMap.size()).isEqualTo(3);
+        assertThat(position).containsExactly(10.0, 0.0);
+    }
+
+    @Test
+    void locate_unknownBeacons_returnsNull() {
+        FingerprintRadioMap radioMap = FingerprintRadioMap.compile(
+                List.of(cell(0, 0, Map.of("A", -50.0))));
+
+        assertThat(radioMap.locate(Map.of("Z", -60), 3)).isNull();
+    }
+
+    private static Fingerprint cell(double x, double y, Map<String, Double> rssi) {
+        Fingerprint fp = new Fingerprint("B1", "F1", (int) x, (int) y, x, y);
+        rssi.forEach((key, value) -> {
+            fp.getRssiSum().put(key, value);
+            fp.getSamples().put(key, 1);
+        });
+        return fp;
+    }
+}
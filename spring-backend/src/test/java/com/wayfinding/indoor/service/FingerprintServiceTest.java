@@ -0,0 +1,83 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.dto.CreateFingerprintRequest;
+import com.wayfinding.indoor.model.Fingerprint;
+import com.wayfinding.indoor.repository.FingerprintRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FingerprintServiceTest {
+
+    private static final String UUID = "00010203-0405-0607-0809-0A0B0C0D0E0F";
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final FingerprintService service =
+            new FingerprintService(mock(FingerprintRepository.class), mongoTemplate);
+
+    @Test
+    void samplesAreMergedIntoTheCellWithOneAtomicUpsert() {
+        Fingerprint cell = new Fingerprint("B1", "F1", 1, 0, 75, 25);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(Fingerprint.class)))
+                .thenThrow(new DuplicateKeyException("fingerprint_floor_cell"))
+                .thenReturn(cell);
+
+        CreateFingerprintRequest request = new CreateFingerprintRequest();
+        request.setBuildingId("B1");
+        request.setFloorId("F1");
+        request.setX(60.0);
+        request.setY(10.0);
+        request.setBeacons(List.of(scan(1, -60), scan(1, -70), scan(2, -80)));
+
+        assertThat(service.recordSample(request)).isSameAs(cell);
+
+        // The concurrent insert of the cell is retried as an update of it
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).findAndModify(query.capture(), update.capture(),
+                any(FindAndModifyOptions.class), eq(Fingerprint.class));
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("floorId", "F1").containsEntry("gridX", 1).containsEntry("gridY", 0);
+        Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+        assertThat(inc)
+                .containsEntry("rssiSum." + UUID + ":1:1", -130.0)
+                .containsEntry("samples." + UUID + ":1:1", 2)
+                .containsEntry("rssiSum." + UUID + ":1:2", -80.0)
+                .containsEntry("samples." + UUID + ":1:2", 1);
+    }
+
+    @Test
+    void cellMeansComeFromTheSums() {
+        Fingerprint cell = new Fingerprint("B1", "F1", 0, 0, 25, 25);
+        cell.getRssiSum().put("A", -130.0);
+        cell.getSamples().put("A", 2);
+
+        assertThat(cell.getRssi()).containsEntry("A", -65.0);
+    }
+
+    private static BeaconScanRequest.ScannedBeacon scan(int minor, int rssi) {
+        BeaconScanRequest.ScannedBeacon scanned = new BeaconScanRequest.ScannedBeacon();
+        scanned.setUuid(UUID);
+        scanned.setMajor(1);
+        scanned.setMinor(minor);
+        scanned.setRssi(rssi);
+        return scanned;
+    }
+}
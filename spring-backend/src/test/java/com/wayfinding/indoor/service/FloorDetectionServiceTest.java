@@ -0,0 +1,50 @@
+package com.wayfinding.indoor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FloorDetectionServiceTest {
+
+    private final FloorDetectionService service = new FloorDetectionService();
+
+    @Test
+    void update_ignoresSingleScanFromOtherFloor() {
+        assertThat(service.update("d1", Map.of("F1", 1.0, "F2", 0.2)).floorId()).isEqualTo("F1");
+        assertThat(service.update("d1", Map.of("F1", 1.0, "F2", 0.2)).floorId()).isEqualTo("F1");
+
+        FloorDetectionService.FloorDecision decision = service.update("d1", Map.of("F1", 0.3, "F2", 1.0));
+
+        assertThat(decision.floorId()).isEqualTo("F1");
+        assertThat(decision.changed()).isFalse();
+    }
+
+    @Test
+    void update_switchesAfterSustainedEvidence() {
+        service.update("d1", Map.of("F1", 1.0, "F2", 0.1));
+
+        boolean changed = false;
+        String floor = null;
+        for (int i = 0; i < 6 && !changed; i++) {
+            FloorDetectionService.FloorDecision decision = service.update("d1", Map.of("F1", 0.05, "F2", 1.0));
+            changed = decision.changed();
+            floor = decision.floorId();
+        }
+
+        assertThat(changed).isTrue();
+        assertThat(floor).isEqualTo("F2");
+        assertThat(service.update("d1", Map.of("F1", 0.05, "F2", 1.0)).changed()).isFalse();
+    }
+
+    @Test
+    void update_tracksDevicesIndependently() {
+        service.update("d1", Map.of("F1", 1.0));
+        service.update("d2", Map.of("F2", 1.0));
+
+        assertThat(service.update("d1", Map.of("F1", 1.0, "F2", 0.5)).floorId()).isEqualTo("F1");
+        assertThat(service.update("d2", Map.of("F1", 0.5, "F2", 1.0)).floorId()).isEqualTo("F2");
+        assertThat(service.sessionCount()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,50 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.repository.EdgeLink;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.NodePoint;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FloorGraphCacheTest {
+
+    @Test
+    void loadsFromProjectedCursorsAndClosesThem() {
+        GraphNodeRepository nodeRepo = Mockito.mock(GraphNodeRepository.class);
+        GraphEdgeRepository edgeRepo = Mockito.mock(GraphEdgeRepository.class);
+        AtomicInteger closed = new AtomicInteger();
+        when(nodeRepo.streamPointsByBuildingIdAndFloorId("B1", "F1")).thenReturn(Stream.of(
+                new NodePoint("A", 0, 0),
+                new NodePoint("B", 3, 4),
+                new NodePoint("C", 6, 8)
+        ).onClose(closed::incrementAndGet));
+        when(edgeRepo.streamLinksByBuildingIdAndFloorId("B1", "F1")).thenReturn(Stream.of(
+                new EdgeLink("A", "B", 5.0),
+                new EdgeLink("B", "C", 5.0)
+        ).onClose(closed::incrementAndGet));
+
+        FloorGraphCache cache = new FloorGraphCache(nodeRepo, edgeRepo);
+        CompiledGraph graph = cache.get("B1", "F1");
+
+        assertThat(graph.nodeCount()).isEqualTo(3);
+        assertThat(graph.edgeCount()).isEqualTo(4);
+        assertThat(graph.shortestPath(graph.indexOf("A"), graph.indexOf("C"))).hasSize(3);
+        assertThat(closed).hasValue(2);
+
+        cache.get("B1", "F1");
+        verify(nodeRepo, times(1)).streamPointsByBuildingIdAndFloorId("B1", "F1");
+        verify(nodeRepo, never()).findByBuildingIdAndFloorId(anyString(), anyString());
+        verify(edgeRepo, never()).findByBuildingIdAndFloorId(anyString(), anyString());
+    }
+}
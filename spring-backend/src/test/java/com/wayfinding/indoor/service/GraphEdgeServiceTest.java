@@ -0,0 +1,172 @@
+package com.wayfinding.indoor.service;
+
+import com.mongodb.bulk.BulkWriteResult;
+import com.wayfinding.indoor.dto.BulkImportResult;
+import com.wayfinding.indoor.dto.CreateEdgeRequest;
+import com.wayfinding.indoor.model.ChangeLogEntry;
+import com.wayfinding.indoor.model.GraphEdge;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class GraphEdgeServiceTest {
+
+    @Mock
+    private GraphEdgeRepository edgeRepository;
+
+    @Mock
+    private GraphNodeRepository nodeRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private FloorGraphCache graphCache;
+
+    @Mock
+    private ChangeLogService changeLog;
+
+    @InjectMocks
+    private GraphEdgeService edgeService;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createEdges_loadsFloorOnceAndInsertsInOneBatch() {
+        when(nodeRepository.findByBuildingIdAndFloorId("B1", "F1")).thenReturn(List.of(
+                new GraphNode("1", "A", "B1", "F1", 0, 0),
+                new GraphNode("2", "B", "B1", "F1", 3, 4),
+                new GraphNode("3", "C", "B1", "F1", 3, 0)
+        ));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphEdge.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(BulkWriteResult.acknowledged(3, 0, 0, 0, List.of(), List.of()));
+
+        BulkImportResult result = edgeService.createEdges(List.of(
+                edge("A", "B"), edge("B", "C"), edge("C", "A")
+        ));
+
+        assertThat(result.getReceived()).isEqualTo(3);
+        assertThat(result.getInserted()).isEqualTo(3);
+        verify(nodeRepository, times(1)).findByBuildingIdAndFloorId("B1", "F1");
+        verify(nodeRepository, never()).findByNodeIdAndBuildingIdAndFloorId(anyString(), anyString(), anyString());
+        verify(edgeRepository, never()).save(any());
+
+        ArgumentCaptor<List<GraphEdge>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk).insert(inserted.capture());
+        assertThat(inserted.getValue()).extracting(GraphEdge::getWeight).containsExactly(5.0, 4.0, 3.0);
+        // Bulk writes are synced as a reset of the floor
+        verify(changeLog).floorReset("B1", ChangeLogEntry.Kind.EDGE, "F1");
+    }
+
+    @Test
+    void createEdges_unknownNode_writesNothing() {
+        when(nodeRepository.findByBuildingIdAndFloorId("B1", "F1")).thenReturn(List.of(
+                new GraphNode("1", "A", "B1", "F1", 0, 0)
+        ));
+
+        assertThatThrownBy(() -> edgeService.createEdges(List.of(edge("A", "Z"))))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("toNodeId not found: Z");
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), any(Class.class));
+    }
+
+    @Test
+    void importEdgesCsv_insertsInBatchesAndReportsRejectedRows() {
+        ReflectionTestUtils.setField(edgeService, "batchSize", 2);
+        when(nodeRepository.findByBuildingIdAndFloorId("B1", "F1")).thenReturn(List.of(
+                new GraphNode("1", "A", "B1", "F1", 0, 0),
+                new GraphNode("2", "B", "B1", "F1", 3, 4),
+                new GraphNode("3", "C", "B1", "F1", 3, 0)
+        ));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphEdge.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(
+                BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+
+        String csv = "fromNodeId,toNodeId\nA,B\nB,Z\nB,C\nbroken\nC,A\n";
+        BulkImportResult result = edgeService.importEdgesCsv("B1", "F1",
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(result.getReceived()).isEqualTo(5);
+        assertThat(result.getInserted()).isEqualTo(3);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).contains("line 3: toNodeId not found: Z");
+        verify(bulk, times(2)).execute();
+        verify(nodeRepository, times(1)).findByBuildingIdAndFloorId("B1", "F1");
+    }
+
+    @Test
+    void importEdgesCsv_readFailureReportsTheRowsImportedBeforeIt() {
+        ReflectionTestUtils.setField(edgeService, "batchSize", 2);
+        when(nodeRepository.findByBuildingIdAndFloorId("B1", "F1")).thenReturn(List.of(
+                new GraphNode("1", "A", "B1", "F1", 0, 0),
+                new GraphNode("2", "B", "B1", "F1", 3, 4),
+                new GraphNode("3", "C", "B1", "F1", 3, 0)
+        ));
+        BulkOperations bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphEdge.class)).thenReturn(bulk);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenReturn(
+                BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of()),
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+
+        InputStream broken = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                throw new IOException("connection reset");
+            }
+        };
+        InputStream csv = new SequenceInputStream(
+                new ByteArrayInputStream("A,B\nB,C\nC,A\n".getBytes(StandardCharsets.UTF_8)), broken);
+        BulkImportResult result = edgeService.importEdgesCsv("B1", "F1", csv);
+
+        assertThat(result.getInserted()).isEqualTo(3);
+        assertThat(result.getReceived()).isEqualTo(4);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getErrors()).singleElement().asString()
+                .startsWith("line 4: unreadable input, import stopped").contains("connection reset");
+        verify(graphCache).invalidate("B1", "F1");
+        verify(changeLog).floorReset("B1", ChangeLogEntry.Kind.EDGE, "F1");
+    }
+
+    private static CreateEdgeRequest edge(String from, String to) {
+        CreateEdgeRequest request = new CreateEdgeRequest();
+        request.setFromNodeId(from);
+        request.setToNodeId(to);
+        request.setBuildingId("B1");
+        request.setFloorId("F1");
+        return request;
+    }
+}
@@ -0,0 +1,123 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.repository.EdgeLink;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.NodePoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GraphFileStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<GraphFileStore> stores = new ArrayList<>();
+
+    @AfterEach
+    void shutdown() {
+        stores.forEach(GraphFileStore::shutdown);
+    }
+
+    @Test
+    void compiledGraphsSurviveRestart() throws Exception {
+        FloorGraphCache cache = new FloorGraphCache(nodes(new NodePoint("A", 0, 0), new NodePoint("B", 3, 4)),
+                edges(new EdgeLink("A", "B", 5.0)));
+        GraphFileStore store = store(cache);
+        cache.get("B1", "F/1");
+        store.flush();
+        assertThat(Files.exists(store.file("B1", "F/1"))).isTrue();
+
+        // Restart: a fresh cache is populated from the mapped files, then checked against Mongo
+        GraphNodeRepository coldNodeRepo = nodes(new NodePoint("A", 0, 0), new NodePoint("B", 3, 4));
+        FloorGraphCache restarted = new FloorGraphCache(coldNodeRepo, edges(new EdgeLink("A", "B", 5.0)));
+        GraphFileStore restartedStore = store(restarted);
+
+        CompiledGraph graph = restarted.get("B1", "F/1");
+        assertThat(graph.nodeCount()).isEqualTo(2);
+        assertThat(graph.shortestPath(graph.indexOf("A"), graph.indexOf("B"))).hasSize(2);
+        restartedStore.flush();
+        verify(coldNodeRepo).streamPointsByBuildingIdAndFloorId("B1", "F/1");
+        assertThat(restarted.getIfPresent("B1", "F/1")).isSameAs(graph);
+
+        restarted.invalidate("B1", "F/1");
+        restartedStore.flush();
+        assertThat(Files.exists(store.file("B1", "F/1"))).isFalse();
+    }
+
+    @Test
+    void restoredGraphsThatChangedInMongoAreReplaced() throws Exception {
+        FloorGraphCache cache = new FloorGraphCache(nodes(new NodePoint("A", 0, 0), new NodePoint("B", 3, 4)),
+                edges(new EdgeLink("A", "B", 5.0)));
+        GraphFileStore store = store(cache);
+        cache.get("B1", "F/1");
+        store.flush();
+
+        // Another instance moved B while this one was down
+        FloorGraphCache restarted = new FloorGraphCache(nodes(new NodePoint("A", 0, 0), new NodePoint("B", 6, 8)),
+                edges(new EdgeLink("A", "B", 10.0)));
+        GraphFileStore restartedStore = store(restarted);
+        restartedStore.flush();
+        // The reload queued the new file behind the first flush
+        restartedStore.flush();
+        CompiledGraph graph = restarted.getIfPresent("B1", "F/1");
+        assertThat(graph.x(graph.indexOf("B"))).isEqualTo(6.0);
+        CompiledGraph stored = GraphSnapshotCodec.decode(ByteBuffer.wrap(Files.readAllBytes(store.file("B1", "F/1"))));
+        assertThat(stored.sameAs(graph)).isTrue();
+
+        // ... and then deleted the floor's graph
+        FloorGraphCache emptied = new FloorGraphCache(nodes(), edges());
+        GraphFileStore emptiedStore = store(emptied);
+        emptiedStore.flush();
+        emptiedStore.flush();
+        assertThat(emptied.getIfPresent("B1", "F/1")).isNull();
+        assertThat(Files.exists(store.file("B1", "F/1"))).isFalse();
+    }
+
+    @Test
+    void unreadableFilesAreDiscarded() throws Exception {
+        Path junk = dir.resolve("junk" + GraphFileStore.EXTENSION);
+        Files.writeString(junk, "not a graph");
+
+        FloorGraphCache cache = new FloorGraphCache(
+                Mockito.mock(GraphNodeRepository.class), Mockito.mock(GraphEdgeRepository.class));
+        store(cache);
+
+        assertThat(cache.size()).isZero();
+        assertThat(Files.exists(junk)).isFalse();
+    }
+
+    private static GraphNodeRepository nodes(NodePoint... points) {
+        GraphNodeRepository repository = Mockito.mock(GraphNodeRepository.class);
+        when(repository.streamPointsByBuildingIdAndFloorId("B1", "F/1")).thenAnswer(i -> Stream.of(points));
+        return repository;
+    }
+
+    private static GraphEdgeRepository edges(EdgeLink... links) {
+        GraphEdgeRepository repository = Mockito.mock(GraphEdgeRepository.class);
+        when(repository.streamLinksByBuildingIdAndFloorId("B1", "F/1")).thenAnswer(i -> Stream.of(links));
+        return repository;
+    }
+
+    private GraphFileStore store(FloorGraphCache cache) {
+        GraphFileStore store = new GraphFileStore(cache);
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        store.init();
+        stores.add(store);
+        return store;
+    }
+}
@@ -0,0 +1,59 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.GraphGenerationResult;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.FloorRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GraphGenerationServiceTest {
+
+    private final FloorRepository floorRepository = mock(FloorRepository.class);
+    private final GraphSnapshotService snapshotService = mock(GraphSnapshotService.class);
+    private final GraphGenerationService service =
+            new GraphGenerationService(floorRepository, new MapImageStore(), snapshotService);
+
+    @Test
+    void masksOverThePixelLimitAreRejectedFromTheirHeader() throws Exception {
+        when(floorRepository.findByFloorId("F1")).thenReturn(Optional.of(new Floor("F1", "B1", 1, "Ground", 0, 0, 1)));
+        MockMultipartFile mask = corridor(200, 100);
+
+        GraphGenerationResult result = service.generate("B1", "F1", mask, null, true);
+        assertThat(result.getNodes()).isPositive();
+
+        ReflectionTestUtils.setField(service, "maxPixels", 10_000L);
+        assertThatThrownBy(() -> service.generate("B1", "F1", mask, null, false))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("413")
+                .hasMessageContaining("200x100");
+        verify(snapshotService, never()).replaceGraph(any());
+    }
+
+    private static MockMultipartFile corridor(int width, int height) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(10, height / 2 - 10, width - 20, 20);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return new MockMultipartFile("mask", "mask.png", "image/png", out.toByteArray());
+    }
+}
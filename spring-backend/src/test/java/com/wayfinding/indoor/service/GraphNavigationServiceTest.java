@@ -1,12 +1,21 @@
 package com.wayfinding.indoor.service;
 
+import com.wayfinding.indoor.dto.NavigationPathResponse;
 import com.wayfinding.indoor.model.GraphEdge;
 import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.repository.EdgeLink;
+import com.wayfinding.indoor.repository.FloorRepository;
 import com.wayfinding.indoor.repository.GraphEdgeRepository;
 import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.NodePoint;
+import com.wayfinding.indoor.repository.ReactiveGraphEdgeRepository;
+import com.wayfinding.indoor.repository.ReactiveGraphNodeRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -20,7 +29,7 @@ class GraphNavigationServiceTest {
     void computeShortestPath_picksShortestRoute() {
         GraphNodeRepository nodeRepo = Mockito.mock(GraphNodeRepository.class);
         GraphEdgeRepository edgeRepo = Mockito.mock(GraphEdgeRepository.class);
-        GraphNavigationService service = new GraphNavigationService(nodeRepo, edgeRepo);
+        GraphNavigationService service = service(nodeRepo, edgeRepo);
 
         List<GraphNode> nodes = Arrays.asList(
                 new GraphNode("1", "A", "B1", "F1", 0, 0),
@@ -44,7 +53,7 @@ class GraphNavigationServiceTest {
     void computeShortestPath_noPath_returnsEmpty() {
         GraphNodeRepository nodeRepo = Mockito.mock(GraphNodeRepository.class);
         GraphEdgeRepository edgeRepo = Mockito.mock(GraphEdgeRepository.class);
-        GraphNavigationService service = new GraphNavigationService(nodeRepo, edgeRepo);
+        GraphNavigationService service = service(nodeRepo, edgeRepo);
 
         List<GraphNode> nodes = Arrays.asList(
                 new GraphNode("1", "A", "B1", "F1", 0, 0),
@@ -61,7 +70,7 @@ class GraphNavigationServiceTest {
     void computePath_returnsExpectedPathForGivenCoordinates() {
         GraphNodeRepository nodeRepo = Mockito.mock(GraphNodeRepository.class);
         GraphEdgeRepository edgeRepo = Mockito.mock(GraphEdgeRepository.class);
-        GraphNavigationService service = new GraphNavigationService(nodeRepo, edgeRepo);
+        GraphNavigationService service = service(nodeRepo, edgeRepo);
 
         String buildingId = "698b7b18399ebc682c0e97ac";
         String floorId = "F1";
@@ -83,8 +92,10 @@ class GraphNavigationServiceTest {
                 new GraphEdge("e5", "n3", "n6", buildingId, floorId, 220)
         );
 
-        Mockito.when(nodeRepo.findByBuildingIdAndFloorId(buildingId, floorId)).thenReturn(nodes);
-        Mockito.when(edgeRepo.findByBuildingIdAndFloorId(buildingId, floorId)).thenReturn(edges);
+        Mockito.when(nodeRepo.streamPointsByBuildingIdAndFloorId(buildingId, floorId))
+                .thenReturn(nodes.stream().map(n -> new NodePoint(n.getNodeId(), n.getX(), n.getY())));
+        Mockito.when(edgeRepo.streamLinksByBuildingIdAndFloorId(buildingId, floorId))
+                .thenReturn(edges.stream().map(e -> new EdgeLink(e.getFromNodeId(), e.getToNodeId(), e.getWeight())));
 
         var resp = service.computePath(buildingId, floorId, 330, 150, 120, 470);
         assertTrue(resp.getPath().size() >= 4);
@@ -98,4 +109,70 @@ class GraphNavigationServiceTest {
         assertEquals(105, resp.getPath().get(4).getX(), 0.01);
         assertEquals(405, resp.getPath().get(4).getY(), 0.01);
     }
+
+    @Test
+    void computePathAsync_loadsGraphThroughReactiveRepositoriesAndCachesIt() {
+        GraphNodeRepository nodeRepo = Mockito.mock(GraphNodeRepository.class);
+        GraphEdgeRepository edgeRepo = Mockito.mock(GraphEdgeRepository.class);
+        ReactiveGraphNodeRepository reactiveNodeRepo = Mockito.mock(ReactiveGraphNodeRepository.class);
+        ReactiveGraphEdgeRepository reactiveEdgeRepo = Mockito.mock(ReactiveGraphEdgeRepository.class);
+        FloorGraphCache cache = new FloorGraphCache(nodeRepo, edgeRepo);
+        GraphNavigationService service = new GraphNavigationService(cache,
+                new ReactiveGraphLoader(reactiveNodeRepo, reactiveEdgeRepo, cache), unsmoothed());
+
+        Mockito.when(reactiveNodeRepo.streamPointsByBuildingIdAndFloorId("B1", "F1")).thenReturn(Flux.just(
+                new NodePoint("A", 0, 0),
+                new NodePoint("B", 1, 0),
+                new NodePoint("C", 2, 0)
+        ).delayElements(Duration.ofMillis(1)));
+        Mockito.when(reactiveEdgeRepo.streamLinksByBuildingIdAndFloorId("B1", "F1")).thenReturn(Flux.just(
+                new EdgeLink("A", "B", 1.0),
+                new EdgeLink("B", "C", 1.0)
+        ).delayElements(Duration.ofMillis(1)));
+
+        NavigationPathResponse resp = service.computePathAsync("B1", "F1", 0, 0, 2, 0).block();
+        assertEquals(5, resp.getPath().size());
+        assertEquals(1, resp.getPath().get(2).getX(), 0.01);
+        assertEquals(1, cache.size());
+
+        // Served from the cache afterwards, without touching either driver
+        service.computePathAsync("B1", "F1", 0, 0, 2, 0).block();
+        Mockito.verify(reactiveNodeRepo, Mockito.times(1)).streamPointsByBuildingIdAndFloorId("B1", "F1");
+        Mockito.verifyNoInteractions(nodeRepo, edgeRepo);
+    }
+
+    @Test
+    void concurrentReactiveMissesShareOneLoad() {
+        ReactiveGraphNodeRepository reactiveNodeRepo = Mockito.mock(ReactiveGraphNodeRepository.class);
+        ReactiveGraphEdgeRepository reactiveEdgeRepo = Mockito.mock(ReactiveGraphEdgeRepository.class);
+        FloorGraphCache cache = new FloorGraphCache(
+                Mockito.mock(GraphNodeRepository.class), Mockito.mock(GraphEdgeRepository.class));
+        ReactiveGraphLoader loader = new ReactiveGraphLoader(reactiveNodeRepo, reactiveEdgeRepo, cache);
+        Mockito.when(reactiveNodeRepo.streamPointsByBuildingIdAndFloorId("B1", "F1")).thenReturn(Flux.just(
+                new NodePoint("A", 0, 0),
+                new NodePoint("B", 1, 0)
+        ).delayElements(Duration.ofMillis(20)));
+        Mockito.when(reactiveEdgeRepo.streamLinksByBuildingIdAndFloorId("B1", "F1"))
+                .thenReturn(Flux.just(new EdgeLink("A", "B", 1.0)));
+
+        List<CompiledGraph> graphs = Flux.merge(loader.get("B1", "F1"), loader.get("B1", "F1"), loader.get("B1", "F1"))
+                .collectList().block();
+
+        assertEquals(3, graphs.size());
+        assertTrue(graphs.stream().allMatch(graph -> graph == graphs.get(0)));
+        Mockito.verify(reactiveNodeRepo, Mockito.times(1)).streamPointsByBuildingIdAndFloorId("B1", "F1");
+    }
+
+    private static GraphNavigationService service(GraphNodeRepository nodeRepo, GraphEdgeRepository edgeRepo) {
+        FloorGraphCache cache = new FloorGraphCache(nodeRepo, edgeRepo);
+        return new GraphNavigationService(cache, new ReactiveGraphLoader(
+                Mockito.mock(ReactiveGraphNodeRepository.class), Mockito.mock(ReactiveGraphEdgeRepository.class), cache),
+                unsmoothed());
+    }
+
+    private static RouteSmoother unsmoothed() {
+        RouteSmoother smoother = new RouteSmoother(Mockito.mock(FloorRepository.class), new MapImageStore());
+        ReflectionTestUtils.setField(smoother, "enabled", false);
+        return smoother;
+    }
 }
@@ -0,0 +1,60 @@
+package com.wayfinding.indoor.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapDeliveryServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void servesAcceptedVariantsWithContentHashEtags() throws Exception {
+        MapDeliveryService service = service();
+        Path image = Files.createDirectories(dir.resolve("B1")).resolve("F1.png");
+        Files.write(image, new byte[]{1, 2, 3, 4});
+        Files.write(dir.resolve("B1/F1.png.webp"), new byte[]{9});
+
+        MapDeliveryService.MapFile plain = service.resolve("B1", "F1.png", MediaType.parseMediaTypes("image/*"));
+        assertThat(plain.path()).isEqualTo(image);
+        assertThat(plain.contentType()).isEqualTo(MediaType.IMAGE_PNG);
+        assertThat(plain.variant()).isFalse();
+        assertThat(plain.etag()).matches("\"[0-9a-f]{32}\"");
+
+        MapDeliveryService.MapFile webp = service.resolve("B1", "F1.png",
+                MediaType.parseMediaTypes("image/avif,image/webp,image/*;q=0.8"));
+        assertThat(webp.path()).isEqualTo(dir.resolve("B1/F1.png.webp"));
+        assertThat(webp.contentType().toString()).isEqualTo("image/webp");
+        assertThat(webp.etag()).isNotEqualTo(plain.etag());
+
+        // Same size, new content and mtime: the hash is recomputed
+        Files.write(image, new byte[]{4, 3, 2, 1});
+        Files.setLastModifiedTime(image, FileTime.fromMillis(plain.lastModified() + 5000));
+        assertThat(service.resolve("B1", "F1.png", List.of()).etag()).isNotEqualTo(plain.etag());
+    }
+
+    @Test
+    void missingOrEscapingFilesResolveToNothing() throws Exception {
+        MapDeliveryService service = service();
+        Files.createDirectories(dir.resolve("B1"));
+
+        assertThat(service.resolve("B1", "F9.png", List.of())).isNull();
+        assertThat(service.resolve("..", "secret.png", List.of())).isNull();
+        assertThat(service.resolve("B1", "..", List.of())).isNull();
+    }
+
+    private MapDeliveryService service() {
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        return new MapDeliveryService(store);
+    }
+}
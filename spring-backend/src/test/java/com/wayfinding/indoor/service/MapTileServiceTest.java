@@ -0,0 +1,66 @@
+package com.wayfinding.indoor.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MapTileServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void generatesPyramidAndReplacesOlderVersions() throws Exception {
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        MapTileService service = new MapTileService(store);
+
+        Path image = Files.createDirectories(dir.resolve("B1")).resolve("F1.png");
+        ImageIO.write(map(600, 300, Color.BLUE), "png", image.toFile());
+        MapTileService.TilePyramid first = service.generate("B1", "F1", image);
+
+        // 600x300 at 256px tiles: zoom 2 is 3x2 tiles, zoom 1 (300x150) 2x1, zoom 0 (150x75) 1
+        assertThat(first.maxZoom()).isEqualTo(2);
+        assertThat(first.tiles()).isEqualTo(9);
+        assertThat(first.urlTemplate()).isEqualTo("/api/maps/B1/F1/tiles/" + first.version() + "/{z}/{x}/{y}.png");
+        Path edge = service.tile("B1", "F1", first.version(), 2, 2, 1);
+        assertThat(edge).isNotNull();
+        BufferedImage edgeTile = ImageIO.read(edge.toFile());
+        assertThat(edgeTile.getWidth()).isEqualTo(256);
+        assertThat(new Color(edgeTile.getRGB(10, 10), true)).isEqualTo(Color.BLUE);
+        assertThat(edgeTile.getRGB(200, 10) >>> 24).isZero(); // beyond the map's right edge
+        assertThat(service.tile("B1", "F1", first.version(), 3, 0, 0)).isNull();
+
+        ImageIO.write(map(600, 300, Color.RED), "png", image.toFile());
+        MapTileService.TilePyramid second = service.generate("B1", "F1", image);
+        assertThat(second.version()).isNotEqualTo(first.version());
+        assertThat(service.tile("B1", "F1", second.version(), 0, 0, 0)).isNotNull();
+        assertThat(service.tile("B1", "F1", first.version(), 0, 0, 0)).isNull();
+    }
+
+    @Test
+    void maxZoomFitsTheLongerSide() {
+        assertThat(MapTileService.maxZoom(200, 100, 256)).isZero();
+        assertThat(MapTileService.maxZoom(256, 256, 256)).isZero();
+        assertThat(MapTileService.maxZoom(257, 10, 256)).isEqualTo(1);
+        assertThat(MapTileService.maxZoom(1000, 4000, 256)).isEqualTo(4);
+    }
+
+    private static BufferedImage map(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+}
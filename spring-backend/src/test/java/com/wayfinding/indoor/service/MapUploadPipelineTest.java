@@ -0,0 +1,221 @@
+package com.wayfinding.indoor.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.wayfinding.indoor.dto.MapUploadJob;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.FloorRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MapUploadPipelineTest {
+
+    @TempDir
+    Path dir;
+
+    private final FloorRepository floorRepository = mock(FloorRepository.class);
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final CollectionVersions collectionVersions = mock(CollectionVersions.class);
+    private MapUploadPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        when(mongoTemplate.getCollectionName(Floor.class)).thenReturn("floors");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Floor.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void downscalesLargeMapsAndGeneratesTiles() throws Exception {
+        Floor floor = floor(0, 0);
+        pipeline = pipeline(1, 4);
+        ReflectionTestUtils.setField(pipeline, "maxEdge", 300);
+
+        MapUploadJob job = pipeline.submit(floor, png("map.png", 1200, 600));
+        MapUploadJob done = await(job.jobId());
+
+        assertThat(done.status()).isEqualTo(MapUploadJob.Status.SUCCEEDED);
+        assertThat(done.width()).isEqualTo(300);
+        assertThat(done.height()).isEqualTo(150);
+        assertThat(done.message()).isEqualTo("Downscaled from 1200x600");
+        assertThat(done.mapImageUrl()).isEqualTo("/maps/B1/F1.png");
+        BufferedImage stored = ImageIO.read(dir.resolve("B1/F1.png").toFile());
+        assertThat(stored.getWidth()).isEqualTo(300);
+        // Unset floor dimensions are taken from the map; tiles are recorded on the floor
+        assertThat(floor.getWidth()).isEqualTo(300);
+        assertThat(floor.getMapTilesUrl()).contains("/api/maps/B1/F1/tiles/");
+        // Only the fields the job owns are written, leaving concurrent floor edits alone
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), updates.capture(), eq(Floor.class));
+        Document fields = (Document) updates.getAllValues().get(0).getUpdateObject().get("$set");
+        assertThat(fields).containsEntry("mapImageUrl", "/maps/B1/F1.png")
+                .containsKeys("mapTilesUrl", "mapTileSize", "mapTileMaxZoom", "updatedAt")
+                .doesNotContainKeys("name", "width", "scale");
+        assertThat((Document) updates.getAllValues().get(1).getUpdateObject().get("$set"))
+                .containsEntry("width", 300).containsEntry("height", 150);
+        verify(collectionVersions).bump("floors");
+        verify(floorRepository, never()).save(any());
+    }
+
+    @Test
+    void rejectsMapsThatDoNotMatchTheFloorsAspectRatio() throws Exception {
+        Floor floor = floor(1000, 1000);
+        pipeline = pipeline(1, 4);
+
+        MapUploadJob done = await(pipeline.submit(floor, png("map.png", 400, 200)).jobId());
+
+        assertThat(done.status()).isEqualTo(MapUploadJob.Status.FAILED);
+        assertThat(done.message()).contains("400x200").contains("1000x1000");
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(Floor.class));
+
+        MapUploadJob garbage = await(pipeline.submit(floor,
+                new MockMultipartFile("file", "map.png", "image/png", new byte[]{1, 2, 3})).jobId());
+        assertThat(garbage.status()).isEqualTo(MapUploadJob.Status.FAILED);
+        assertThat(garbage.message()).isEqualTo("Unsupported map image format");
+    }
+
+    @Test
+    void jobsOfOneFloorRunOneAtATimeAndOnlyTheNewestWaitingOneIsApplied() throws Exception {
+        Floor floor = floor(0, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlapped = new AtomicInteger();
+        when(floorRepository.findById("f1")).thenAnswer(invocation -> {
+            if (running.incrementAndGet() > 1) {
+                overlapped.incrementAndGet();
+            }
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            running.decrementAndGet();
+            return Optional.of(floor);
+        });
+        pipeline = pipeline(2, 4);
+
+        MapUploadJob first = pipeline.submit(floor, png("a.png", 10, 10));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        MapUploadJob second = pipeline.submit(floor, png("b.png", 10, 10));
+        MapUploadJob third = pipeline.submit(floor, png("c.png", 10, 10));
+        release.countDown();
+
+        assertThat(await(first.jobId()).status()).isEqualTo(MapUploadJob.Status.SUCCEEDED);
+        MapUploadJob skipped = await(second.jobId());
+        assertThat(skipped.status()).isEqualTo(MapUploadJob.Status.FAILED);
+        assertThat(skipped.message()).contains("Superseded");
+        assertThat(await(third.jobId()).status()).isEqualTo(MapUploadJob.Status.SUCCEEDED);
+        assertThat(overlapped.get()).isZero();
+    }
+
+    @Test
+    void inlineMapsReplaceTheVariantsOfTheStoredImage() throws Exception {
+        Floor floor = floor(0, 0);
+        pipeline = pipeline(1, 4);
+        // Variant of the map stored before, under the same URL
+        Files.createDirectories(dir.resolve("B1"));
+        Files.write(dir.resolve("B1/F1.png.webp"), new byte[]{1});
+
+        String encoded = "data:image/png;base64,"
+                + Base64.getEncoder().encodeToString(png("map.png", 20, 10).getBytes());
+        MapUploadJob done = await(pipeline.submitEncoded(floor, encoded).jobId());
+
+        assertThat(done.status()).isEqualTo(MapUploadJob.Status.SUCCEEDED);
+        assertThat(done.mapImageUrl()).isEqualTo("/maps/B1/F1.png");
+        assertThat(dir.resolve("B1/F1.png.webp")).doesNotExist();
+        assertThat(floor.getMapTilesUrl()).contains("/api/maps/B1/F1/tiles/");
+    }
+
+    @Test
+    void rejectsUploadsWhenTheQueueIsFull() throws Exception {
+        Floor floor = floor(0, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(floorRepository.findById("f1")).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(floor);
+        });
+        pipeline = pipeline(1, 1);
+
+        MapUploadJob running = pipeline.submit(floor, png("a.png", 10, 10));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        MapUploadJob waiting = pipeline.submit(floor, png("b.png", 10, 10));
+        assertThat(pipeline.getJob(waiting.jobId()).orElseThrow().status()).isEqualTo(MapUploadJob.Status.QUEUED);
+        assertThatThrownBy(() -> pipeline.submit(floor, png("c.png", 10, 10)))
+                .isInstanceOf(ResponseStatusException.class)
+                .hasMessageContaining("503");
+
+        release.countDown();
+        assertThat(await(running.jobId()).status()).isEqualTo(MapUploadJob.Status.SUCCEEDED);
+        assertThat(await(waiting.jobId()).status()).isEqualTo(MapUploadJob.Status.SUCCEEDED);
+    }
+
+    private MapUploadPipeline pipeline(int workers, int queueCapacity) {
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        MapUploadPipeline pipeline = new MapUploadPipeline(floorRepository, mongoTemplate, collectionVersions, store, new MapTileService(store),
+                new MapDeliveryService(store), mock(RouteSmoother.class), mock(ChangeLogService.class));
+        ReflectionTestUtils.setField(pipeline, "workers", workers);
+        ReflectionTestUtils.setField(pipeline, "queueCapacity", queueCapacity);
+        pipeline.init();
+        return pipeline;
+    }
+
+    private Floor floor(int width, int height) {
+        Floor floor = new Floor("F1", "B1", 1, "Ground", width, height, 1.0);
+        floor.setId("f1");
+        when(floorRepository.findById("f1")).thenReturn(Optional.of(floor));
+        return floor;
+    }
+
+    private MapUploadJob await(String jobId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            MapUploadJob job = pipeline.getJob(jobId).orElseThrow();
+            if (job.isFinished()) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Job " + jobId + " did not finish");
+    }
+
+    private static MockMultipartFile png(String name, int width, int height) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return new MockMultipartFile("file", name, "image/png", out.toByteArray());
+    }
+}
@@ -0,0 +1,163 @@
+package com.wayfinding.indoor.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.wayfinding.indoor.dto.BulkImportResult;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.model.NavigationNode;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class NodeImportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private FloorGraphCache graphCache;
+
+    private BulkOperations bulk;
+    private NodeImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new NodeImportService(mongoTemplate, new ObjectMapper(), graphCache, mock(ChangeLogService.class),
+                new CollectionVersions(mongoTemplate));
+        ReflectionTestUtils.setField(importService, "batchSize", 2);
+        bulk = mock(BulkOperations.class);
+        when(bulk.insert(anyList())).thenReturn(bulk);
+        when(bulk.execute()).thenAnswer(inv -> BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importGraphNodes_checksDuplicatesOncePerBatch() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(GraphNode.class)))
+                .thenReturn(List.of(new GraphNode("x", "n2", "B1", "F1", 0, 0)))
+                .thenReturn(List.of());
+
+        BulkImportResult result = importService.importGraphNodes(body(
+                "{\"nodeId\":\"n1\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":1,\"y\":2}\n"
+                        + "{\"nodeId\":\"n2\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":3,\"y\":4}\n"
+                        + "{\"nodeId\":\"n3\",\"buildingId\":\"B1\",\"floorId\":\"F1\"}\n"
+                        + "{\"nodeId\":\"n4\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":5,\"y\":6}\n"));
+
+        assertThat(result.getReceived()).isEqualTo(4);
+        assertThat(result.getInserted()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).containsExactly(
+                "item 1: nodeId already exists: n2",
+                "item 2: x and y are required");
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(GraphNode.class));
+
+        ArgumentCaptor<List<GraphNode>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulk, times(2)).insert(inserted.capture());
+        assertThat(inserted.getAllValues()).flatExtracting(nodes -> nodes)
+                .extracting(GraphNode::getNodeId)
+                .containsExactly("n1", "n4");
+    }
+
+    @Test
+    void importNavigationNodes_acceptsJsonArrayAndRejectsRepeatedIds() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NavigationNode.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(NavigationNode.class))).thenReturn(List.of());
+
+        BulkImportResult result = importService.importNavigationNodes(body(
+                "[{\"id\":\"a\",\"floorId\":\"F1\",\"x\":1,\"y\":2,\"connectedNodes\":[\"b\"]},"
+                        + "{\"id\":\"a\",\"floorId\":\"F1\",\"x\":1,\"y\":2}]"));
+
+        assertThat(result.getReceived()).isEqualTo(2);
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly("item 1: duplicate id in request: a");
+    }
+
+    @Test
+    void importGraphNodes_stopsAtMalformedJsonButKeepsEarlierItems() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(GraphNode.class))).thenReturn(List.of());
+
+        BulkImportResult result = importService.importGraphNodes(body(
+                "{\"nodeId\":\"n1\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":1,\"y\":2}\n{\"nodeId\":"));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getErrors().get(0)).startsWith("item 1: malformed JSON");
+    }
+
+    @Test
+    void importGraphNodes_countsNodesWrittenConcurrentlyAsRejected() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(GraphNode.class))).thenReturn(List.of());
+        when(mongoTemplate.getCollectionName(GraphNode.class)).thenReturn("nodes");
+        // n2 was inserted by another import after the existence check
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        when(bulk.execute()).thenThrow(new BulkOperationException("duplicate", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null,
+                new ServerAddress(), Set.of())));
+
+        BulkImportResult result = importService.importGraphNodes(body(
+                "{\"nodeId\":\"n1\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":1,\"y\":2}\n"
+                        + "{\"nodeId\":\"n2\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":3,\"y\":4}\n"));
+
+        assertThat(result.getInserted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(1);
+        assertThat(result.getErrors()).containsExactly("item 1: already exists");
+        // n1 landed, so node list ETags must change
+        verify(mongoTemplate).upsert(any(Query.class), any(Update.class), eq("collection_versions"));
+    }
+
+    @Test
+    void importGraphNodes_leavesTheFloorAloneWhenNothingWasInserted() {
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, GraphNode.class)).thenReturn(bulk);
+        when(mongoTemplate.find(any(Query.class), eq(GraphNode.class))).thenReturn(List.of());
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 0);
+        when(bulk.execute()).thenThrow(new BulkOperationException("duplicate", new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(0, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null,
+                new ServerAddress(), Set.of())));
+
+        BulkImportResult result = importService.importGraphNodes(body(
+                "{\"nodeId\":\"n1\",\"buildingId\":\"B1\",\"floorId\":\"F1\",\"x\":1,\"y\":2}\n"));
+
+        assertThat(result.getInserted()).isZero();
+        assertThat(result.getRejected()).isEqualTo(1);
+        verifyNoInteractions(graphCache);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), eq("collection_versions"));
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,109 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.config.ScanFilterProperties;
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.dto.PositionResponse;
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.model.Building;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.BeaconRepository;
+import com.wayfinding.indoor.repository.BuildingRepository;
+import com.wayfinding.indoor.repository.FloorRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class PositioningServiceTest {
+
+    private static final String UUID = "00010203-0405-0607-0809-0A0B0C0D0E0F";
+
+    @Mock
+    private BeaconRepository beaconRepository;
+
+    @Mock
+    private FloorRepository floorRepository;
+
+    @Mock
+    private BuildingRepository buildingRepository;
+
+    @Mock
+    private FingerprintService fingerprintService;
+
+    @Spy
+    private FloorDetectionService floorDetectionService = new FloorDetectionService();
+
+    @Spy
+    private ScanFilterPipeline scanFilterPipeline = scanFilterPipeline(new ScanFilterProperties());
+
+    @Spy
+    private QueryFanOut queryFanOut = new QueryFanOut(false);
+
+    @InjectMocks
+    private PositioningService positioningService;
+
+    private static ScanFilterPipeline scanFilterPipeline(ScanFilterProperties properties) {
+        return new ScanFilterPipeline(List.of(
+                new DedupeScanFilter(),
+                new RssiThresholdScanFilter(properties)
+        ), properties);
+    }
+
+    @Test
+    void computePositions_resolvesBeaconsWithSingleLookup() {
+        Beacon b1 = beacon("b1", 1, 100, 100);
+        Beacon b2 = beacon("b2", 2, 500, 400);
+
+        Floor floor = new Floor("FLR-1", "bld-1", 1, "Ground Floor", 1000, 800, 10.0);
+        floor.setId("F1");
+        Building building = new Building("BLD-1", "HQ", null, null, 1);
+        building.setId("bld-1");
+
+        when(beaconRepository.findByUuidIn(any())).thenReturn(List.of(b1, b2));
+        when(floorRepository.findAllById(any())).thenReturn(List.of(floor));
+        when(buildingRepository.findAllById(any())).thenReturn(List.of(building));
+
+        Map<String, BeaconScanRequest> scans = new LinkedHashMap<>();
+        scans.put("tag-a", scan(new BeaconScanRequest.ScannedBeacon(UUID.toLowerCase(), 1, 1, -60)));
+        scans.put("tag-b", scan(new BeaconScanRequest.ScannedBeacon(UUID, 1, 2, -55)));
+        scans.put("tag-c", scan(new BeaconScanRequest.ScannedBeacon(UUID, 1, 9, -55)));
+
+        Map<String, PositionResponse> results = positioningService.computePositions(scans);
+
+        assertThat(results).containsOnlyKeys("tag-a", "tag-b", "tag-c");
+        assertThat(results.get("tag-a").isValid()).isTrue();
+        assertThat(results.get("tag-a").getX()).isEqualTo(100);
+        assertThat(results.get("tag-a").getBuildingName()).isEqualTo("HQ");
+        assertThat(results.get("tag-b").getX()).isEqualTo(500);
+        assertThat(results.get("tag-c").isValid()).isFalse();
+
+        verify(beaconRepository, times(1)).findByUuidIn(any());
+        verify(beaconRepository, never()).findByUuidAndMajorAndMinor(anyString(), anyInt(), anyInt());
+    }
+
+    private static Beacon beacon(String id, int minor, double x, double y) {
+        Beacon beacon = new Beacon("bld-1", "F1", UUID, 1, minor, x, y);
+        beacon.setId(id);
+        return beacon;
+    }
+
+    private static BeaconScanRequest scan(BeaconScanRequest.ScannedBeacon... beacons) {
+        return new BeaconScanRequest(List.of(beacons));
+    }
+}
@@ -0,0 +1,142 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.NavigationPathResponse.PathPoint;
+import com.wayfinding.indoor.model.Floor;
+import com.wayfinding.indoor.repository.FloorRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RouteSmootherTest {
+
+    @Test
+    void dropsWaypointsInOpenSpaceButKeepsTheCornerOfAnLShapedCorridor() {
+        // 100x100 px map at 2 units per px: corridor along the top, then down the right side
+        BufferedImage map = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = map.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 100, 20);
+        g.fillRect(80, 0, 20, 100);
+        g.dispose();
+        WalkableMask mask = WalkableMask.fromImage(map, 2, 128, 2, 2, 1);
+
+        List<PathPoint> zigzag = List.of(
+                point(10, 20), point(40, 16), point(70, 24), point(100, 20), point(130, 16),
+                point(180, 20), // corner
+                point(176, 60), point(184, 100), point(180, 180));
+
+        List<PathPoint> smoothed = RouteSmoother.smooth(mask, zigzag);
+
+        assertThat(smoothed).hasSizeLessThan(zigzag.size());
+        assertThat(smoothed.get(0)).isEqualTo(zigzag.get(0));
+        assertThat(smoothed.get(smoothed.size() - 1)).isEqualTo(zigzag.get(zigzag.size() - 1));
+        // The wall inside the L blocks the diagonal, so a waypoint near the corner survives
+        assertThat(mask.lineOfSight(10, 20, 180, 180)).isFalse();
+        assertThat(smoothed).anySatisfy(p -> {
+            assertThat(p.getX()).isGreaterThan(120);
+            assertThat(p.getY()).isLessThan(40);
+        });
+        for (int i = 1; i < smoothed.size(); i++) {
+            PathPoint a = smoothed.get(i - 1);
+            PathPoint b = smoothed.get(i);
+            assertThat(mask.lineOfSight(a.getX(), a.getY(), b.getX(), b.getY())).isTrue();
+        }
+    }
+
+    @Test
+    void clearanceKeepsSegmentsOffTheWalls() {
+        BufferedImage map = new BufferedImage(50, 10, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = map.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 50, 10);
+        g.dispose();
+        WalkableMask tight = WalkableMask.fromImage(map, 1, 128, 1, 1, 0);
+        WalkableMask clear = WalkableMask.fromImage(map, 1, 128, 1, 1, 2);
+
+        assertThat(tight.lineOfSight(0.5, 0.5, 49.5, 0.5)).isTrue();
+        assertThat(clear.lineOfSight(0.5, 0.5, 49.5, 0.5)).isFalse();
+        assertThat(clear.lineOfSight(5, 5, 45, 5)).isTrue();
+        assertThat(clear.lineOfSight(5, 5, 60, 5)).isFalse();
+    }
+
+    @Test
+    void floorsWithoutAMapAreLookedAtAgain(@TempDir Path dir) throws Exception {
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        FloorRepository floorRepository = mock(FloorRepository.class);
+        Floor floor = new Floor("F1", "B1", 1, "Ground", 100, 100, 1.0);
+        when(floorRepository.findByFloorId("F1")).thenReturn(Optional.of(floor));
+        RouteSmoother smoother = new RouteSmoother(floorRepository, store);
+        ReflectionTestUtils.setField(smoother, "retrySeconds", 0L);
+        smoother.init();
+        List<PathPoint> path = List.of(point(10, 10), point(50, 12), point(90, 10));
+        try {
+            assertThat(smoother.smooth("B1", "F1", path)).isEqualTo(path);
+
+            // The map arrives later, e.g. written by another instance
+            BufferedImage open = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = open.createGraphics();
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, 100, 100);
+            g.dispose();
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(open, "png", png);
+            floor.setMapImageUrl(store.save("B1", "F1", "png", new ByteArrayInputStream(png.toByteArray())));
+
+            List<PathPoint> smoothed = path;
+            for (int i = 0; i < 200 && smoothed.size() == path.size(); i++) {
+                Thread.sleep(10);
+                smoothed = smoother.smooth("B1", "F1", path);
+            }
+            assertThat(smoothed).containsExactly(point(10, 10), point(90, 10));
+        } finally {
+            smoother.shutdown();
+        }
+    }
+
+    @Test
+    void mapsOverThePixelLimitGetNoMask(@TempDir Path dir) throws Exception {
+        MapImageStore store = new MapImageStore();
+        ReflectionTestUtils.setField(store, "dir", dir.toString());
+        BufferedImage open = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = open.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, 100, 100);
+        g.dispose();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(open, "png", png);
+        Floor floor = new Floor("F1", "B1", 1, "Ground", 100, 100, 1.0);
+        floor.setMapImageUrl(store.save("B1", "F1", "png", new ByteArrayInputStream(png.toByteArray())));
+        FloorRepository floorRepository = mock(FloorRepository.class);
+        when(floorRepository.findByFloorId("F1")).thenReturn(Optional.of(floor));
+        RouteSmoother smoother = new RouteSmoother(floorRepository, store);
+        ReflectionTestUtils.setField(smoother, "maxPixels", 9_999L);
+        smoother.init();
+        List<PathPoint> path = List.of(point(10, 10), point(50, 12), point(90, 10));
+        try {
+            assertThat(smoother.smooth("B1", "F1", path)).isEqualTo(path);
+            Thread.sleep(200);
+            assertThat(smoother.smooth("B1", "F1", path)).isEqualTo(path);
+        } finally {
+            smoother.shutdown();
+        }
+    }
+
+    private static PathPoint point(double x, double y) {
+        return new PathPoint(x, y);
+    }
+}
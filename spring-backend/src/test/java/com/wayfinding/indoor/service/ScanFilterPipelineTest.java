@@ -0,0 +1,162 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.config.ScanFilterProperties;
+import com.wayfinding.indoor.dto.BeaconScanRequest;
+import com.wayfinding.indoor.model.Beacon;
+import com.wayfinding.indoor.util.BeaconKeys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ScanFilterPipelineTest {
+
+    private static final String UUID = "00010203-0405-0607-0809-0A0B0C0D0E0F";
+
+    private ScanFilterProperties properties;
+    private ScanFilterPipeline pipeline;
+    private final Map<String, Beacon> registry = new HashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        properties = new ScanFilterProperties();
+        pipeline = new ScanFilterPipeline(List.of(
+                new DedupeScanFilter(),
+                new RssiSmoothingScanFilter(properties),
+                new RssiThresholdScanFilter(properties)
+        ), properties);
+        register("b1", "bld-1", 1);
+        register("b2", "bld-1", 2);
+        register("b3", "bld-2", 3);
+    }
+
+    @Test
+    void dedupesRepeatedBeaconsWithMeanRssi() {
+        Map<Integer, Integer> readings = process(null, scan(1, -60), scan(1, -70), scan(2, -65));
+
+        assertThat(readings).containsOnly(entry(1, -65), entry(2, -65));
+    }
+
+    @Test
+    void appliesPerBuildingThresholdsAndDropsInvalidReadings() {
+        properties.getBuildingMinRssi().put("bld-2", -85);
+
+        Map<Integer, Integer> readings = process(null, scan(1, -80), scan(2, -70), scan(3, -80), scan(2, 5));
+
+        assertThat(readings).containsOnly(entry(2, -70), entry(3, -80));
+    }
+
+    @Test
+    void dropsUnregisteredBeacons() {
+        Map<Integer, Integer> readings = process(null, scan(9, -60), scan(1, -60));
+
+        assertThat(readings).containsOnly(entry(1, -60));
+    }
+
+    @Test
+    void smoothsPerDeviceAndClampsOutliers() {
+        process("dev-1", scan(1, -60));
+        Map<Integer, Integer> readings = process("dev-1", scan(1, -40));
+
+        // -40 is clamped to -60 + 15 = -45, then folded into the EMA: -60 + 0.4 * 15
+        assertThat(readings).containsOnly(entry(1, -54));
+
+        // Anonymous scans and other devices are not affected by dev-1's history
+        assertThat(process(null, scan(1, -40))).containsOnly(entry(1, -40));
+        assertThat(process("dev-2", scan(1, -40))).containsOnly(entry(1, -40));
+    }
+
+    @Test
+    void medianSmoothingRejectsSpikes() {
+        properties.getSmoothing().setMode("median");
+        properties.getSmoothing().setWindow(3);
+
+        process("dev-1", scan(1, -60));
+        process("dev-1", scan(1, -62));
+        Map<Integer, Integer> readings = process("dev-1", scan(1, -74));
+
+        assertThat(readings).containsOnly(entry(1, -62));
+    }
+
+    @Test
+    void smoothingCanBeDisabled() {
+        properties.getSmoothing().setMode("none");
+
+        process("dev-1", scan(1, -60));
+        Map<Integer, Integer> readings = process("dev-1", scan(1, -40));
+
+        assertThat(readings).containsOnly(entry(1, -40));
+    }
+
+    @Test
+    void weakReadingsStillFeedTheSmoothing() {
+        process("dev-1", scan(1, -70));
+        Map<Integer, Integer> readings = process("dev-1", scan(1, -80));
+
+        // -80 alone is below the -75 threshold, but the EMA it moves to is not: -70 + 0.4 * -10
+        assertThat(readings).containsOnly(entry(1, -74));
+        assertThat(process(null, scan(1, -80))).isEmpty();
+    }
+
+    @Test
+    void invalidReadingsAreNotResolved() {
+        List<Integer> resolved = new ArrayList<>();
+
+        ScanBuffer[] seen = new ScanBuffer[2];
+        for (int i = 0; i < seen.length; i++) {
+            int n = i;
+            pipeline.process(new BeaconScanRequest(List.of(scan(1, 0), scan(2, -90), scan(3, -60))), null,
+                    scanned -> {
+                        resolved.add(scanned.getMinor());
+                        return Optional.ofNullable(registry.get(BeaconKeys.of(scanned)));
+                    },
+                    buffer -> {
+                        assertThat(readings(buffer)).containsOnly(entry(3, -60));
+                        return seen[n] = buffer;
+                    });
+        }
+
+        assertThat(resolved).containsExactly(2, 3, 2, 3);
+        // The second scan reuses the buffer the first returned to the pool
+        assertThat(seen[1]).isSameAs(seen[0]);
+        assertThat(seen[1].size()).isZero();
+    }
+
+    private Map<Integer, Integer> process(String deviceId, BeaconScanRequest.ScannedBeacon... beacons) {
+        return pipeline.process(new BeaconScanRequest(List.of(beacons)), deviceId,
+                scanned -> Optional.ofNullable(registry.get(BeaconKeys.of(scanned))), ScanFilterPipelineTest::readings);
+    }
+
+    private void register(String id, String buildingId, int minor) {
+        Beacon beacon = new Beacon(buildingId, "F1", UUID, 1, minor, 0, 0);
+        beacon.setId(id);
+        registry.put(BeaconKeys.of(beacon), beacon);
+    }
+
+    private static BeaconScanRequest.ScannedBeacon scan(int minor, int rssi) {
+        BeaconScanRequest.ScannedBeacon scanned = new BeaconScanRequest.ScannedBeacon();
+        scanned.setUuid(UUID);
+        scanned.setMajor(1);
+        scanned.setMinor(minor);
+        scanned.setRssi(rssi);
+        return scanned;
+    }
+
+    private static Map<Integer, Integer> readings(ScanBuffer buffer) {
+        Map<Integer, Integer> readings = new HashMap<>();
+        for (int i = 0; i < buffer.size(); i++) {
+            readings.put(buffer.beacon(i).getMinor(), buffer.rssi(i));
+        }
+        return readings;
+    }
+
+    private static Map.Entry<Integer, Integer> entry(int minor, int rssi) {
+        return Map.entry(minor, rssi);
+    }
+}
@@ -0,0 +1,174 @@
+package com.wayfinding.indoor.service;
+
+import com.wayfinding.indoor.dto.SyncResponse;
+import com.wayfinding.indoor.model.Building;
+import com.wayfinding.indoor.model.ChangeLogEntry;
+import com.wayfinding.indoor.model.ChangeLogEntry.Kind;
+import com.wayfinding.indoor.model.ChangeLogEntry.Op;
+import com.wayfinding.indoor.model.GraphNode;
+import com.wayfinding.indoor.model.POI;
+import com.wayfinding.indoor.repository.BeaconRepository;
+import com.wayfinding.indoor.repository.BuildingRepository;
+import com.wayfinding.indoor.repository.ChangeLogRepository;
+import com.wayfinding.indoor.repository.FloorRepository;
+import com.wayfinding.indoor.repository.GraphEdgeRepository;
+import com.wayfinding.indoor.repository.GraphNodeRepository;
+import com.wayfinding.indoor.repository.POIRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SyncServiceTest {
+
+    private final ChangeLogService changeLogService = mock(ChangeLogService.class);
+    private final ChangeLogRepository changeLogRepository = mock(ChangeLogRepository.class);
+    private final BuildingRepository buildingRepository = mock(BuildingRepository.class);
+    private final FloorRepository floorRepository = mock(FloorRepository.class);
+    private final POIRepository poiRepository = mock(POIRepository.class);
+    private final BeaconRepository beaconRepository = mock(BeaconRepository.class);
+    private final GraphNodeRepository nodeRepository = mock(GraphNodeRepository.class);
+    private final GraphEdgeRepository edgeRepository = mock(GraphEdgeRepository.class);
+    private final SyncService syncService = new SyncService(changeLogService, changeLogRepository, buildingRepository,
+            floorRepository, poiRepository, beaconRepository, nodeRepository, edgeRepository, new QueryFanOut(false));
+
+    @Test
+    void deltaCollapsesChangesAndExpandsFloorResets() {
+        when(changeLogService.currentSequence("B1")).thenReturn(12L);
+        when(changeLogRepository.existsByBuildingIdAndSeqLessThanEqual("B1", 6)).thenReturn(true);
+        LocalDateTime at = LocalDateTime.now();
+        entries(5,
+                entry(6, Kind.POI, Op.UPSERT, "F1", "p1", at),
+                entry(7, Kind.POI, Op.UPSERT, "F1", "p2", at),
+                entry(8, Kind.POI, Op.DELETE, "F1", "p2", at),
+                entry(9, Kind.NODE, Op.UPSERT, "F1", "n1", at),
+                entry(10, Kind.NODE, Op.RESET, "F1", null, at),
+                entry(11, Kind.EDGE, Op.DELETE, "F2", "e1", at),
+                entry(12, Kind.BUILDING, Op.UPSERT, null, "b1", at));
+        POI cafe = poi("p1");
+        when(poiRepository.findAllById(List.of("p1"))).thenReturn(List.of(cafe));
+        List<GraphNode> floorNodes = List.of(node("n1"), node("n2"));
+        when(nodeRepository.findByBuildingIdAndFloorId("B1", "F1")).thenReturn(floorNodes);
+        Building building = new Building("B1", "Main", null, null, 3);
+        when(buildingRepository.findById("b1")).thenReturn(Optional.of(building));
+
+        SyncResponse response = syncService.changesSince("B1", 5);
+
+        assertThat(response.isFull()).isFalse();
+        assertThat(response.getSequence()).isEqualTo(12);
+        assertThat(response.isHasMore()).isFalse();
+        assertThat(response.getBuilding()).isSameAs(building);
+        assertThat(response.getPois().getUpserted()).containsExactly(cafe);
+        assertThat(response.getPois().getDeleted()).containsExactly("p2");
+        // The reset covers the earlier single-node change
+        assertThat(response.getNodes().getResetFloors()).containsExactly("F1");
+        assertThat(response.getNodes().getUpserted()).isEqualTo(floorNodes);
+        assertThat(response.getNodes().getDeleted()).isEmpty();
+        verify(nodeRepository, never()).findAllById(any());
+        assertThat(response.getEdges().getDeleted()).containsExactly("e1");
+        assertThat(response.getFloors().getUpserted()).isEmpty();
+        verify(poiRepository, never()).findByBuildingId(any());
+    }
+
+    @Test
+    void upsertedDocumentsThatAreGoneAreReportedDeleted() {
+        when(changeLogService.currentSequence("B1")).thenReturn(2L);
+        when(changeLogRepository.existsByBuildingIdAndSeqLessThanEqual("B1", 2)).thenReturn(true);
+        entries(1, entry(2, Kind.POI, Op.UPSERT, "F1", "p1", LocalDateTime.now()));
+        when(poiRepository.findAllById(List.of("p1"))).thenReturn(List.of());
+
+        SyncResponse response = syncService.changesSince("B1", 1);
+
+        assertThat(response.getPois().getUpserted()).isEmpty();
+        assertThat(response.getPois().getDeleted()).containsExactly("p1");
+    }
+
+    @Test
+    void stopsBeforeAFreshGapAndSkipsAStaleOne() {
+        when(changeLogService.currentSequence("B1")).thenReturn(7L);
+        when(changeLogRepository.existsByBuildingIdAndSeqLessThanEqual("B1", 6)).thenReturn(true);
+        when(poiRepository.findAllById(List.of("p7"))).thenReturn(List.of(poi("p7")));
+
+        // Sequence 6 is taken but its entry is not stored yet
+        entries(5, entry(7, Kind.POI, Op.UPSERT, "F1", "p7", LocalDateTime.now()));
+        SyncResponse waiting = syncService.changesSince("B1", 5);
+        assertThat(waiting.getSequence()).isEqualTo(5);
+        assertThat(waiting.getPois().getUpserted()).isEmpty();
+
+        // Still missing a minute later: the write behind it failed
+        entries(5, entry(7, Kind.POI, Op.UPSERT, "F1", "p7", LocalDateTime.now().minusMinutes(1)));
+        SyncResponse skipped = syncService.changesSince("B1", 5);
+        assertThat(skipped.getSequence()).isEqualTo(7);
+        assertThat(skipped.getPois().getUpserted()).extracting(POI::getId).containsExactly("p7");
+    }
+
+    @Test
+    void newClientsAndClientsBehindTheLogGetEverything() {
+        when(changeLogService.currentSequence("B1")).thenReturn(40L);
+        POI cafe = poi("p1");
+        when(poiRepository.findByBuildingId("B1")).thenReturn(List.of(cafe));
+
+        SyncResponse initial = syncService.changesSince("B1", 0);
+        assertThat(initial.isFull()).isTrue();
+        assertThat(initial.getSequence()).isEqualTo(40);
+        assertThat(initial.getPois().getUpserted()).containsExactly(cafe);
+
+        // Entries up to 11 have expired
+        when(changeLogRepository.existsByBuildingIdAndSeqLessThanEqual("B1", 11)).thenReturn(false);
+        SyncResponse behind = syncService.changesSince("B1", 10);
+        assertThat(behind.isFull()).isTrue();
+        assertThat(behind.getSince()).isEqualTo(10);
+        verify(changeLogRepository, never())
+                .findByBuildingIdAndSeqGreaterThanOrderBySeqAsc(eq("B1"), anyLong(), any(Pageable.class));
+    }
+
+    @Test
+    void buildingsAreSyncedByDocumentIdNotBusinessId() {
+        // Floors, POIs, beacons and graphs reference the building by its document id
+        Building building = new Building("HQ-01", "Main", null, null, 3);
+        building.setId("B1");
+        when(buildingRepository.findById("B1")).thenReturn(Optional.of(building));
+        when(changeLogService.currentSequence("B1")).thenReturn(3L);
+
+        SyncResponse full = syncService.changesSince("B1", 0);
+        assertThat(full.getBuilding()).isSameAs(building);
+        verify(buildingRepository, never()).findByBuildingId(any());
+
+        when(changeLogRepository.existsByBuildingIdAndSeqLessThanEqual("B1", 3)).thenReturn(true);
+        entries(2, entry(3, Kind.BUILDING, Op.UPSERT, null, "B1", LocalDateTime.now()));
+        SyncResponse delta = syncService.changesSince("B1", 2);
+        assertThat(delta.getBuilding()).isSameAs(building);
+        assertThat(delta.isBuildingDeleted()).isFalse();
+    }
+
+    private void entries(long since, ChangeLogEntry... entries) {
+        when(changeLogRepository.findByBuildingIdAndSeqGreaterThanOrderBySeqAsc(eq("B1"), eq(since), any(Pageable.class)))
+                .thenReturn(List.of(entries));
+    }
+
+    private static ChangeLogEntry entry(long seq, Kind kind, Op op, String floorId, String documentId,
+                                        LocalDateTime at) {
+        return new ChangeLogEntry(null, "B1", seq, kind, op, floorId, documentId, at);
+    }
+
+    private static POI poi(String id) {
+        POI poi = new POI("B1", "F1", "Cafe", "food", 10, 20);
+        poi.setId(id);
+        return poi;
+    }
+
+    private static GraphNode node(String id) {
+        return new GraphNode(id, id, "B1", "F1", 1, 2);
+    }
+}
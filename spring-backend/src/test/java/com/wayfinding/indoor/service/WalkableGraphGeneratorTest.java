@@ -0,0 +1,89 @@
+package com.wayfinding.indoor.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class WalkableGraphGeneratorTest {
+
+    private static final WalkableGraphGenerator.Options OPTIONS =
+            new WalkableGraphGenerator.Options(2, 128, 1.5, 6, 0);
+
+    @Test
+    void crossingCorridorsBecomeAJunctionWithFourArms() {
+        // 200x200 map, 20px wide corridors crossing at (100, 100)
+        BufferedImage map = map(200, 200);
+        Graphics2D g = map.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(10, 90, 180, 20);
+        g.fillRect(90, 10, 20, 180);
+        g.dispose();
+
+        WalkableGraphGenerator.Result result = WalkableGraphGenerator.generate("B1", "F1", map, 0.5, 0.5, OPTIONS);
+        CompiledGraph graph = result.graph();
+
+        assertThat(result.gridWidth()).isEqualTo(100);
+        assertThat(graph.nodeCount()).isEqualTo(5);
+        int junction = graph.nearestNode(50, 50);
+        assertThat(graph.x(junction)).isCloseTo(50.0, within(2.0));
+        assertThat(graph.y(junction)).isCloseTo(50.0, within(2.0));
+        assertThat(graph.endEdge(junction) - graph.firstEdge(junction)).isEqualTo(4);
+
+        // Arms end near the corridor ends and routes run through the junction
+        int west = graph.nearestNode(5, 50);
+        int east = graph.nearestNode(95, 50);
+        assertThat(graph.x(west)).isLessThan(15.0);
+        assertThat(graph.x(east)).isGreaterThan(85.0);
+        assertThat(graph.shortestPath(west, east)).containsExactly(west, junction, east);
+    }
+
+    @Test
+    void ringCorridorStaysALoopAndLongEdgesAreSplit() {
+        BufferedImage map = map(300, 200);
+        Graphics2D g = map.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(20, 20, 260, 160);
+        g.setColor(Color.BLACK);
+        g.fillRect(50, 50, 200, 100);
+        g.dispose();
+
+        WalkableGraphGenerator.Result result = WalkableGraphGenerator.generate("B1", "F1", map, 1, 1,
+                new WalkableGraphGenerator.Options(2, 128, 1.5, 6, 20));
+        CompiledGraph graph = result.graph();
+
+        assertThat(graph.nodeCount()).isGreaterThanOrEqualTo(8);
+        for (int node = 0; node < graph.nodeCount(); node++) {
+            // A ring has no dead ends and no junctions
+            assertThat(graph.endEdge(node) - graph.firstEdge(node)).isEqualTo(2);
+            for (int e = graph.firstEdge(node); e < graph.endEdge(node); e++) {
+                assertThat(graph.weight(e)).isLessThanOrEqualTo(41f);
+            }
+        }
+        // Nodes sit on the corridor centre line, 15px inside the outer wall
+        int corner = graph.nearestNode(0, 0);
+        assertThat(graph.x(corner)).isCloseTo(35.0, within(4.0));
+        assertThat(graph.y(corner)).isCloseTo(35.0, within(4.0));
+    }
+
+    @Test
+    void blankMapGivesAnEmptyGraph() {
+        WalkableGraphGenerator.Result result = WalkableGraphGenerator.generate("B1", "F1", map(64, 64), 1, 1, OPTIONS);
+
+        assertThat(result.walkableCells()).isZero();
+        assertThat(result.graph().nodeCount()).isZero();
+    }
+
+    private static BufferedImage map(int width, int height) {
+        BufferedImage map = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = map.createGraphics();
+        g.setColor(Color.BLACK);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return map;
+    }
+}
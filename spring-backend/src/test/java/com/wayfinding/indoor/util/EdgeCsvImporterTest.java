@@ -0,0 +1,57 @@
+package com.wayfinding.indoor.util;
+
+import com.wayfinding.indoor.util.EdgeCsvImporter.EdgePair;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EdgeCsvImporterTest {
+
+    @Test
+    void parseCsv_skipsHeaderBlankAndMalformedLines() {
+        List<EdgePair> pairs = EdgeCsvImporter.parseCsv(
+                "﻿fromNodeId,toNodeId\r\n n1 , n2 \r\n\r\nbroken\nn2,n3,extra\n,n4\nn3,n4");
+
+        assertThat(pairs).containsExactly(
+                new EdgePair("n1", "n2"),
+                new EdgePair("n2", "n3"),
+                new EdgePair("n3", "n4")
+        );
+    }
+
+    @Test
+    void parseCsv_onlyFirstRowCanBeHeader() {
+        assertThat(EdgeCsvImporter.parseCsv("node-1,node-2\nnode-2,node-3"))
+                .containsExactly(new EdgePair("node-2", "node-3"));
+        assertThat(EdgeCsvImporter.parseCsv("a,b\nnode-2,node-3"))
+                .containsExactly(new EdgePair("a", "b"), new EdgePair("node-2", "node-3"));
+    }
+
+    @Test
+    void next_handlesLinesAcrossAndLongerThanBuffer() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        List<EdgePair> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String from = "v" + i + "-" + "x".repeat(i % 40);
+            String to = "v" + (i + 1);
+            csv.append(from).append(',').append(to).append(i % 3 == 0 ? "\r\n" : "\n");
+            expected.add(new EdgePair(from, to));
+        }
+
+        List<EdgePair> pairs = new ArrayList<>();
+        try (EdgeCsvImporter importer = new EdgeCsvImporter(new StringReader(csv.toString()), 16)) {
+            EdgePair pair;
+            while ((pair = importer.next()) != null) {
+                pairs.add(pair);
+            }
+            assertThat(importer.lineNumber()).isEqualTo(200);
+            assertThat(importer.skippedLines()).isZero();
+        }
+        assertThat(pairs).isEqualTo(expected);
+    }
+}
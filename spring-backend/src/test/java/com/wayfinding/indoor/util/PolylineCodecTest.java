@@ -0,0 +1,41 @@
+package com.wayfinding.indoor.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineCodecTest {
+
+    @Test
+    void matchesTheReferenceEncoding() {
+        // Reference example of the encoded polyline format, precision 5
+        String encoded = PolylineCodec.encode(new double[]{38.5, 40.7, 43.252}, new double[]{-120.2, -120.95, -126.453}, 5);
+
+        assertThat(encoded).isEqualTo("_p~iF~ps|U_ulLnnqC_mqNvxq`@");
+    }
+
+    @Test
+    void roundTripsRouteCoordinatesAtTheRequestedPrecision() {
+        double[] xs = {105.25, 375, 375.004, 0, -12.5};
+        double[] ys = {85.5, 200, 405.126, 0, 3000};
+
+        String encoded = PolylineCodec.encode(xs, ys, 2);
+        double[] decoded = PolylineCodec.decode(encoded, 2);
+
+        assertThat(decoded).hasSize(10);
+        for (int i = 0; i < xs.length; i++) {
+            assertThat(decoded[2 * i]).isCloseTo(xs[i], within(0.005));
+            assertThat(decoded[2 * i + 1]).isCloseTo(ys[i], within(0.005));
+        }
+        assertThat(PolylineCodec.encode(new double[0], new double[0], 2)).isEmpty();
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThatThrownBy(() -> PolylineCodec.decode("_p~iF", 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PolylineCodec.decode("_p~", 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> PolylineCodec.decode("ab\u0001", 5)).isInstanceOf(IllegalArgumentException.class);
+    }
+}